@@ -0,0 +1,15 @@
+package com.artemis.the.gr8.playerstats.api;
+
+/**
+ * The position of one player among all players that are
+ * included in statistic calculations, for one statistic.
+ * Players with the same value share the same rank.
+ *
+ * @param value the player's value for this statistic
+ * @param rank the player's rank (1 for the highest value)
+ * @param playerCount the number of players that are ranked
+ * @param percentile the percentage of ranked players that
+ *                   have a lower value than this player
+ */
+public record PlayerRank(int value, int rank, int playerCount, double percentile) {
+}
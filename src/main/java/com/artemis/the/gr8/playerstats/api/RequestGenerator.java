@@ -41,4 +41,28 @@ public interface RequestGenerator<T> {
      * @return a {@link StatRequest}
      * @throws IllegalArgumentException if <code>statistic</code> is not of Type.Entity*/
     StatRequest<T> entityType(@NotNull Statistic statistic, @NotNull EntityType entityType) throws IllegalArgumentException;
-}
\ No newline at end of file
+
+    /**
+     * Gets an executable Request object for the total of a Statistic of Statistic.Type
+     * Block, Item or Entity, added up over a set of blocks, items or entities.
+     *
+     * @param statistic a Statistic of Type.Block, Type.Item or Type.Entity
+     * @param setName "all" to add up every block, item or entity, or the name
+     *                of a set that is defined in the config (sub-stat-sets)
+     * @return a {@link StatRequest}
+     * @throws IllegalArgumentException if <code>statistic</code> is of Type.Untyped,
+     * or <code>setName</code> is not "all" or the name of a set in the config
+     */
+    StatRequest<T> subStatSet(@NotNull Statistic statistic, @NotNull String setName) throws IllegalArgumentException;
+
+    /**
+     * Gets an executable Request object for a statistic that is calculated
+     * from other statistics with a formula that is defined in the config (derived-stats).
+     *
+     * @param derivedStatName the name of the derived statistic
+     * @return a {@link StatRequest}
+     * @throws IllegalArgumentException if there is no derived statistic
+     * with a valid formula with this name
+     */
+    StatRequest<T> derived(@NotNull String derivedStatName) throws IllegalArgumentException;
+}
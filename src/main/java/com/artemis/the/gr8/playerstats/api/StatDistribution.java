@@ -0,0 +1,23 @@
+package com.artemis.the.gr8.playerstats.api;
+
+/**
+ * How the values of one statistic are spread over all players
+ * that are included in statistic calculations. Only players with
+ * a value other than 0 are counted. The count, minimum, maximum and
+ * mean are exact, and the percentiles are estimates.
+ *
+ * @param playerCount the number of players with a value other than 0
+ * @param min the lowest value
+ * @param max the highest value
+ * @param mean the average value
+ * @param percentile25 the value below which 25% of the values fall
+ * @param median the value below which 50% of the values fall
+ * @param percentile75 the value below which 75% of the values fall
+ * @param percentile90 the value below which 90% of the values fall
+ * @param percentile95 the value below which 95% of the values fall
+ * @param percentile99 the value below which 99% of the values fall
+ */
+public record StatDistribution(int playerCount, int min, int max, double mean,
+                               int percentile25, int median, int percentile75,
+                               int percentile90, int percentile95, int percentile99) {
+}
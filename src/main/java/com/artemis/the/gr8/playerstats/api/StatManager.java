@@ -1,6 +1,7 @@
 package com.artemis.the.gr8.playerstats.api;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 
 public interface StatManager {
 
@@ -51,6 +52,47 @@ public interface StatManager {
      */
     StatResult<Long> executeServerStatRequest(StatRequest<Long> request);
 
+    /** Gets a RequestGenerator that can be used to create a DistributionStatRequest,
+     * which describes how the values of a statistic are spread over all players
+     * (such as the median, or the value the top 10% of players have reached).
+     * This RequestGenerator will make sure all default settings for a
+     * distribution-lookup are configured.
+     *
+     * @return the RequestGenerator*/
+    RequestGenerator<StatDistribution> createDistributionStatRequest();
+
+    /**
+     * Executes this StatRequest. This calculation can take some time,
+     * so don't call this from the main Thread if you can help it!
+     *
+     * @return a StatResult containing the {@link StatDistribution} of this
+     * lookup, and a formatted message
+     * @see PlayerStats
+     * @see StatResult
+     */
+    StatResult<StatDistribution> executeDistributionStatRequest(StatRequest<StatDistribution> request);
+
+    /** Gets a RequestGenerator that can be used to create a BreakdownStatRequest,
+     * which lists the blocks, items or entities of a statistic with the highest
+     * totals over all players (such as the blocks that are mined most on this server).
+     * The breakdown is made over a set of sub-statistics, so the StatRequest
+     * should be created with {@link RequestGenerator#subStatSet(org.bukkit.Statistic, String)}.
+     *
+     * @param topListSize how many blocks, items or entities should be included
+     * @return the RequestGenerator*/
+    RequestGenerator<LinkedHashMap<String, Long>> createBreakdownStatRequest(int topListSize);
+
+    /**
+     * Executes this StatRequest. This calculation can take some time,
+     * so don't call this from the main Thread if you can help it!
+     *
+     * @return a StatResult containing the names of the blocks, items or entities
+     * with their totals (sorted from highest to lowest), and a formatted message
+     * @see PlayerStats
+     * @see StatResult
+     */
+    StatResult<LinkedHashMap<String, Long>> executeBreakdownStatRequest(StatRequest<LinkedHashMap<String, Long>> request);
+
     /** Gets a RequestGenerator that can be used to create a TopStatRequest
      * for a top-list of the specified size. This RequestGenerator will
      * make sure all default settings for a top-statistic-lookup are configured.
@@ -59,6 +101,33 @@ public interface StatManager {
      * @return the RequestGenerator*/
     RequestGenerator<LinkedHashMap<String, Integer>> createTopStatRequest(int topListSize);
 
+    /** Gets a RequestGenerator that can be used to create a TopStatRequest
+     * for one page of a top-list: the positions <code>topListOffset + 1</code>
+     * up to and including <code>topListOffset + topListSize</code>. Deep pages
+     * can be requested without calculating the whole top-list first, so this
+     * can be used to walk through a top-list one page at a time. This
+     * RequestGenerator will make sure all default settings for a
+     * top-statistic-lookup are configured.
+     *
+     * @param topListOffset the number of positions to skip (0 for the first page)
+     * @param topListSize how many positions the page should have
+     * @return the RequestGenerator*/
+    RequestGenerator<LinkedHashMap<String, Integer>> createTopStatRequest(int topListOffset, int topListSize);
+
+    /** Gets a RequestGenerator that can be used to create a TopStatRequest
+     * for the part of a top-list around one player: this player, and the
+     * players directly above and below them. The formatted message shows
+     * the real positions of these players in the top-list. Unlike regular
+     * top-lists, this can include players with a value of 0. This
+     * RequestGenerator will make sure all default settings for a
+     * top-statistic-lookup are configured.
+     *
+     * @param playerName the player to center the top-list on
+     * @param playersAboveAndBelow how many players to show above
+     *                             and below this player
+     * @return the RequestGenerator*/
+    RequestGenerator<LinkedHashMap<String, Integer>> createTopStatRequestAroundPlayer(String playerName, int playersAboveAndBelow);
+
     /** Gets a RequestGenerator that can be used to create a TopStatRequest
      * for all offline players on the server (those that are included by
      * PlayerStats' settings). This RequestGenerator will make sure
@@ -77,4 +146,41 @@ public interface StatManager {
      * @see StatResult
      */
     StatResult<LinkedHashMap<String, Integer>> executeTopRequest(StatRequest<LinkedHashMap<String, Integer>> request);
+
+    /** Gets a RequestGenerator that can be used to create a RankStatRequest,
+     * which finds the position of this player among all players that are
+     * included in statistic calculations, without calculating a top-list
+     * of everyone. This RequestGenerator will make sure all default settings
+     * for a rank-lookup are configured.
+     *
+     * @param playerName the player whose rank is being requested
+     * @return the RequestGenerator */
+    RequestGenerator<PlayerRank> createRankRequest(String playerName);
+
+    /**
+     * Executes this StatRequest. This calculation can take some time,
+     * so don't call this from the main Thread if you can help it!
+     *
+     * @return a StatResult containing the {@link PlayerRank} of this lookup,
+     * and a formatted message
+     * @see PlayerStats
+     * @see StatResult
+     */
+    StatResult<PlayerRank> executeRankRequest(StatRequest<PlayerRank> request);
+
+    /**
+     * Executes all of these StatRequests together. The statistics that
+     * top- and server-requests need are calculated in a single pass over
+     * all players, so this is much faster than executing the requests
+     * one by one. This calculation can take some time, so don't call
+     * this from the main Thread if you can help it!
+     *
+     * @param requests the StatRequests to execute
+     * @return a list with a StatResult for every request, in the same order
+     * @throws IllegalArgumentException if one of the requests is not valid
+     * (see {@link StatRequest#isValid()}), in which case none of them are executed
+     * @see PlayerStats
+     * @see StatResult
+     */
+    List<StatResult<?>> executeBatchRequest(List<StatRequest<?>> requests) throws IllegalArgumentException;
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.artemis.the.gr8.playerstats.api;
 
 import com.artemis.the.gr8.playerstats.api.enums.Target;
+import com.artemis.the.gr8.playerstats.api.enums.TimeWindow;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
 import org.bukkit.command.CommandSender;
@@ -9,6 +10,8 @@ import org.bukkit.entity.EntityType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Locale;
+
 /**
  * Holds all the information PlayerStats needs to perform
  * a lookup, and can be executed by the {@link StatManager}
@@ -24,6 +27,36 @@ public abstract class StatRequest<T> {
 
   public abstract boolean isValid();
 
+  /**
+   * Limits this request to the change of the statistic in a time window,
+   * such as the last week, instead of its lifetime value. This is calculated
+   * from the history of snapshots PlayerStats keeps, which a statistic is only
+   * added to once it has been requested. Until its history goes back as far as
+   * the start of the window, executing the request throws an IllegalStateException.
+   * Breakdowns cannot be limited to a time window.
+   *
+   * @param timeWindow the time window
+   * @return this StatRequest
+   */
+  public StatRequest<T> inTimeWindow(@NotNull TimeWindow timeWindow) {
+    this.settings.timeWindow = timeWindow;
+    return this;
+  }
+
+  /**
+   * Ranks a top-list by the number of positions every player has climbed
+   * in the ranking of the statistic during its time window, instead of by
+   * the value of the statistic. This only works for top-lists that are
+   * limited to a time window with {@link #inTimeWindow(TimeWindow)},
+   * and is ignored by all other requests.
+   *
+   * @return this StatRequest
+   */
+  public StatRequest<T> byRankChange() {
+    this.settings.rankChange = true;
+    return this;
+  }
+
   /**
    * Use this method to view the settings that have
    * been configured for this StatRequest.
@@ -41,11 +74,36 @@ public abstract class StatRequest<T> {
     this.settings.target = Target.SERVER;
   }
 
+  protected void configureForDistribution() {
+    this.settings.target = Target.DISTRIBUTION;
+  }
+
   protected void configureForTop(int topListSize) {
+    configureForTop(0, topListSize);
+  }
+
+  protected void configureForTop(int topListOffset, int topListSize) {
     this.settings.target = Target.TOP;
+    this.settings.topListOffset = topListOffset;
+    this.settings.topListSize = topListSize;
+  }
+
+  protected void configureForBreakdown(int topListSize) {
+    this.settings.target = Target.BREAKDOWN;
     this.settings.topListSize = topListSize;
   }
 
+  protected void configureForTopAroundPlayer(String playerName, int playersAboveAndBelow) {
+    this.settings.target = Target.TOP;
+    this.settings.playerName = playerName;
+    this.settings.topListSize = playersAboveAndBelow * 2 + 1;
+  }
+
+  protected void configureForRank(String playerName) {
+    this.settings.target = Target.RANK;
+    this.settings.playerName = playerName;
+  }
+
   protected void configureUntyped(@NotNull Statistic statistic) {
     if (statistic.getType() != Statistic.Type.UNTYPED) {
       throw new IllegalArgumentException("This statistic is not of Type.Untyped");
@@ -77,10 +135,45 @@ public abstract class StatRequest<T> {
     this.settings.subStatEntryName = entityType.toString();
   }
 
+  /**
+   * Configures this request for the total of a statistic over a set of sub-statistics.
+   *
+   * @param statistic a Statistic of Type.Block, Type.Item or Type.Entity
+   * @param setName "all" for every block, item or entity, or the name of a set
+   *                that is defined in the config (such as "ores")
+   * @throws IllegalArgumentException if the statistic is of Type.Untyped
+   */
+  protected void configureSubStatSet(@NotNull Statistic statistic, @NotNull String setName) throws IllegalArgumentException {
+    if (statistic.getType() == Statistic.Type.UNTYPED) {
+      throw new IllegalArgumentException("This statistic is of Type.Untyped, so it does not have sub-statistics");
+    }
+    this.settings.statistic = statistic;
+    this.settings.subStatSet = setName.toLowerCase(Locale.ENGLISH);
+    this.settings.subStatEntryName = this.settings.subStatSet;
+  }
+
+  /**
+   * Configures this request for a statistic that is calculated from other
+   * statistics with a formula from the config. A request like this has no
+   * {@link Statistic}, and its sub-stat-entry-name is the name of the derived statistic.
+   *
+   * @param derivedStatName the name of a derived statistic in the config
+   */
+  protected void configureDerived(@NotNull String derivedStatName) {
+    this.settings.derivedStat = derivedStatName.toLowerCase(Locale.ENGLISH);
+    this.settings.subStatEntryName = this.settings.derivedStat;
+  }
+
   protected boolean hasMatchingSubStat() {
-    if (settings.statistic == null) {
+    if (settings.derivedStat != null) {
+      return true;
+    }
+    else if (settings.statistic == null) {
       return false;
     }
+    else if (settings.subStatSet != null) {
+      return settings.statistic.getType() != Statistic.Type.UNTYPED;
+    }
 
     switch (settings.statistic.getType()) {
       case BLOCK -> {
@@ -104,9 +197,14 @@ public abstract class StatRequest<T> {
     private Statistic statistic;
     private String playerName;
     private Target target;
+    private int topListOffset;
     private int topListSize;
 
     private String subStatEntryName;
+    private String subStatSet;
+    private String derivedStat;
+    private TimeWindow timeWindow;
+    private boolean rankChange;
     private EntityType entity;
     private Material block;
     private Material item;
@@ -126,6 +224,10 @@ public abstract class StatRequest<T> {
       return sender instanceof ConsoleCommandSender;
     }
 
+    /**
+     * @return the statistic of this request, or null if
+     * this request is for a derived statistic
+     */
     public Statistic getStatistic() {
       return statistic;
     }
@@ -134,6 +236,11 @@ public abstract class StatRequest<T> {
       return subStatEntryName;
     }
 
+    /**
+     * @return the name of the player this request is for, or for a
+     * top-request, the player the top-list should be centered on
+     * (null for a regular top-list)
+     */
     public String getPlayerName() {
       return playerName;
     }
@@ -142,10 +249,50 @@ public abstract class StatRequest<T> {
       return target;
     }
 
+    /**
+     * @return the number of positions to skip at the start
+     * of the top-list (0 for a regular top-list)
+     */
+    public int getTopListOffset() {
+      return this.topListOffset;
+    }
+
     public int getTopListSize() {
       return this.topListSize;
     }
 
+    /**
+     * @return the name of the set of sub-statistics this request adds up,
+     * or null if this request is for a single block, item or entity
+     */
+    public @Nullable String getSubStatSet() {
+      return subStatSet;
+    }
+
+    /**
+     * @return the name of the derived statistic this request is for,
+     * or null if this request is for a regular statistic
+     */
+    public @Nullable String getDerivedStat() {
+      return derivedStat;
+    }
+
+    /**
+     * @return the time window this request is limited to,
+     * or null if this request is for the lifetime value
+     */
+    public @Nullable TimeWindow getTimeWindow() {
+      return timeWindow;
+    }
+
+    /**
+     * @return true if this top-list is ranked by the number of positions
+     * players have climbed during its time window
+     */
+    public boolean isRankChange() {
+      return rankChange;
+    }
+
     public EntityType getEntity() {
       return entity;
     }
@@ -10,6 +10,9 @@ import net.kyori.adventure.text.TextComponent;
  * <li> <code>Integer</code> for playerStat
  * <li> <code>Long</code> for serverStat
  * <li> <code>LinkedHashMap(String, Integer)</code> for topStat
+ * <li> {@link PlayerRank} for rankStat
+ * <li> {@link StatDistribution} for distributionStat
+ * <li> <code>LinkedHashMap(String, Long)</code> for breakdownStat
  * </ul>
  * You can get these raw numbers with {@link #getNumericalValue()}. Additionally,
  * you can get a formatted message that contains the following information:
@@ -23,6 +26,15 @@ import net.kyori.adventure.text.TextComponent;
  * <br> [1.] [player-name] [.....] [formatted-number]
  * <br> [2.] [player-name] [.....] [formatted-number]
  * <br> [3.] etc...
+ * <li> for rankStat:
+ * <br> [player-name]: [#rank] [/ player-count] [(percentile)] [stat-name] [sub-stat-name]
+ * <li> for distributionStat:
+ * <br> [server-name] [stat-name] [sub-stat-name]
+ * <br> [player-count], [min], [median], [mean], [percentiles], [max]
+ * <li> for breakdownStat:
+ * <br> [PlayerStats] [Top x] [stat-name] [sub-stat-set-name]
+ * <br> [1.] [sub-stat-name] [.....] [formatted-number]
+ * <br> [2.] etc...
  * </ul>
  * <p>
  * By default, the resulting message is a {@link TextComponent}, which can be
@@ -43,8 +55,9 @@ public record StatResult<T>(T value, TextComponent formattedComponent, String fo
     /**
      * Gets the raw number for the completed stat-lookup this {@link StatResult} stores.
      *
-     * @return {@code Integer} for playerStat, {@code Long} for serverStat, and {@code LinkedHashMap<String, Integer>}
-     * for topStat
+     * @return {@code Integer} for playerStat, {@code Long} for serverStat, {@code LinkedHashMap<String, Integer>}
+     * for topStat, {@code PlayerRank} for rankStat, {@code StatDistribution} for distributionStat,
+     * and {@code LinkedHashMap<String, Long>} for breakdownStat
      */
     T getNumericalValue() {
         return value;
@@ -0,0 +1,62 @@
+package com.artemis.the.gr8.playerstats.api.enums;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * The time windows a statistic can be requested for, instead of
+ * its lifetime value. The result is then the change of the statistic
+ * over that period, such as the time played in the last week.
+ */
+public enum TimeWindow {
+    HOUR (3_600_000L, "近1小时"),
+    DAY (86_400_000L, "近1天"),
+    WEEK (7 * 86_400_000L, "近7天"),
+    MONTH (30 * 86_400_000L, "近30天");
+
+    private final long millis;
+    private final String label;
+
+    TimeWindow(long millis, String label) {
+        this.millis = millis;
+        this.label = label;
+    }
+
+    /**
+     * @return the length of this time window in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Gets the pretty name belonging to this enum constant.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param name the name of the time window (case-insensitive), such as "week"
+     * @return the TimeWindow, or null if there is none with this name
+     */
+    public static @Nullable TimeWindow fromString(String name) {
+        for (TimeWindow timeWindow : values()) {
+            if (timeWindow.name().equalsIgnoreCase(name)) {
+                return timeWindow;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of this time window in lowercase, as it is used in commands
+     */
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -8,11 +8,16 @@ import com.artemis.the.gr8.playerstats.core.commands.*;
 import com.artemis.the.gr8.playerstats.core.msg.msgutils.NumberFormatter;
 import com.artemis.the.gr8.playerstats.core.multithreading.ThreadManager;
 import com.artemis.the.gr8.playerstats.core.statrequest.RequestManager;
+import com.artemis.the.gr8.playerstats.core.statrequest.ResultCache;
 import com.artemis.the.gr8.playerstats.core.msg.OutputManager;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.core.config.GroupHandler;
 import com.artemis.the.gr8.playerstats.core.listeners.JoinListener;
+import com.artemis.the.gr8.playerstats.core.listeners.StatListener;
 import com.artemis.the.gr8.playerstats.core.msg.msgutils.LanguageKeyHandler;
 import com.artemis.the.gr8.playerstats.core.sharing.ShareManager;
+import com.artemis.the.gr8.playerstats.core.statistic.StatHistory;
+import com.artemis.the.gr8.playerstats.core.statistic.StatStore;
 import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
 import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import me.clip.placeholderapi.PlaceholderAPIPlugin;
@@ -39,6 +44,7 @@ public final class Main extends JavaPlugin implements PlayerStats {
     private static ConfigHandler config;
     private static ThreadManager threadManager;
     private static LanguageKeyHandler languageKeyHandler;
+    private static GroupHandler groupHandler;
     private static OfflinePlayerHandler offlinePlayerHandler;
 
     private static RequestManager requestManager;
@@ -50,9 +56,12 @@ public final class Main extends JavaPlugin implements PlayerStats {
         initializeMainClasses();
         registerCommands();
         setupMetrics();
+        startStatsFileCheck();
+        startHistorySnapshots();
 
-        //register the listener
-        Bukkit.getPluginManager().registerEvents(new JoinListener(threadManager), this);
+        //register the listeners
+        Bukkit.getPluginManager().registerEvents(new JoinListener(), this);
+        Bukkit.getPluginManager().registerEvents(new StatListener(StatStore.getInstance()), this);
         
         //finish up
         this.getLogger().info("Enabled PlayerStats!");
@@ -60,6 +69,8 @@ public final class Main extends JavaPlugin implements PlayerStats {
 
     @Override
     public void onDisable() {
+        StatStore.getInstance().writeSnapshot();
+        ThreadManager.shutdownCalculationPool();
         if (adventure != null) {
             adventure.close();
             adventure = null;
@@ -71,7 +82,10 @@ public final class Main extends JavaPlugin implements PlayerStats {
         config.reload();
         MyLogger.setDebugLevel(config.getDebugLevel());
         languageKeyHandler.reload();
+        groupHandler.reload();
         offlinePlayerHandler.reload();
+        StatStore.getInstance().clear();
+        StatHistory.getInstance().clear();
         outputManager.updateSettings();
         shareManager.updateSettings();
     }
@@ -106,7 +120,9 @@ public final class Main extends JavaPlugin implements PlayerStats {
         adventure = BukkitAudiences.create(this);
 
         config = ConfigHandler.getInstance();
+        ThreadManager.createCalculationPool();
         languageKeyHandler = LanguageKeyHandler.getInstance();
+        groupHandler = GroupHandler.getInstance();
         offlinePlayerHandler = OfflinePlayerHandler.getInstance();
         shareManager = ShareManager.getInstance();
 
@@ -143,6 +159,42 @@ public final class Main extends JavaPlugin implements PlayerStats {
         }
     }
 
+    /**
+     * Periodically read the stats of players whose
+     * stats-file has been changed by something else.
+     */
+    private void startStatsFileCheck() {
+        long interval = config.getStatsFileCheckMinutes() * 60L * 20L;
+        if (interval <= 0) {
+            return;
+        }
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (StatStore.getInstance().refreshChangedPlayers() > 0) {
+                    ResultCache.getInstance().clear();
+                }
+            }
+        }.runTaskTimerAsynchronously(this, interval, interval);
+    }
+
+    /**
+     * Periodically add a snapshot of all loaded statistics to the
+     * history, so they can be requested for a time window.
+     */
+    private void startHistorySnapshots() {
+        long interval = config.getHistorySnapshotMinutes() * 60L * 20L;
+        if (interval <= 0) {
+            return;
+        }
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                StatHistory.getInstance().takeSnapshot();
+            }
+        }.runTaskTimerAsynchronously(this, interval, interval);
+    }
+
     /**
      * Setup bstats
      */
@@ -2,6 +2,7 @@ package com.artemis.the.gr8.playerstats.core.commands;
 
 import com.artemis.the.gr8.playerstats.core.enums.StandardMessage;
 import com.artemis.the.gr8.playerstats.core.msg.OutputManager;
+import com.artemis.the.gr8.playerstats.core.statrequest.ResultCache;
 import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -38,6 +39,7 @@ public final class ExcludeCommand implements CommandExecutor {
             switch (args[0]) {
                 case "add" -> {
                     if (offlinePlayerHandler.addPlayerToExcludeList(args[1])) {
+                        ResultCache.getInstance().clear();
                         outputManager.sendFeedbackMsgPlayerExcluded(sender, args[1]);
                     } else {
                         outputManager.sendFeedbackMsg(sender, StandardMessage.EXCLUDE_FAILED);
@@ -45,6 +47,7 @@ public final class ExcludeCommand implements CommandExecutor {
                 }
                 case "remove" -> {
                     if (offlinePlayerHandler.removePlayerFromExcludeList(args[1])) {
+                        ResultCache.getInstance().clear();
                         outputManager.sendFeedbackMsgPlayerIncluded(sender, args[1]);
                     } else {
                         outputManager.sendFeedbackMsg(sender, StandardMessage.INCLUDE_FAILED);
@@ -6,8 +6,14 @@ import com.artemis.the.gr8.playerstats.api.RequestGenerator;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.core.enums.StandardMessage;
 import com.artemis.the.gr8.playerstats.api.enums.Target;
+import com.artemis.the.gr8.playerstats.api.enums.TimeWindow;
 import com.artemis.the.gr8.playerstats.core.msg.OutputManager;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
+import com.artemis.the.gr8.playerstats.core.statrequest.BreakdownStatRequest;
+import com.artemis.the.gr8.playerstats.core.statrequest.DistributionStatRequest;
 import com.artemis.the.gr8.playerstats.core.statrequest.PlayerStatRequest;
+import com.artemis.the.gr8.playerstats.core.statrequest.RankStatRequest;
 import com.artemis.the.gr8.playerstats.core.statrequest.ServerStatRequest;
 import com.artemis.the.gr8.playerstats.core.statrequest.TopStatRequest;
 import com.artemis.the.gr8.playerstats.core.utils.EnumHandler;
@@ -31,7 +37,7 @@ import java.util.regex.Pattern;
 
 public final class StatCommand implements CommandExecutor {
 
-    private static final Pattern pattern = Pattern.compile("top|server|me|player");
+    private static final Pattern pattern = Pattern.compile("top|server|me|player|rank|around|distribution|breakdown");
 
     private static ThreadManager threadManager;
     private static OutputManager outputManager;
@@ -78,7 +84,7 @@ public final class StatCommand implements CommandExecutor {
      * <li>Is a <code>statistic</code> set?
      * <li>Is a <code>subStatEntry</code> needed, and if so,
      * is a corresponding Material/EntityType present?
-     * <li>If the <code>target</code> is Player, is a valid
+     * <li>If the <code>target</code> is Player or Rank, is a valid
      * <code>playerName</code> provided?
      * </ul>
      *
@@ -87,17 +93,30 @@ public final class StatCommand implements CommandExecutor {
      *                  the analyzed args
      */
     private void sendFeedback(CommandSender sender, @NotNull ArgProcessor processor) {
-        if (processor.statistic == null) {
+        if (processor.statistic == null && processor.derivedStatName == null) {
             outputManager.sendFeedbackMsg(sender, StandardMessage.MISSING_STAT_NAME);
         }
-        else if (processor.target == Target.PLAYER) {
+        else if (processor.target == Target.PLAYER || processor.target == Target.RANK || processor.playerName != null) {
             if (processor.playerName == null) {
                 outputManager.sendFeedbackMsg(sender, StandardMessage.MISSING_PLAYER_NAME);
             } else if (offlinePlayerHandler.isExcludedPlayer(processor.playerName) &&
-                    !config.allowPlayerLookupsForExcludedPlayers()) {
+                    (processor.target != Target.PLAYER || processor.timeWindow != null ||
+                            !config.allowPlayerLookupsForExcludedPlayers())) {
                 outputManager.sendFeedbackMsg(sender, StandardMessage.PLAYER_IS_EXCLUDED);
             }
         }
+        else if (processor.rankChange && processor.timeWindow == null) {
+            //positions can only be climbed during a time window
+            outputManager.sendFeedbackMsg(sender, StandardMessage.CLIMBERS_NEED_TIME_WINDOW);
+        }
+        else if (processor.target == Target.BREAKDOWN && processor.timeWindow != null) {
+            //a time window cannot be broken down
+            outputManager.sendFeedbackMsg(sender, StandardMessage.NO_BREAKDOWN_FOR_TIME_WINDOW);
+        }
+        else if (processor.derivedStatName != null) {
+            //a derived statistic cannot be broken down
+            outputManager.sendFeedbackMsg(sender, StandardMessage.NO_BREAKDOWN_FOR_DERIVED_STAT);
+        }
         else {
             Statistic.Type type = processor.statistic.getType();
             String statType = enumHandler.getSubStatTypeName(type);
@@ -116,9 +135,14 @@ public final class StatCommand implements CommandExecutor {
         private String[] argsToProcess;
 
         private Statistic statistic;
+        private String derivedStatName;
         private String subStatName;
+        private boolean isSubStatSet;
         private Target target;
         private String playerName;
+        private int page;
+        private TimeWindow timeWindow;
+        private boolean rankChange;
         private StatRequest<?> request;
 
         private ArgProcessor(CommandSender sender, String[] args) {
@@ -127,23 +151,56 @@ public final class StatCommand implements CommandExecutor {
 
             extractStatistic();
             extractSubStatistic();
+            extractPage();
+            extractTimeWindow();
+            extractRankChange();
             extractTarget();
             combineProcessedArgsIntoRequest();
+            if (request != null && timeWindow != null) {
+                request.inTimeWindow(timeWindow);
+            }
+            if (request != null && rankChange) {
+                request.byRankChange();
+            }
         }
 
         private void combineProcessedArgsIntoRequest() {
-            if (statistic == null ||
-                    target == Target.PLAYER && playerName == null) {
+            if (statistic == null && derivedStatName == null ||
+                    (target == Target.PLAYER || target == Target.RANK) && playerName == null) {
                 return;
             }
+            if (target == Target.BREAKDOWN) {
+                //a breakdown is always made over a set, which is the set of everything by default
+                if (derivedStatName != null || statistic.getType() == Statistic.Type.UNTYPED ||
+                        (subStatName != null && !isSubStatSet)) {
+                    return;
+                }
+                if (subStatName == null) {
+                    subStatName = SubStatSet.ALL;
+                    isSubStatSet = true;
+                }
+            }
 
             RequestGenerator<?> requestGenerator =
                     switch (target) {
                 case PLAYER -> new PlayerStatRequest(sender, playerName);
                 case SERVER -> new ServerStatRequest(sender);
-                case TOP -> new TopStatRequest(sender, config.getTopListMaxSize());
+                case TOP -> (playerName != null) ?
+                        new TopStatRequest(sender, playerName, config.getTopListMaxSize() / 2) :
+                        new TopStatRequest(sender, Math.max(page - 1, 0) * config.getTopListMaxSize(), config.getTopListMaxSize());
+                case RANK -> new RankStatRequest(sender, playerName);
+                case DISTRIBUTION -> new DistributionStatRequest(sender);
+                case BREAKDOWN -> new BreakdownStatRequest(sender, config.getTopListMaxSize());
             };
 
+            if (derivedStatName != null) {
+                request = requestGenerator.derived(derivedStatName);
+                return;
+            }
+            if (isSubStatSet) {
+                request = requestGenerator.subStatSet(statistic, subStatName);
+                return;
+            }
             switch (statistic.getType()) {
                 case UNTYPED -> request = requestGenerator.untyped(statistic);
                 case BLOCK -> {
@@ -186,8 +243,26 @@ public final class StatCommand implements CommandExecutor {
                             target = Target.PLAYER;
                             playerName = tryToFindPlayerName(argsToProcess);
                         }
+                        case "rank" -> {
+                            //without a player-name, players get their own rank
+                            target = Target.RANK;
+                            playerName = tryToFindPlayerName(argsToProcess);
+                            if (playerName == null && sender instanceof Player) {
+                                playerName = sender.getName();
+                            }
+                        }
+                        case "around" -> {
+                            //the players directly above and below a player (or the sender) in the top-list
+                            target = Target.TOP;
+                            playerName = tryToFindPlayerName(argsToProcess);
+                            if (playerName == null && sender instanceof Player) {
+                                playerName = sender.getName();
+                            }
+                        }
                         case "server" -> target = Target.SERVER;
                         case "top" -> target = Target.TOP;
+                        case "distribution" -> target = Target.DISTRIBUTION;
+                        case "breakdown" -> target = Target.BREAKDOWN;
                     }
                     argsToProcess = removeArg(targetArg);
                     break;
@@ -205,6 +280,55 @@ public final class StatCommand implements CommandExecutor {
             }
         }
 
+        /**
+         * Looks for "page" followed by a page number, which
+         * selects a page of the top-list (starting at 1).
+         */
+        private void extractPage() {
+            for (int i = 0; i < argsToProcess.length - 1; i++) {
+                if (argsToProcess[i].equalsIgnoreCase("page")) {
+                    try {
+                        page = Integer.parseInt(argsToProcess[i + 1]);
+                    } catch (NumberFormatException e) {
+                        return;
+                    }
+                    String pageNumber = argsToProcess[i + 1];
+                    argsToProcess = removeArg(argsToProcess[i]);
+                    argsToProcess = removeArg(pageNumber);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Looks for "hour", "day", "week" or "month", which limits
+         * the request to the change in that time window.
+         */
+        private void extractTimeWindow() {
+            for (String arg : argsToProcess) {
+                TimeWindow timeWindow = TimeWindow.fromString(arg);
+                if (timeWindow != null) {
+                    this.timeWindow = timeWindow;
+                    argsToProcess = removeArg(arg);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Looks for "climbers", which ranks a top-list by the number
+         * of positions players have climbed during its time window.
+         */
+        private void extractRankChange() {
+            for (String arg : argsToProcess) {
+                if (arg.equalsIgnoreCase("climbers")) {
+                    rankChange = true;
+                    argsToProcess = removeArg(arg);
+                    return;
+                }
+            }
+        }
+
         private void extractStatistic() {
             String statName = null;
             for (String arg : argsToProcess) {
@@ -216,6 +340,15 @@ public final class StatCommand implements CommandExecutor {
             if (statName != null) {
                 statistic = enumHandler.getStatEnum(statName);
                 argsToProcess = removeArg(statName);
+                return;
+            }
+            //a statistic that is calculated with a formula from the config
+            for (String arg : argsToProcess) {
+                if (DerivedStat.exists(arg)) {
+                    derivedStatName = arg;
+                    argsToProcess = removeArg(arg);
+                    return;
+                }
             }
         }
 
@@ -231,6 +364,16 @@ public final class StatCommand implements CommandExecutor {
                     .filter(enumHandler::isSubStatEntry)
                     .toList();
             if (subStats.isEmpty()) {
+                //"all" or a set from the config adds up all blocks, items or entities in it
+                String setName = Arrays.stream(argsToProcess)
+                        .filter(SubStatSet::exists)
+                        .findFirst()
+                        .orElse(null);
+                if (setName != null) {
+                    subStatName = setName;
+                    isSubStatSet = true;
+                    argsToProcess = removeArg(setName);
+                }
                 return;
             }
             else if (subStats.size() == 1) {
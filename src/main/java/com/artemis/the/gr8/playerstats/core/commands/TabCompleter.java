@@ -1,5 +1,8 @@
 package com.artemis.the.gr8.playerstats.core.commands;
 
+import com.artemis.the.gr8.playerstats.api.enums.TimeWindow;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
 import com.artemis.the.gr8.playerstats.core.utils.EnumHandler;
 import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import org.bukkit.Material;
@@ -81,7 +84,8 @@ public final class TabCompleter implements org.bukkit.command.TabCompleter {
                     tabSuggestions = suggestionsAfterFirstStatCommandArg(stat);
                 }
             }
-            else if (previousArg.equalsIgnoreCase("player")) {
+            else if (previousArg.equalsIgnoreCase("player") || previousArg.equalsIgnoreCase("rank") ||
+                    previousArg.equalsIgnoreCase("around")) {
                 if (args.length >= 3 && enumHandler.isEntityStatistic(args[args.length-3])) {
                     tabSuggestions = statCommandTargets;  //if arg before "player" was entity-sub-stat, suggest targets
                 }
@@ -90,8 +94,23 @@ public final class TabCompleter implements org.bukkit.command.TabCompleter {
                 }
             }
 
-            //after a substatistic, suggest targets
-            else if (enumHandler.isSubStatEntry(previousArg)) {
+            //after a target without a player, suggest the time windows
+            else if (previousArg.equalsIgnoreCase("top") || previousArg.equalsIgnoreCase("server") ||
+                    previousArg.equalsIgnoreCase("me") || previousArg.equalsIgnoreCase("distribution")) {
+                tabSuggestions = Arrays.stream(TimeWindow.values())
+                        .map(TimeWindow::toString)
+                        .collect(Collectors.toList());
+            }
+
+            //after the time window of a top-list, suggest ranking it by positions climbed
+            else if (TimeWindow.fromString(previousArg) != null &&
+                    Arrays.stream(args).anyMatch(arg -> arg.equalsIgnoreCase("top"))) {
+                tabSuggestions = List.of("climbers");
+            }
+
+            //after a substatistic (or a set of them), or a derived statistic, suggest targets
+            else if (enumHandler.isSubStatEntry(previousArg) || SubStatSet.exists(previousArg) ||
+                    DerivedStat.exists(previousArg)) {
                 tabSuggestions = statCommandTargets;
             }
         }
@@ -110,7 +129,8 @@ public final class TabCompleter implements org.bukkit.command.TabCompleter {
     }
 
     private @NotNull List<String> firstStatCommandArgSuggestions() {
-        List<String> suggestions = enumHandler.getAllStatNames();
+        List<String> suggestions = new ArrayList<>(enumHandler.getAllStatNames());
+        suggestions.addAll(DerivedStat.getNames());
         suggestions.add("examples");
         suggestions.add("info");
         suggestions.add("help");
@@ -118,28 +138,28 @@ public final class TabCompleter implements org.bukkit.command.TabCompleter {
     }
 
     private List<String> suggestionsAfterFirstStatCommandArg(@NotNull Statistic stat) {
+        List<String> subStatNames;
         switch (stat.getType()) {
-            case BLOCK -> {
-                return enumHandler.getAllBlockNames();
-            }
+            case BLOCK -> subStatNames = enumHandler.getAllBlockNames();
             case ITEM -> {
                 if (stat == Statistic.BREAK_ITEM) {
-                    return itemsThatCanBreak;
+                    subStatNames = itemsThatCanBreak;
                 } else {
-                    return enumHandler.getAllItemNames();
+                    subStatNames = enumHandler.getAllItemNames();
                 }
             }
-            case ENTITY -> {
-                return entitiesThatCanDie;
-            }
+            case ENTITY -> subStatNames = entitiesThatCanDie;
             default -> {
                 return statCommandTargets;
             }
         }
+        List<String> suggestions = new ArrayList<>(SubStatSet.getNames());
+        suggestions.addAll(subStatNames);
+        return suggestions;
     }
 
     private void prepareLists() {
-        statCommandTargets = List.of("top", "player", "server", "me");
+        statCommandTargets = List.of("top", "player", "server", "me", "rank", "around", "distribution", "breakdown");
         excludeCommandOptions = List.of("add", "list", "remove", "info");
 
         //breaking an item means running its durability negative
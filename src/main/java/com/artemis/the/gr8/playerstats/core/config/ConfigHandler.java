@@ -8,6 +8,9 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /** Handles all PlayerStats' config-settings. */
@@ -21,7 +24,7 @@ public final class ConfigHandler extends FileHandler {
         super("config.yml");
         config = super.getFileConfiguration();
 
-        configVersion = 7;
+        configVersion = 8;
         checkAndUpdateConfigVersion();
         MyLogger.setDebugLevel(getDebugLevel());
     }
@@ -91,6 +94,39 @@ public final class ConfigHandler extends FileHandler {
         return config.getBoolean("only-allow-one-lookup-at-a-time-per-player", true);
     }
 
+    /**
+     * The maximum number of threads that can be used to calculate statistics.
+     * @return the config setting (default: 0 - which signals to use all
+     * available processors but one)
+     */
+    public int getMaxCalculationThreads() {
+        return config.getInt("max-calculation-threads", 0);
+    }
+
+    /**
+     * How often PlayerStats checks which stats-files have changed.
+     * @return the config setting in minutes (default: 5)
+     */
+    public int getStatsFileCheckMinutes() {
+        return config.getInt("check-stats-files-every", 5);
+    }
+
+    /**
+     * How often a snapshot is added to the history, for time windows.
+     * @return the config setting in minutes (default: 60)
+     */
+    public int getHistorySnapshotMinutes() {
+        return config.getInt("history-snapshot-interval", 60);
+    }
+
+    /**
+     * The number of days snapshots are kept in the history.
+     * @return the config setting (default: 35)
+     */
+    public int getHistoryDays() {
+        return config.getInt("keep-history-for", 35);
+    }
+
     /**
      * Whether stat-sharing is allowed.
      * @return the config setting (default: true)
@@ -140,6 +176,70 @@ public final class ConfigHandler extends FileHandler {
         return config.getBoolean("allow-player-lookups-for-excluded-players", true);
     }
 
+    /**
+     * The number of minutes a top list is kept up to date after it was last requested.
+     * @return the config setting (default: 30)
+     */
+    public int getTopListUpdateMinutes() {
+        return config.getInt("keep-top-lists-updated-for", 30);
+    }
+
+    /**
+     * The top lists that should always be kept up to date.
+     * @return a list of statistic names, each optionally followed by
+     * a block, item or entity name (default: empty)
+     */
+    public List<String> getAlwaysUpdatedTopLists() {
+        return config.getStringList("always-updated-top-lists");
+    }
+
+    /**
+     * The named sets of blocks, items or entities that statistics can be added up over.
+     * @return a map of lowercase set names to the names of the blocks, items or
+     * entities in them (default: empty)
+     */
+    public Map<String, List<String>> getSubStatSets() {
+        Map<String, List<String>> subStatSets = new HashMap<>();
+        ConfigurationSection section = config.getConfigurationSection("sub-stat-sets");
+        if (section != null) {
+            for (String setName : section.getKeys(false)) {
+                subStatSets.put(setName.toLowerCase(Locale.ENGLISH), section.getStringList(setName));
+            }
+        }
+        return subStatSets;
+    }
+
+    /**
+     * The statistics that are calculated from other statistics with a formula.
+     * @return a map of lowercase names to their formulas (default: empty)
+     */
+    public Map<String, String> getDerivedStats() {
+        Map<String, String> derivedStats = new HashMap<>();
+        ConfigurationSection section = config.getConfigurationSection("derived-stats");
+        if (section != null) {
+            for (String statName : section.getKeys(false)) {
+                derivedStats.put(statName.toLowerCase(Locale.ENGLISH), section.getString(statName));
+            }
+        }
+        return derivedStats;
+    }
+
+    /**
+     * The number of seconds the result of a top or server statistic can be re-used.
+     * @return the config setting (default: 10)
+     */
+    public int getResultReuseSeconds() {
+        return config.getInt("reuse-results-for", 10);
+    }
+
+    /**
+     * The maximum number of results that are kept for re-use.
+     * @return the config setting (default: 100)
+     */
+    public int getMaxReusedResults() {
+        return config.getInt("max-reused-results", 100);
+    }
+
     /**
      * Whether to use TranslatableComponents wherever possible.
      *
@@ -178,18 +278,18 @@ public final class ConfigHandler extends FileHandler {
     /**
      * Whether to use enters before the statistic output in chat
      *
-     * @param selection the Target (Player, Server or Top)
+     * @param selection the Target (Player, Server, Top, Rank, Distribution or Breakdown)
      * @return the config setting (default: true for non-shared top
      * statistics, false for everything else)
      */
     public boolean useEnters(Target selection, boolean getSharedSetting) {
         ConfigurationSection section = config.getConfigurationSection("use-enters");
-        boolean def = selection == Target.TOP && !getSharedSetting;
+        boolean def = (selection == Target.TOP || selection == Target.BREAKDOWN) && !getSharedSetting;
         if (section != null) {
             String path = switch (selection) {
-                case TOP -> getSharedSetting ? "top-stats-shared" : "top-stats";
-                case PLAYER -> getSharedSetting ? "player-stats-shared" : "player-stats";
-                case SERVER -> getSharedSetting ? "server-stats-shared" : "server-stats";
+                case TOP, BREAKDOWN -> getSharedSetting ? "top-stats-shared" : "top-stats";
+                case PLAYER, RANK -> getSharedSetting ? "player-stats-shared" : "player-stats";
+                case SERVER, DISTRIBUTION -> getSharedSetting ? "server-stats-shared" : "server-stats";
             };
             return section.getBoolean(path, def);
         }
@@ -373,7 +473,7 @@ public final class ConfigHandler extends FileHandler {
      */
     public String getPlayerNameDecoration(Target selection, boolean getStyleSetting) {
         String def;
-        if (selection == Target.TOP) {
+        if (selection == Target.TOP || selection == Target.BREAKDOWN) {
             def = "green";
         }
         else {
@@ -437,7 +537,7 @@ public final class ConfigHandler extends FileHandler {
      */
     public String getStatNumberDecoration(Target selection, boolean getStyleSetting) {
         String def;
-        if (selection == Target.TOP) {
+        if (selection == Target.TOP || selection == Target.BREAKDOWN) {
             def = "#55AAFF";
         }
         else {
@@ -459,7 +559,7 @@ public final class ConfigHandler extends FileHandler {
      */
     public String getTitleDecoration(Target selection, boolean getStyleSetting) {
         String def;
-        if (selection == Target.TOP) {
+        if (selection == Target.TOP || selection == Target.BREAKDOWN) {
             def = "yellow";
         }
         else {
@@ -568,13 +668,13 @@ public final class ConfigHandler extends FileHandler {
             return config.getConfigurationSection("shared-stats");
         }
         switch (selection) {
-            case TOP -> {
+            case TOP, BREAKDOWN -> {
                 return config.getConfigurationSection("top-list");
             }
-            case PLAYER -> {
+            case PLAYER, RANK -> {
                 return config.getConfigurationSection("individual-statistics");
             }
-            case SERVER -> {
+            case SERVER, DISTRIBUTION -> {
                 return config.getConfigurationSection("total-server");
             }
             default -> {
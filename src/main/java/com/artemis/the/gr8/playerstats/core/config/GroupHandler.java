@@ -0,0 +1,98 @@
+package com.artemis.the.gr8.playerstats.core.config;
+
+import com.artemis.the.gr8.playerstats.core.utils.EnumHandler;
+import com.artemis.the.gr8.playerstats.core.utils.FileHandler;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Handles the named groups in the groups.yml. A group either
+ * contains blocks, items or entities, and can then be used
+ * instead of a single one of those, or it contains statistics,
+ * and can then be used instead of a statistic.
+ */
+public final class GroupHandler extends FileHandler {
+
+    private static volatile GroupHandler instance;
+    private volatile Map<String, List<String>> subStatGroups;
+    private volatile Map<String, List<String>> statisticGroups;
+
+    private GroupHandler() {
+        super("groups.yml");
+        readGroups();
+    }
+
+    public static GroupHandler getInstance() {
+        GroupHandler localVar = instance;
+        if (localVar != null) {
+            return localVar;
+        }
+
+        synchronized (GroupHandler.class) {
+            if (instance == null) {
+                instance = new GroupHandler();
+            }
+            return instance;
+        }
+    }
+
+    @Override
+    public void reload() {
+        super.reload();
+        readGroups();
+    }
+
+    /**
+     * The groups of blocks, items or entities that statistics can be added up over.
+     * @return a map of lowercase group names to the names of the blocks, items or
+     * entities in them (default: empty)
+     */
+    public @NotNull Map<String, List<String>> getSubStatGroups() {
+        return subStatGroups;
+    }
+
+    /**
+     * The groups of statistics that are added up into a single statistic.
+     * @return a map of lowercase group names to the statistics in them, each
+     * optionally followed by ':' and a block, item, entity or set name (default: empty)
+     */
+    public @NotNull Map<String, List<String>> getStatisticGroups() {
+        return statisticGroups;
+    }
+
+    private void readGroups() {
+        EnumHandler enumHandler = EnumHandler.getInstance();
+        Map<String, List<String>> subStatGroups = new HashMap<>();
+        Map<String, List<String>> statisticGroups = new HashMap<>();
+
+        ConfigurationSection section = super.getFileConfiguration().getConfigurationSection("groups");
+        if (section != null) {
+            for (String groupName : section.getKeys(false)) {
+                List<String> members = section.getStringList(groupName).stream()
+                        .map(member -> member.toLowerCase(Locale.ENGLISH))
+                        .collect(Collectors.toList());
+                long statisticCount = members.stream()
+                        .filter(member -> enumHandler.isStatistic(member.split(":")[0]))
+                        .count();
+
+                if (statisticCount == 0) {
+                    subStatGroups.put(groupName.toLowerCase(Locale.ENGLISH), members);
+                } else if (statisticCount == members.size()) {
+                    statisticGroups.put(groupName.toLowerCase(Locale.ENGLISH), members);
+                } else {
+                    MyLogger.logWarning("Group \"" + groupName + "\" in groups.yml contains both statistics and " +
+                            "blocks, items or entities, and will be ignored!");
+                }
+            }
+        }
+        this.subStatGroups = subStatGroups;
+        this.statisticGroups = statisticGroups;
+    }
+}
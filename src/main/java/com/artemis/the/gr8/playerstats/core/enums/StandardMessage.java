@@ -19,5 +19,9 @@ public enum StandardMessage {
     STILL_ON_SHARE_COOLDOWN,
     RESULTS_ALREADY_SHARED,
     STAT_RESULTS_TOO_OLD,
+    HISTORY_TOO_SHORT,
+    CLIMBERS_NEED_TIME_WINDOW,
+    NO_BREAKDOWN_FOR_DERIVED_STAT,
+    NO_BREAKDOWN_FOR_TIME_WINDOW,
     UNKNOWN_ERROR
 }
\ No newline at end of file
@@ -1,28 +1,28 @@
 package com.artemis.the.gr8.playerstats.core.listeners;
 
-import com.artemis.the.gr8.playerstats.core.multithreading.ThreadManager;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
- * Listens for new Players that join, and reloads PlayerStats
- * if someone joins that hasn't joined before.
+ * Listens for new Players that join, and adds them to the
+ * included players if someone joins that hasn't joined before.
  */
 @ApiStatus.Internal
 public class JoinListener implements Listener {
 
-    private static ThreadManager threadManager;
+    private static OfflinePlayerHandler offlinePlayerHandler;
 
-    public JoinListener(ThreadManager t) {
-        threadManager = t;
+    public JoinListener() {
+        offlinePlayerHandler = OfflinePlayerHandler.getInstance();
     }
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent joinEvent) {
         if (!joinEvent.getPlayer().hasPlayedBefore()) {
-            threadManager.startReloadThread(null);
+            offlinePlayerHandler.addJoinedPlayer(joinEvent.getPlayer());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.artemis.the.gr8.playerstats.core.listeners;
+
+import com.artemis.the.gr8.playerstats.core.statistic.StatKey;
+import com.artemis.the.gr8.playerstats.core.statistic.StatStore;
+import org.bukkit.Statistic;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerStatisticIncrementEvent;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.UUID;
+
+/**
+ * Listens for statistics that change while players are online,
+ * and passes their new values on to the {@link StatStore}, so
+ * loaded statistics (including the totals of sub-stat sets)
+ * and live top lists stay up to date.
+ */
+@ApiStatus.Internal
+public class StatListener implements Listener {
+
+    private static StatStore statStore;
+
+    public StatListener(StatStore s) {
+        statStore = s;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStatisticIncrement(PlayerStatisticIncrementEvent incrementEvent) {
+        Statistic statistic = incrementEvent.getStatistic();
+        StatKey statKey = switch (statistic.getType()) {
+            case UNTYPED -> new StatKey(statistic, null, null);
+            case BLOCK, ITEM -> new StatKey(statistic, incrementEvent.getMaterial(), null);
+            case ENTITY -> new StatKey(statistic, null, incrementEvent.getEntityType());
+        };
+        UUID uniqueID = incrementEvent.getPlayer().getUniqueId();
+        statStore.updateValue(statKey, uniqueID, incrementEvent.getNewValue());
+        statStore.updateSubStatSets(statKey, uniqueID, incrementEvent.getNewValue() - incrementEvent.getPreviousValue());
+    }
+}
@@ -1,5 +1,7 @@
 package com.artemis.the.gr8.playerstats.core.msg;
 
+import com.artemis.the.gr8.playerstats.api.PlayerRank;
+import com.artemis.the.gr8.playerstats.api.StatDistribution;
 import com.artemis.the.gr8.playerstats.api.StatTextFormatter;
 import com.artemis.the.gr8.playerstats.core.msg.components.*;
 import com.artemis.the.gr8.playerstats.core.msg.msgutils.*;
@@ -7,6 +9,7 @@ import com.artemis.the.gr8.playerstats.api.StatRequest;
 import com.artemis.the.gr8.playerstats.core.utils.EnumHandler;
 import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
 import com.artemis.the.gr8.playerstats.api.enums.Target;
+import com.artemis.the.gr8.playerstats.api.enums.TimeWindow;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.api.enums.Unit;
 
@@ -183,6 +186,22 @@ public final class MessageBuilder implements StatTextFormatter {
         return composePluginMessage("自从查找此统计信息以来已经太久了，请重新发送原始命令！");
     }
 
+    public @NotNull TextComponent historyTooShort() {
+        return composePluginMessage("这个统计数据的历史记录还不够长，暂时无法查看这段时间内的变化，请稍后再试！");
+    }
+
+    public @NotNull TextComponent climbersNeedTimeWindow() {
+        return composePluginMessage("climbers 需要指定时间范围：hour、day、week 或 month！");
+    }
+
+    public @NotNull TextComponent noBreakdownForDerivedStat() {
+        return composePluginMessage("派生统计数据无法使用 breakdown 细分！");
+    }
+
+    public @NotNull TextComponent noBreakdownForTimeWindow() {
+        return composePluginMessage("breakdown 无法与 hour、day、week 或 month 一起使用！");
+    }
+
     public @NotNull TextComponent unknownError() {
         return composePluginMessage("请求出现问题，请重试或查看 /statistic 以获取用法说明");
     }
@@ -328,7 +347,8 @@ public final class MessageBuilder implements StatTextFormatter {
      * as is.
      */
     public @NotNull FormattingFunction formattedPlayerStatFunction(int stat, @NotNull StatRequest.Settings request) {
-        TextComponent playerStat = formatPlayerStat(request.getPlayerName(), stat, request.getStatistic(), request.getSubStatEntryName());
+        TextComponent playerStat = formatPlayerStat(request.getPlayerName(), stat, request.getStatistic(), request.getSubStatEntryName())
+                .append(getTimeWindowComponent(request.getTimeWindow(), Target.PLAYER));
         return getFormattingFunction(playerStat, Target.PLAYER);
     }
 
@@ -344,7 +364,8 @@ public final class MessageBuilder implements StatTextFormatter {
      * as is.
      */
     public @NotNull FormattingFunction formattedServerStatFunction(long stat, @NotNull StatRequest.Settings request) {
-        TextComponent serverStat = formatServerStat(stat, request.getStatistic(), request.getSubStatEntryName());
+        TextComponent serverStat = formatServerStat(stat, request.getStatistic(), request.getSubStatEntryName())
+                .append(getTimeWindowComponent(request.getTimeWindow(), Target.SERVER));
         return getFormattingFunction(serverStat, Target.SERVER);
     }
 
@@ -360,10 +381,55 @@ public final class MessageBuilder implements StatTextFormatter {
      * as is.
      */
     public @NotNull FormattingFunction formattedTopStatFunction(@NotNull LinkedHashMap<String, Integer> topStats, @NotNull StatRequest.Settings request) {
-        final TextComponent title = getTopStatTitle(topStats.size(), request.getStatistic(), request.getSubStatEntryName());
-        final TextComponent list = getTopStatListComponent(topStats, request.getStatistic());
-        final boolean useEnters = config.useEnters(Target.TOP, false);
-        final boolean useEntersForShared = config.useEnters(Target.TOP, true);
+        return formattedTopStatFunction(topStats, request.getTopListOffset(), request);
+    }
+
+    /**
+     * Returns a BiFunction for a part of a top-list that does not start at
+     * the first position, which is numbered with the real positions.
+     *
+     * @see #formattedTopStatFunction(LinkedHashMap, StatRequest.Settings)
+     */
+    public @NotNull FormattingFunction formattedTopStatFunction(@NotNull LinkedHashMap<String, Integer> topStats, int topListOffset, @NotNull StatRequest.Settings request) {
+        final TextComponent title = ((topListOffset == 0) ?
+                getTopStatTitle(topStats.size(), request.getStatistic(), request.getSubStatEntryName()) :
+                getTopStatPageTitleComponent(topListOffset, topStats.size(), request.getStatistic(), request.getSubStatEntryName()))
+                .append(getTimeWindowComponent(request.getTimeWindow(), Target.TOP));
+        if (request.isRankChange()) {
+            //the values are positions climbed, which have no unit
+            final TextComponent rankChangeTitle = title.append(space())
+                    .append(componentFactory.statUnit("排名上升", Target.TOP));
+            return getListFormattingFunction(rankChangeTitle,
+                    getTopStatListComponent(topStats, null, topListOffset), Target.TOP);
+        }
+        final TextComponent list = getTopStatListComponent(topStats, request.getStatistic(), topListOffset);
+        return getListFormattingFunction(title, list, Target.TOP);
+    }
+
+    /**
+     * Returns a BiFunction for the breakdown of a statistic over the blocks,
+     * items or entities in a set. This BiFunction will return a formattedComponent,
+     * the shape of which is determined by the 2 parameters the BiFunction gets.
+     * <p>- Integer shareCode: if a shareCode is provided, a clickable "share"
+     * button will be added.
+     * <br>- CommandSender sender: if a sender is provided, a signature with
+     * "shared by sender-name" will be added.
+     * <br>- If both parameters are null, the formattedComponent will be returned
+     * as is.
+     */
+    public @NotNull FormattingFunction formattedBreakdownFunction(@NotNull LinkedHashMap<String, Long> breakdown, @NotNull StatRequest.Settings request) {
+        final TextComponent title = getTopStatTitle(breakdown.size(), request.getStatistic(), request.getSubStatEntryName());
+        final TextComponent list = getBreakdownListComponent(breakdown, request.getStatistic());
+        return getListFormattingFunction(title, list, Target.BREAKDOWN);
+    }
+
+    /**
+     * Puts the title and the list of a top-list or breakdown together,
+     * with a share-button or "shared by" component if needed.
+     */
+    private @NotNull FormattingFunction getListFormattingFunction(@NotNull TextComponent title, @NotNull TextComponent list, Target target) {
+        final boolean useEnters = config.useEnters(target, false);
+        final boolean useEntersForShared = config.useEnters(target, true);
 
         BiFunction<Integer, CommandSender, TextComponent> biFunction = (shareCode, sender) -> {
             TextComponent.Builder topBuilder = text();
@@ -412,6 +478,39 @@ public final class MessageBuilder implements StatTextFormatter {
         return new FormattingFunction(biFunction);
     }
 
+    /**
+     * Returns a BiFunction for a player's rank. This BiFunction will return
+     * a formattedComponent, the shape of which is determined by the 2 parameters
+     * the BiFunction gets.
+     * <p>- Integer shareCode: if a shareCode is provided, a clickable "share"
+     * button will be added.
+     * <br>- CommandSender sender: if a sender is provided, a signature with
+     * "shared by sender-name" will be added.
+     * <br>- If both parameters are null, the formattedComponent will be returned
+     * as is.
+     */
+    public @NotNull FormattingFunction formattedRankFunction(@NotNull PlayerRank rank, @NotNull StatRequest.Settings request) {
+        TextComponent playerRank = getRankComponent(request.getPlayerName(), rank, request.getStatistic(), request.getSubStatEntryName())
+                .append(getTimeWindowComponent(request.getTimeWindow(), Target.RANK));
+        return getFormattingFunction(playerRank, Target.RANK);
+    }
+
+    /**
+     * Returns a BiFunction for the distribution of a statistic. This BiFunction
+     * will return a formattedComponent, the shape of which is determined by the
+     * 2 parameters the BiFunction gets.
+     * <p>- Integer shareCode: if a shareCode is provided, a clickable "share"
+     * button will be added.
+     * <br>- CommandSender sender: if a sender is provided, a signature with
+     * "shared by sender-name" will be added.
+     * <br>- If both parameters are null, the formattedComponent will be returned
+     * as is.
+     */
+    public @NotNull FormattingFunction formattedDistributionFunction(@NotNull StatDistribution distribution, @NotNull StatRequest.Settings request) {
+        TextComponent statDistribution = getDistributionComponent(distribution, request.getStatistic(), request.getSubStatEntryName(), request.getTimeWindow());
+        return getFormattingFunction(statDistribution, Target.DISTRIBUTION);
+    }
+
     private @NotNull TextComponent getPlayerStatComponent(String playerName, TextComponent statNumberComponent, Statistic statistic, @Nullable String subStatName, @Nullable Unit unit) {
         TextComponent statUnit = (unit == null) ?
                 getStatUnitComponent(statistic, Target.PLAYER) :
@@ -428,6 +527,57 @@ public final class MessageBuilder implements StatTextFormatter {
                 .build();
     }
 
+    private @NotNull TextComponent getRankComponent(String playerName, @NotNull PlayerRank rank, Statistic statistic, @Nullable String subStatName) {
+        String rankText = "#" + formatter.formatDefaultNumber(rank.rank()) +
+                " / " + formatter.formatDefaultNumber(rank.playerCount()) +
+                String.format(" (%.1f%%)", rank.percentile());
+
+        return Component.text()
+                .append(componentFactory.playerName(playerName, Target.RANK)
+                        .append(text(":"))
+                        .append(space()))
+                .append(componentFactory.statNumber(rankText, Target.RANK))
+                .append(space())
+                .append(getStatAndSubStatNameComponent(statistic, subStatName, Target.RANK))
+                .build();
+    }
+
+    private @NotNull TextComponent getDistributionComponent(@NotNull StatDistribution distribution, Statistic statistic, @Nullable String subStatName, @Nullable TimeWindow timeWindow) {
+        TextComponent.Builder builder = Component.text()
+                .append(componentFactory.title(config.getServerTitle(), Target.DISTRIBUTION))
+                .append(space())
+                .append(componentFactory.serverName(config.getServerName()))
+                .append(space())
+                .append(getStatAndSubStatNameComponent(statistic, subStatName, Target.DISTRIBUTION))
+                .append(getStatUnitComponent(statistic, Target.DISTRIBUTION))  //space is provided by statUnitComponent
+                .append(getTimeWindowComponent(timeWindow, Target.DISTRIBUTION))
+                .append(getDistributionLineComponent("玩家数",
+                        componentFactory.statNumber(formatter.formatDefaultNumber(distribution.playerCount()), Target.DISTRIBUTION)));
+
+        if (distribution.playerCount() > 0) {
+            builder.append(getDistributionLineComponent("最小值", getStatNumberComponent(distribution.min(), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("P25", getStatNumberComponent(distribution.percentile25(), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("中位数", getStatNumberComponent(distribution.median(), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("平均值", getStatNumberComponent(Math.round(distribution.mean()), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("P75", getStatNumberComponent(distribution.percentile75(), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("P90", getStatNumberComponent(distribution.percentile90(), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("P95", getStatNumberComponent(distribution.percentile95(), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("P99", getStatNumberComponent(distribution.percentile99(), Target.DISTRIBUTION, statistic)))
+                    .append(getDistributionLineComponent("最大值", getStatNumberComponent(distribution.max(), Target.DISTRIBUTION, statistic)));
+        }
+        return builder.build();
+    }
+
+    private @NotNull TextComponent getDistributionLineComponent(String label, TextComponent statNumberComponent) {
+        return Component.text()
+                .append(newline())
+                .append(space())
+                .append(componentFactory.title(label + ":", Target.DISTRIBUTION))
+                .append(space())
+                .append(statNumberComponent)
+                .build();
+    }
+
     private @NotNull TextComponent getServerStatComponent(TextComponent statNumber, Statistic statistic, @Nullable String subStatName, @Nullable Unit unit) {
         String serverTitle = config.getServerTitle();
         String serverName = config.getServerName();
@@ -469,12 +619,29 @@ public final class MessageBuilder implements StatTextFormatter {
         }
     }
 
-    private @NotNull TextComponent getTopStatListComponent(@NotNull LinkedHashMap<String, Integer> topStats, Statistic statistic) {
+    /**
+     * The title for a page of a top-list, which shows the positions on
+     * that page instead of the size of the list.
+     */
+    private @NotNull TextComponent getTopStatPageTitleComponent(int topListOffset, int pageSize, Statistic statistic, @Nullable String subStatName) {
+        return Component.text()
+                .append(componentFactory.title(config.getTopStatsTitle(), Target.TOP))
+                .append(space())
+                .append(pageSize <= 1 ?
+                        componentFactory.titleNumber(topListOffset + 1) :
+                        componentFactory.titleNumberRange(topListOffset + 1, topListOffset + pageSize))
+                .append(space())
+                .append(getStatAndSubStatNameComponent(statistic, subStatName, Target.TOP))
+                .append(getStatUnitComponent(statistic, Target.TOP))  //space is provided by statUnitComponent
+                .build();
+    }
+
+    private @NotNull TextComponent getTopStatListComponent(@NotNull LinkedHashMap<String, Integer> topStats, @Nullable Statistic statistic, int topListOffset) {
         TextComponent.Builder topList = Component.text();
         Set<String> playerNames = topStats.keySet();
         boolean useDots = config.useDots();
 
-        int count = 0;
+        int count = topListOffset;
         for (String playerName : playerNames) {
             topList.append(newline());
             if (useDots) {
@@ -491,6 +658,53 @@ public final class MessageBuilder implements StatTextFormatter {
         return topList.build();
     }
 
+    private @NotNull TextComponent getBreakdownListComponent(@NotNull LinkedHashMap<String, Long> breakdown, Statistic statistic) {
+        TextComponent.Builder breakdownList = Component.text();
+        boolean useDots = config.useDots();
+
+        int count = 0;
+        for (Map.Entry<String, Long> entry : breakdown.entrySet()) {
+            breakdownList.append(newline())
+                    .append(space())
+                    .append(componentFactory.rankNumber(++count))
+                    .append(space())
+                    .append(getSubStatNameInListComponent(statistic, entry.getKey()));
+
+            if (useDots) {
+                int dots = getNumberOfDotsToAlign(count + ". " + StringUtils.prettify(entry.getKey()));
+                if (dots >= 1) {
+                    breakdownList.append(space())
+                            .append(componentFactory.dots(".".repeat(dots)));
+                }
+            } else {
+                breakdownList.append(componentFactory.playerName(":", Target.BREAKDOWN));
+            }
+            breakdownList.append(space())
+                    .append(getStatNumberComponent(entry.getValue(), Target.BREAKDOWN, statistic));
+        }
+        return breakdownList.build();
+    }
+
+    /**
+     * The name of a block, item or entity in a breakdown,
+     * which takes the place of the player-name in a top-list.
+     */
+    private @NotNull TextComponent getSubStatNameInListComponent(Statistic statistic, String subStatName) {
+        if (config.useTranslatableComponents()) {
+            EnumHandler enumHandler = EnumHandler.getInstance();
+            String subStatKey = switch (statistic.getType()) {
+                case UNTYPED -> null;
+                case ENTITY -> languageKeyHandler.getEntityKey(enumHandler.getEntityEnum(subStatName));
+                case BLOCK -> languageKeyHandler.getBlockKey(enumHandler.getBlockEnum(subStatName));
+                case ITEM -> languageKeyHandler.getItemKey(enumHandler.getItemEnum(subStatName));
+            };
+            if (subStatKey != null) {
+                return componentFactory.playerNameTranslatable(subStatKey, Target.BREAKDOWN);
+            }
+        }
+        return componentFactory.playerName(StringUtils.prettify(subStatName), Target.BREAKDOWN);
+    }
+
     private @NotNull TextComponent getTopStatLineComponent(int positionInTopList, String playerName, TextComponent statNumberComponent) {
         boolean useDots = config.useDots();
         String fullPlayerName = useDots ? playerName : playerName + ":";
@@ -516,7 +730,22 @@ public final class MessageBuilder implements StatTextFormatter {
                 .build();
     }
 
-    private TextComponent getStatAndSubStatNameComponent(Statistic statistic, @Nullable String subStatName, Target target) {
+    /**
+     * @return the name of the time window between brackets,
+     * or an empty component if there is no time window
+     */
+    private TextComponent getTimeWindowComponent(@Nullable TimeWindow timeWindow, Target target) {
+        if (timeWindow == null) {
+            return Component.empty();
+        }
+        return space().append(componentFactory.statUnit(timeWindow.getLabel(), target));
+    }
+
+    private TextComponent getStatAndSubStatNameComponent(@Nullable Statistic statistic, @Nullable String subStatName, Target target) {
+        if (statistic == null) {
+            //a derived statistic, for which the subStatName is its own name
+            return componentFactory.statAndSubStatName(StringUtils.prettify(subStatName), null, target);
+        }
         EnumHandler enumHandler = EnumHandler.getInstance();
 
         String statKey = languageKeyHandler.getStatKey(statistic);
@@ -548,8 +777,8 @@ public final class MessageBuilder implements StatTextFormatter {
         };
     }
 
-    private TextComponent getStatNumberComponent(long statNumber, Target target, Statistic statistic) {
-        Unit.Type unitType = Unit.getTypeFromStatistic(statistic);
+    private TextComponent getStatNumberComponent(long statNumber, Target target, @Nullable Statistic statistic) {
+        Unit.Type unitType = (statistic == null) ? Unit.Type.UNTYPED : Unit.getTypeFromStatistic(statistic);
         return switch (unitType) {
             case DISTANCE -> getDistanceNumberComponent(statNumber, target);
             case DAMAGE -> getDamageNumberComponent(statNumber, target);
@@ -631,8 +860,9 @@ public final class MessageBuilder implements StatTextFormatter {
     /**
      * Provides its own space in front of it!
      */
-    private TextComponent getStatUnitComponent(Statistic statistic, Target target) {
-        Unit unit = switch (Unit.getTypeFromStatistic(statistic)) {
+    private TextComponent getStatUnitComponent(@Nullable Statistic statistic, Target target) {
+        Unit.Type unitType = (statistic == null) ? Unit.Type.UNTYPED : Unit.getTypeFromStatistic(statistic);
+        Unit unit = switch (unitType) {
             case DAMAGE -> Unit.fromString(config.getDamageUnit(false));
             case DISTANCE -> Unit.fromString(config.getDistanceUnit(false));
             default -> Unit.NUMBER;
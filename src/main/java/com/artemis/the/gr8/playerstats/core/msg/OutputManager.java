@@ -1,5 +1,7 @@
 package com.artemis.the.gr8.playerstats.core.msg;
 
+import com.artemis.the.gr8.playerstats.api.PlayerRank;
+import com.artemis.the.gr8.playerstats.api.StatDistribution;
 import com.artemis.the.gr8.playerstats.api.StatTextFormatter;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.core.enums.StandardMessage;
@@ -83,9 +85,40 @@ public final class OutputManager {
      * <br> [2.] [player-name] [number]
      * <br> [3.] etc...
      */
-    public @NotNull FormattingFunction formatTopStats(@NotNull StatRequest.Settings requestSettings, @NotNull LinkedHashMap<String, Integer> topStats) {
+    public @NotNull FormattingFunction formatTopStats(@NotNull StatRequest.Settings requestSettings, @NotNull LinkedHashMap<String, Integer> topStats, int topListOffset) {
         return getMessageBuilder(requestSettings.getCommandSender())
-                .formattedTopStatFunction(topStats, requestSettings);
+                .formattedTopStatFunction(topStats, topListOffset, requestSettings);
+    }
+
+    /**
+     * @return a TextComponent with the following parts:
+     * <br>[player-name]: [#rank] [/ player-count] [(percentile)] [stat-name] [sub-stat-name]
+     */
+    public @NotNull FormattingFunction formatRank(@NotNull StatRequest.Settings requestSettings, @NotNull PlayerRank rank) {
+        return getMessageBuilder(requestSettings.getCommandSender())
+                .formattedRankFunction(rank, requestSettings);
+    }
+
+    /**
+     * @return a TextComponent with the following parts:
+     * <br>[server-name]: [stat-name] [sub-stat-name]
+     * <br> [player-count], [min], [median], [mean], [percentiles], [max]
+     */
+    public @NotNull FormattingFunction formatDistribution(@NotNull StatRequest.Settings requestSettings, @NotNull StatDistribution distribution) {
+        return getMessageBuilder(requestSettings.getCommandSender())
+                .formattedDistributionFunction(distribution, requestSettings);
+    }
+
+    /**
+     * @return a TextComponent with the following parts:
+     * <br>[PlayerStats] [Top 10] [stat-name] [set-name]
+     * <br> [1.] [sub-stat-name] [number]
+     * <br> [2.] [sub-stat-name] [number]
+     * <br> [3.] etc...
+     */
+    public @NotNull FormattingFunction formatBreakdown(@NotNull StatRequest.Settings requestSettings, @NotNull LinkedHashMap<String, Long> breakdown) {
+        return getMessageBuilder(requestSettings.getCommandSender())
+                .formattedBreakdownFunction(breakdown, requestSettings);
     }
 
     public void sendFeedbackMsg(@NotNull CommandSender sender, StandardMessage message) {
@@ -215,6 +248,10 @@ public final class OutputManager {
         standardMessages.put(STILL_ON_SHARE_COOLDOWN, MessageBuilder::stillOnShareCoolDown);
         standardMessages.put(RESULTS_ALREADY_SHARED, MessageBuilder::resultsAlreadyShared);
         standardMessages.put(STAT_RESULTS_TOO_OLD, MessageBuilder::statResultsTooOld);
+        standardMessages.put(HISTORY_TOO_SHORT, MessageBuilder::historyTooShort);
+        standardMessages.put(CLIMBERS_NEED_TIME_WINDOW, MessageBuilder::climbersNeedTimeWindow);
+        standardMessages.put(NO_BREAKDOWN_FOR_DERIVED_STAT, MessageBuilder::noBreakdownForDerivedStat);
+        standardMessages.put(NO_BREAKDOWN_FOR_TIME_WINDOW, MessageBuilder::noBreakdownForTimeWindow);
         standardMessages.put(UNKNOWN_ERROR, MessageBuilder::unknownError);
     }
 }
\ No newline at end of file
@@ -148,6 +148,12 @@ public class ComponentFactory {
                 getStyleFromString(config.getTitleNumberDecoration(true)));
     }
 
+    public TextComponent titleNumberRange(int firstNumber, int lastNumber) {
+        return getComponent(firstNumber + "-" + lastNumber,
+                getColorFromString(config.getTitleNumberDecoration(false)),
+                getStyleFromString(config.getTitleNumberDecoration(true)));
+    }
+
     public TextComponent rankNumber(int number) {
         return getComponent(number + ".",
                 getColorFromString(config.getRankNumberDecoration(false)),
@@ -174,6 +180,19 @@ public class ComponentFactory {
                 getStyleFromString(config.getPlayerNameDecoration(target, true)));
     }
 
+    /**
+     * Returns a TextComponent with a TranslatableComponent as a child,
+     * for a block, item or entity that takes the place of a player-name in a list.
+     */
+    public TextComponent playerNameTranslatable(String subStatKey, Target target) {
+        return getComponentBuilder(null,
+                getColorFromString(config.getPlayerNameDecoration(target, false)),
+                getStyleFromString(config.getPlayerNameDecoration(target, true)))
+                .append(translatable()
+                        .key(subStatKey))
+                .build();
+    }
+
     public TextComponent sharerName(String sharerName) {
         return getComponent(sharerName,
                 getColorFromString(config.getSharerNameDecoration(false)),
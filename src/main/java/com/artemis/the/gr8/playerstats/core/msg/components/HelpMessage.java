@@ -100,7 +100,11 @@ public final class HelpMessage implements TextComponent {
                                 text("有些统计数据需要物品、方块或实体作为额外输入").color(factory.MSG_HOVER)
                                         .append(newline())
                                         .append(text("示例：").color(factory.INFO_MSG)
-                                                .append(text("\"mine_block diorite\"").color(factory.INFO_MSG_ACCENT_MEDIUM))))))
+                                                .append(text("\"mine_block diorite\"").color(factory.INFO_MSG_ACCENT_MEDIUM)))
+                                        .append(newline())
+                                        .append(text("也可以用").color(factory.MSG_HOVER)
+                                                .append(text("\"all\"").color(factory.INFO_MSG_ACCENT_MEDIUM))
+                                                .append(text("或配置中的集合名称，合计多个的总和"))))))
                 .append(newline())
                 .append(factory.arrow()
                         .hoverEvent(HoverEvent.showText(
@@ -122,13 +126,40 @@ public final class HelpMessage implements TextComponent {
                         .hoverEvent(HoverEvent.showText(
                                 text("排名前列").color(factory.MSG_HOVER).append(space())
                                         .append(text(listSize)))))
+                .append(text(" | ").color(factory.INFO_MSG_ACCENT_MEDIUM))
+                .append(text("rank").color(factory.INFO_MSG_ACCENT_MEDIUM)
+                        .hoverEvent(HoverEvent.showText(
+                                text("查看自己或任一名玩家在所有玩家中的排名").color(factory.MSG_HOVER))))
+                .append(text(" | ").color(factory.INFO_MSG_ACCENT_MEDIUM))
+                .append(text("around").color(factory.INFO_MSG_ACCENT_MEDIUM)
+                        .hoverEvent(HoverEvent.showText(
+                                text("查看排名在自己或任一名玩家上下的玩家").color(factory.MSG_HOVER))))
+                .append(text(" | ").color(factory.INFO_MSG_ACCENT_MEDIUM))
+                .append(text("distribution").color(factory.INFO_MSG_ACCENT_MEDIUM)
+                        .hoverEvent(HoverEvent.showText(
+                                text("所有玩家数值的分布（中位数与百分位数）").color(factory.MSG_HOVER))))
+                .append(text(" | ").color(factory.INFO_MSG_ACCENT_MEDIUM))
+                .append(text("breakdown").color(factory.INFO_MSG_ACCENT_MEDIUM)
+                        .hoverEvent(HoverEvent.showText(
+                                text("全服合计最多的方块、物品或实体").color(factory.MSG_HOVER))))
                 .append(newline())
                 .append(factory.arrow()).append(space())
                 .append(text("player-name").color(factory.INFO_MSG_ACCENT_MEDIUM)
                         .hoverEvent(HoverEvent.showText(
                                 text("因为输入了").color(factory.MSG_HOVER).append(space())
                                         .append(text("\"player\"").color(factory.INFO_MSG_ACCENT_MEDIUM))
-                                                .append(text("，所以请添加玩家名称参数")))));
+                                                .append(text("，所以请添加玩家名称参数")))))
+                .append(newline())
+                .append(factory.arrow()).append(space())
+                .append(text("hour | day | week | month").color(factory.INFO_MSG_ACCENT_MEDIUM)
+                        .hoverEvent(HoverEvent.showText(
+                                text("可选，只统计这段时间内的变化").color(factory.MSG_HOVER))))
+                .append(text(" | ").color(factory.INFO_MSG_ACCENT_MEDIUM))
+                .append(text("climbers").color(factory.INFO_MSG_ACCENT_MEDIUM)
+                        .hoverEvent(HoverEvent.showText(
+                                text("可选，与").color(factory.MSG_HOVER)
+                                        .append(text("\"top\"").color(factory.INFO_MSG_ACCENT_MEDIUM))
+                                        .append(text("和时间段一起使用，按排名上升的名次排序")))));
     }
 
     @Override
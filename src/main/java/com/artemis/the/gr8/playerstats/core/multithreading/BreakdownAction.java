@@ -0,0 +1,84 @@
+package com.artemis.the.gr8.playerstats.core.multithreading;
+
+import com.artemis.the.gr8.playerstats.core.statistic.StatFileReader;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The action that adds up the values of every block, item or entity
+ * of a statistic over all players, for a breakdown of that statistic.
+ * Every player's stats-file is read once, and all its values are added
+ * to a primitive array that is indexed by the ordinal of the Material
+ * or EntityType. Every subtask fills its own array, and those are
+ * added together when the subtasks are joined.
+ */
+final class BreakdownAction extends RecursiveTask<long[]> {
+
+    private final int threshold;
+    private final WorkCostEstimate costEstimate;
+    private final StatFileReader statFileReader;
+    private final int start;
+    private final int end;
+
+    /**
+     * Adds up the values of all players that are included in stat calculations.
+     *
+     * @param statFileReader the StatFileReader for the breakdown
+     * @param playerCount the number of player-ordinals
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
+     */
+    public BreakdownAction(StatFileReader statFileReader, int playerCount, int threshold, WorkCostEstimate costEstimate) {
+        this(statFileReader, threshold, costEstimate, 0, playerCount);
+    }
+
+    private BreakdownAction(StatFileReader statFileReader, int threshold, WorkCostEstimate costEstimate, int start, int end) {
+        this.threshold = threshold;
+        this.costEstimate = costEstimate;
+        this.statFileReader = statFileReader;
+        this.start = start;
+        this.end = end;
+
+        MyLogger.subActionCreated(Thread.currentThread().getName());
+    }
+
+    @Override
+    protected long[] compute() {
+        final int length = end - start;
+        if (length <= threshold) {
+            return addUpDirectly();
+        }
+        else {
+            final int split = length / 2;
+            final BreakdownAction subTask1 = new BreakdownAction(statFileReader, threshold, costEstimate, start, (start + split));
+            final BreakdownAction subTask2 = new BreakdownAction(statFileReader, threshold, costEstimate, (start + split), end);
+
+            //queue and compute all subtasks in the right order
+            subTask1.fork();
+            long[] totals = subTask2.compute();
+            long[] otherTotals = subTask1.join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += otherTotals[i];
+            }
+            return totals;
+        }
+    }
+
+    private long[] addUpDirectly() {
+        long time = System.nanoTime();
+        OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        MyLogger.actionRunning(Thread.currentThread().getName());
+        long[] totals = new long[statFileReader.getBreakdownLength()];
+
+        for (int ordinal = start; ordinal < end; ordinal++) {
+            if (offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                statFileReader.addBreakdown(offlinePlayerHandler.getPlayerUUID(ordinal), totals);
+            }
+        }
+        costEstimate.record(System.nanoTime() - time, end - start);
+        return totals;
+    }
+}
@@ -0,0 +1,82 @@
+package com.artemis.the.gr8.playerstats.core.multithreading;
+
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The action that subtracts one array of values from another for all
+ * players, such as the values of a statistic at the start of a time window
+ * from its current values. Every subtask handles its own range of players,
+ * and only reads the two arrays, so no stats-files are read.
+ */
+final class ColumnDiffAction extends RecursiveAction {
+
+    private final int threshold;
+    private final WorkCostEstimate costEstimate;
+    private final int[] minuends;
+    private final int[] subtrahends;
+    private final int[] output;
+    private final int start;
+    private final int end;
+
+    /**
+     * Calculates the difference for all players that are included in stat
+     * calculations. Differences below 0, and excluded players, get a value of 0.
+     *
+     * @param minuends the values to subtract from, indexed by player-ordinal
+     * @param subtrahends the values to subtract, indexed by player-ordinal
+     * @param output the array to store the differences in, with room for all player-ordinals
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
+     */
+    public ColumnDiffAction(int[] minuends, int[] subtrahends, int[] output, int threshold, WorkCostEstimate costEstimate) {
+        this(minuends, subtrahends, output, threshold, costEstimate, 0, output.length);
+    }
+
+    private ColumnDiffAction(int[] minuends, int[] subtrahends, int[] output, int threshold,
+                             WorkCostEstimate costEstimate, int start, int end) {
+        this.threshold = threshold;
+        this.costEstimate = costEstimate;
+        this.minuends = minuends;
+        this.subtrahends = subtrahends;
+        this.output = output;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+        final int length = end - start;
+        if (length <= threshold) {
+            subtractDirectly();
+        }
+        else {
+            final int split = length / 2;
+            final ColumnDiffAction subTask1 = new ColumnDiffAction(minuends, subtrahends, output, threshold, costEstimate, start, (start + split));
+            final ColumnDiffAction subTask2 = new ColumnDiffAction(minuends, subtrahends, output, threshold, costEstimate, (start + split), end);
+
+            //queue and compute all subtasks in the right order
+            subTask1.fork();
+            subTask2.compute();
+            subTask1.join();
+        }
+    }
+
+    private void subtractDirectly() {
+        long time = System.nanoTime();
+        OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+
+        for (int ordinal = start; ordinal < end; ordinal++) {
+            if (offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                long minuend = (ordinal < minuends.length) ? minuends[ordinal] : 0;
+                long subtrahend = (ordinal < subtrahends.length) ? subtrahends[ordinal] : 0;
+                output[ordinal] = (int) Math.max(0, Math.min(Integer.MAX_VALUE, minuend - subtrahend));
+            } else {
+                output[ordinal] = 0;
+            }
+        }
+        costEstimate.record(System.nanoTime() - time, end - start);
+    }
+}
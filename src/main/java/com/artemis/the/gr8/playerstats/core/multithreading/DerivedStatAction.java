@@ -0,0 +1,81 @@
+package com.artemis.the.gr8.playerstats.core.multithreading;
+
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.StatColumn;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The action that calculates the values of a {@link DerivedStat} for all
+ * players, from the loaded columns of the statistics in its formula.
+ * Every subtask evaluates the formula for its own range of players,
+ * a block of players at a time.
+ */
+final class DerivedStatAction extends RecursiveAction {
+
+    private final int threshold;
+    private final WorkCostEstimate costEstimate;
+    private final DerivedStat derivedStat;
+    private final StatColumn[] operandColumns;
+    private final int[] output;
+    private final int start;
+    private final int end;
+
+    /**
+     * Calculates the values of all players that are included in stat
+     * calculations. Excluded players get a value of 0.
+     *
+     * @param derivedStat the DerivedStat to calculate
+     * @param operandColumns the loaded columns of the statistics in its formula
+     * @param output the array to store the values in, with room for all player-ordinals
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
+     */
+    public DerivedStatAction(DerivedStat derivedStat, StatColumn[] operandColumns, int[] output, int threshold, WorkCostEstimate costEstimate) {
+        this(derivedStat, operandColumns, output, threshold, costEstimate, 0, output.length);
+    }
+
+    private DerivedStatAction(DerivedStat derivedStat, StatColumn[] operandColumns, int[] output, int threshold,
+                              WorkCostEstimate costEstimate, int start, int end) {
+        this.threshold = threshold;
+        this.costEstimate = costEstimate;
+        this.derivedStat = derivedStat;
+        this.operandColumns = operandColumns;
+        this.output = output;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+        final int length = end - start;
+        if (length <= threshold) {
+            evaluateDirectly();
+        }
+        else {
+            final int split = length / 2;
+            final DerivedStatAction subTask1 = new DerivedStatAction(derivedStat, operandColumns, output, threshold, costEstimate, start, (start + split));
+            final DerivedStatAction subTask2 = new DerivedStatAction(derivedStat, operandColumns, output, threshold, costEstimate, (start + split), end);
+
+            //queue and compute all subtasks in the right order
+            subTask1.fork();
+            subTask2.compute();
+            subTask1.join();
+        }
+    }
+
+    private void evaluateDirectly() {
+        long time = System.nanoTime();
+        OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        derivedStat.evaluate(operandColumns, start, end, output);
+
+        for (int ordinal = start; ordinal < end; ordinal++) {
+            if (!offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                output[ordinal] = 0;
+            }
+        }
+        costEstimate.record(System.nanoTime() - time, end - start);
+    }
+}
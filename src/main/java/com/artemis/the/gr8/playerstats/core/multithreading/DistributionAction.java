@@ -0,0 +1,77 @@
+package com.artemis.the.gr8.playerstats.core.multithreading;
+
+import com.artemis.the.gr8.playerstats.core.statistic.QuantileSketch;
+import com.artemis.the.gr8.playerstats.core.statistic.StatColumn;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The action that summarizes the values in a {@link StatColumn} for a
+ * distribution-lookup. Every subtask fills its own {@link QuantileSketch},
+ * and those are merged when the subtasks are joined, so this costs about
+ * as much as a single pass over the column.
+ */
+final class DistributionAction extends RecursiveTask<QuantileSketch> {
+
+    private final int threshold;
+    private final WorkCostEstimate costEstimate;
+    private final StatColumn column;
+    private final int start;
+    private final int end;
+
+    /**
+     * Summarizes the values of all players that are included
+     * in stat calculations, and that have a value other than 0.
+     *
+     * @param column the loaded StatColumn to summarize
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
+     */
+    public DistributionAction(StatColumn column, int threshold, WorkCostEstimate costEstimate) {
+        this(column, threshold, costEstimate, 0, column.size());
+    }
+
+    private DistributionAction(StatColumn column, int threshold, WorkCostEstimate costEstimate, int start, int end) {
+        this.threshold = threshold;
+        this.costEstimate = costEstimate;
+        this.column = column;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected QuantileSketch compute() {
+        final int length = end - start;
+        if (length <= threshold) {
+            return summarizeDirectly();
+        }
+        else {
+            final int split = length / 2;
+            final DistributionAction subTask1 = new DistributionAction(column, threshold, costEstimate, start, (start + split));
+            final DistributionAction subTask2 = new DistributionAction(column, threshold, costEstimate, (start + split), end);
+
+            //queue and compute all subtasks in the right order
+            subTask1.fork();
+            QuantileSketch sketch = subTask2.compute();
+            sketch.merge(subTask1.join());
+            return sketch;
+        }
+    }
+
+    private QuantileSketch summarizeDirectly() {
+        long time = System.nanoTime();
+        OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        QuantileSketch sketch = new QuantileSketch();
+
+        for (int ordinal = start; ordinal < end; ordinal++) {
+            int value = column.get(ordinal);
+            if (value != 0 && offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                sketch.add(value);
+            }
+        }
+        costEstimate.record(System.nanoTime() - time, end - start);
+        return sketch;
+    }
+}
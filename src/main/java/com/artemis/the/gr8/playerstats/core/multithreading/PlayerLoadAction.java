@@ -15,7 +15,8 @@ import java.util.concurrent.RecursiveAction;
  */
 final class PlayerLoadAction extends RecursiveAction {
 
-    private static int threshold;
+    private final int threshold;
+    private final WorkCostEstimate costEstimate;
 
     private final OfflinePlayer[] players;
     private final int start;
@@ -29,15 +30,20 @@ final class PlayerLoadAction extends RecursiveAction {
      *
      * @param players array of all OfflinePlayers to filter and load
      * @param offlinePlayerUUIDs the ConcurrentHashMap to put playerNames and UUIDs in
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
      * @see OfflinePlayerHandler
      */
-    public PlayerLoadAction(OfflinePlayer[] players, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs) {
-       this(players, 0, players.length, offlinePlayerUUIDs);
+    public PlayerLoadAction(OfflinePlayer[] players, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs,
+                            int threshold, WorkCostEstimate costEstimate) {
+       this(players, 0, players.length, offlinePlayerUUIDs, threshold, costEstimate);
     }
 
-    private PlayerLoadAction(OfflinePlayer[] players, int start, int end, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs) {
-        threshold = ThreadManager.getTaskThreshold();
-
+    private PlayerLoadAction(OfflinePlayer[] players, int start, int end, ConcurrentHashMap<String, UUID> offlinePlayerUUIDs,
+                             int threshold, WorkCostEstimate costEstimate) {
+        this.threshold = threshold;
+        this.costEstimate = costEstimate;
         this.players = players;
         this.start = start;
         this.end = end;
@@ -49,15 +55,15 @@ final class PlayerLoadAction extends RecursiveAction {
     @Override
     protected void compute() {
         final int length = end - start;
-        if (length < threshold) {
+        if (length <= threshold) {
             process();
         }
         else {
             final int split = length / 2;
             final PlayerLoadAction subTask1 = new PlayerLoadAction(players, start, (start + split),
-                    offlinePlayerUUIDs);
+                    offlinePlayerUUIDs, threshold, costEstimate);
             final PlayerLoadAction subTask2 = new PlayerLoadAction(players, (start + split), end,
-                    offlinePlayerUUIDs);
+                    offlinePlayerUUIDs, threshold, costEstimate);
 
             //queue and compute all subtasks in the right order
             invokeAll(subTask1, subTask2);
@@ -65,18 +71,20 @@ final class PlayerLoadAction extends RecursiveAction {
     }
 
     private void process() {
+        long time = System.nanoTime();
         OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
         int lastPlayedLimit = ConfigHandler.getInstance().getLastPlayedLimit();
+        MyLogger.actionRunning(Thread.currentThread().getName());
 
         for (int i = start; i < end; i++) {
             OfflinePlayer player = players[i];
             String playerName = player.getName();
-            MyLogger.actionRunning(Thread.currentThread().getName());
             if (playerName != null &&
                     !offlinePlayerHandler.isExcludedPlayer(player.getUniqueId()) &&
                     UnixTimeHandler.hasPlayedSince(lastPlayedLimit, player.getLastPlayed())) {
                 offlinePlayerUUIDs.put(playerName, player.getUniqueId());
             }
         }
+        costEstimate.record(System.nanoTime() - time, end - start);
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.artemis.the.gr8.playerstats.core.multithreading;
 import com.artemis.the.gr8.playerstats.core.Main;
 import com.artemis.the.gr8.playerstats.core.enums.StandardMessage;
 import com.artemis.the.gr8.playerstats.core.msg.OutputManager;
+import com.artemis.the.gr8.playerstats.core.statrequest.ResultCache;
 import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
 import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.Nullable;
@@ -47,6 +48,7 @@ final class ReloadThread extends Thread {
 
         MyLogger.logLowLevelMsg("Reloading!");
         main.reloadPlugin();
+        ResultCache.getInstance().clear();
 
         if (sender != null) {
             outputManager.sendFeedbackMsg(sender, StandardMessage.RELOADED_CONFIG);
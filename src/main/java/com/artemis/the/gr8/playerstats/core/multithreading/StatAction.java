@@ -1,82 +1,138 @@
 package com.artemis.the.gr8.playerstats.core.multithreading;
 
-import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.statistic.StatColumn;
+import com.artemis.the.gr8.playerstats.core.statistic.StatFileReader;
+import com.artemis.the.gr8.playerstats.core.statistic.StatStore;
 import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
-import com.google.common.collect.ImmutableList;
+import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The action that is executed when a stat-command is triggered.
+ * It can fill several columns at once, in which case every
+ * player is only read once for all of them.
  */
-final class StatAction extends RecursiveTask<ConcurrentHashMap<String, Integer>> {
+final class StatAction extends RecursiveAction {
 
-    private static int threshold;
-    private final ImmutableList<String> playerNames;
-    private final StatRequest.Settings requestSettings;
-    private final ConcurrentHashMap<String, Integer> allStats;
+    private final int threshold;
+    private final WorkCostEstimate costEstimate;
+    private final StatColumn[] columns;
+    private final StatFileReader statFileReader;
+    private final int[] ordinals;
+    private final int start;
+    private final int end;
 
     /**
-     * Gets the statistic numbers for all players whose name is on
-     * the list, puts them in a ConcurrentHashMap using the default
-     * ForkJoinPool, and returns the ConcurrentHashMap when
-     * everything is done.
+     * Gets the statistic numbers for all players that should be included
+     * in stat calculations, and stores them in the given {@link StatColumn}s
+     * using PlayerStats' calculation pool.
      *
-     * @param playerNames ImmutableList of playerNames for players that should be included in stat calculations
-     * @param requestSettings a validated requestSettings object
-     * @param allStats the ConcurrentHashMap to put the results on
+     * @param columns the StatColumns to fill, all with room for all player-ordinals
+     * @param statFileReader the StatFileReader to read the stats of offline
+     *                       players with (for the columns in the same order),
+     *                       or null to get all stats through Bukkit
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
      */
-    public StatAction(ImmutableList<String> playerNames, StatRequest.Settings requestSettings, ConcurrentHashMap<String, Integer> allStats) {
-        threshold = ThreadManager.getTaskThreshold();
+    public StatAction(StatColumn[] columns, @Nullable StatFileReader statFileReader, int threshold, WorkCostEstimate costEstimate) {
+        this(columns, statFileReader, threshold, costEstimate, null, 0, columns.length > 0 ? columns[0].size() : 0);
+    }
+
+    /**
+     * Gets the statistic numbers for only the given players, and stores
+     * them in the given {@link StatColumn}s (that have already been loaded
+     * for all other players).
+     *
+     * @param columns the StatColumns to fill
+     * @param statFileReader the StatFileReader to read the stats of offline
+     *                       players with (for the columns in the same order),
+     *                       or null to get all stats through Bukkit
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
+     * @param ordinals the ordinals of the players to get the stats for
+     */
+    public StatAction(StatColumn[] columns, @Nullable StatFileReader statFileReader, int threshold,
+                      WorkCostEstimate costEstimate, int[] ordinals) {
+        this(columns, statFileReader, threshold, costEstimate, ordinals, 0, ordinals.length);
+    }
 
-        this.playerNames = playerNames;
-        this.requestSettings = requestSettings;
-        this.allStats = allStats;
+    private StatAction(StatColumn[] columns, @Nullable StatFileReader statFileReader, int threshold,
+                       WorkCostEstimate costEstimate, int @Nullable [] ordinals, int start, int end) {
+        this.threshold = threshold;
+        this.costEstimate = costEstimate;
+        this.columns = columns;
+        this.statFileReader = statFileReader;
+        this.ordinals = ordinals;
+        this.start = start;
+        this.end = end;
 
         MyLogger.subActionCreated(Thread.currentThread().getName());
     }
 
     @Override
-    protected ConcurrentHashMap<String, Integer> compute() {
-        if (playerNames.size() < threshold) {
-            return getStatsDirectly();
+    protected void compute() {
+        final int length = end - start;
+        if (length <= threshold) {
+            getStatsDirectly();
         }
         else {
-            final StatAction subTask1 = new StatAction(playerNames.subList(0, playerNames.size()/2), requestSettings, allStats);
-            final StatAction subTask2 = new StatAction(playerNames.subList(playerNames.size()/2, playerNames.size()), requestSettings, allStats);
+            final int split = length / 2;
+            final StatAction subTask1 = new StatAction(columns, statFileReader, threshold, costEstimate, ordinals, start, (start + split));
+            final StatAction subTask2 = new StatAction(columns, statFileReader, threshold, costEstimate, ordinals, (start + split), end);
 
             //queue and compute all subtasks in the right order
             subTask1.fork();
             subTask2.compute();
-            return subTask1.join();
+            subTask1.join();
         }
     }
 
-    private ConcurrentHashMap<String, Integer> getStatsDirectly() {
+    private void getStatsDirectly() {
+        long time = System.nanoTime();
         OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        StatStore statStore = StatStore.getInstance();
+        MyLogger.actionRunning(Thread.currentThread().getName());
+        int[] values = new int[columns.length];
 
-        Iterator<String> iterator = playerNames.iterator();
-        if (iterator.hasNext()) {
-            do {
-                String playerName = iterator.next();
-                MyLogger.actionRunning(Thread.currentThread().getName());
-                OfflinePlayer player = offlinePlayerHandler.getIncludedOfflinePlayer(playerName);
-                int statistic = 0;
-                switch (requestSettings.getStatistic().getType()) {
-                    case UNTYPED -> statistic = player.getStatistic(requestSettings.getStatistic());
-                    case ENTITY -> statistic = player.getStatistic(requestSettings.getStatistic(), requestSettings.getEntity());
-                    case BLOCK -> statistic = player.getStatistic(requestSettings.getStatistic(), requestSettings.getBlock());
-                    case ITEM -> statistic = player.getStatistic(requestSettings.getStatistic(), requestSettings.getItem());
+        for (int i = start; i < end; i++) {
+            int ordinal = (ordinals != null) ? ordinals[i] : i;
+            if (!offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                continue;
+            }
+            UUID uniqueID = offlinePlayerHandler.getPlayerUUID(ordinal);
+
+            //the stats-files of online players are outdated, so only use them for offline players
+            boolean isRead = false;
+            if (statFileReader != null && Bukkit.getPlayer(uniqueID) == null) {
+                if (columns.length == 1) {
+                    values[0] = statFileReader.getStatistic(uniqueID);
+                    isRead = values[0] != -1;
+                } else {
+                    isRead = statFileReader.getStatistics(uniqueID, values);
+                }
+            }
+            if (!isRead) {
+                OfflinePlayer player = Bukkit.getOfflinePlayer(uniqueID);
+                for (int c = 0; c < columns.length; c++) {
+                    values[c] = columns[c].getStatKey().getValueFor(player);
                 }
-                if (statistic > 0) {
-                    allStats.put(playerName, statistic);
+            }
+            //columns that are already in use also need their total and leaderboard updated
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c].isLoaded()) {
+                    statStore.setValue(columns[c], ordinal, values[c]);
+                } else {
+                    columns[c].set(ordinal, values[c]);
                 }
-            } while (iterator.hasNext());
+            }
         }
-        return allStats;
+        costEstimate.record(System.nanoTime() - time, end - start);
     }
-}
\ No newline at end of file
+}
@@ -63,5 +63,12 @@ final class StatThread extends Thread {
                 outputManager.sendFeedbackMsg(statRequester, StandardMessage.UNKNOWN_ERROR);
             }
         }
+        catch (IllegalStateException e) {
+            //the history of this statistic does not go back far enough for the requested time window
+            if (statRequest.getSettings().getTimeWindow() == null) {
+                throw e;
+            }
+            outputManager.sendFeedbackMsg(statRequester, StandardMessage.HISTORY_TOO_SHORT);
+        }
     }
 }
\ No newline at end of file
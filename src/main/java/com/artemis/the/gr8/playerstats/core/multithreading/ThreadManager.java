@@ -5,16 +5,25 @@ import com.artemis.the.gr8.playerstats.core.msg.OutputManager;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.core.enums.StandardMessage;
 import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.StatColumn;
+import com.artemis.the.gr8.playerstats.core.statistic.StatFileReader;
+import com.artemis.the.gr8.playerstats.core.statistic.StatKey;
 import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
 import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
-import com.google.common.collect.ImmutableList;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
 
 /**
  * The ThreadManager is in charge of the Threads that PlayerStats
@@ -23,11 +32,25 @@ import java.util.concurrent.ConcurrentHashMap;
  * (thereby limiting them to one stat-lookup at a time). It also
  * passes appropriate references along to the {@link StatThread}
  * or {@link ReloadThread}, to ensure those will never run at the
- * same time.
+ * same time. All statistic calculations are executed in PlayerStats'
+ * own ForkJoinPool, so they never compete with other plugins (or the
+ * server itself) for the common pool.
  */
 public final class ThreadManager {
 
-    private final static int threshold = 10;
+    /** The number of leaf tasks per thread, so threads that finish early can take over work from others. */
+    private static final int TASKS_PER_THREAD = 8;
+    /** The minimum time a leaf task should take, so the cost of creating it is negligible. */
+    private static final long MIN_TASK_NANOS = 500_000;
+    private static final int MIN_THRESHOLD = 16;
+
+    private static final WorkCostEstimate statActionCost = new WorkCostEstimate(20_000);
+    private static final WorkCostEstimate playerLoadActionCost = new WorkCostEstimate(5_000);
+    private static final WorkCostEstimate breakdownActionCost = new WorkCostEstimate(30_000);
+    private static final WorkCostEstimate topStatActionCost = new WorkCostEstimate(5);
+    private static final WorkCostEstimate distributionActionCost = new WorkCostEstimate(20);
+    private static final WorkCostEstimate derivedStatActionCost = new WorkCostEstimate(50);
+    private static final WorkCostEstimate columnDiffActionCost = new WorkCostEstimate(5);
     private int statThreadID;
     private int reloadThreadID;
 
@@ -39,6 +62,7 @@ public final class ThreadManager {
     private StatThread activatedStatThread;
     private final HashMap<String, Thread> statThreads;
     private static long lastRecordedCalcTime;
+    private static ForkJoinPool calculationPool;
 
     public ThreadManager(Main main, OutputManager outputManager) {
         this.main = main;
@@ -51,23 +75,194 @@ public final class ThreadManager {
         lastRecordedCalcTime = 0;
     }
 
-    static int getTaskThreshold() {
+    /**
+     * Creates the ForkJoinPool that all statistic calculations are
+     * executed in, with as many threads as the config allows.
+     */
+    public static synchronized void createCalculationPool() {
+        if (calculationPool == null) {
+            int maxThreads = ConfigHandler.getInstance().getMaxCalculationThreads();
+            int parallelism = maxThreads > 0 ?
+                    maxThreads :
+                    Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+            calculationPool = new ForkJoinPool(parallelism, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("PlayerStats-Worker-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+            MyLogger.logMediumLevelMsg("Created a calculation pool with " + parallelism + " threads");
+        }
+    }
+
+    /**
+     * Shuts down the calculation pool, and interrupts
+     * any calculations that are still running.
+     */
+    public static synchronized void shutdownCalculationPool() {
+        if (calculationPool != null) {
+            calculationPool.shutdownNow();
+            calculationPool = null;
+        }
+    }
+
+    /**
+     * Executes a task in the calculation pool, and waits for it to finish.
+     *
+     * @param task the task to execute
+     * @return the result of the task
+     * @throws IllegalStateException if the calculation pool has
+     * been shut down, because PlayerStats is disabled
+     */
+    public static <T> T invoke(@NotNull ForkJoinTask<T> task) throws IllegalStateException {
+        ForkJoinPool pool = calculationPool;
+        if (pool == null) {
+            throw new IllegalStateException("PlayerStats' calculation pool is not running!");
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Calculates how many players a task should process directly instead of
+     * splitting into subtasks. Tasks are split into enough parts to give every
+     * thread in the calculation pool several of them, but never into parts that
+     * are so small that creating them would cost more than the work they do.
+     *
+     * @param playerCount the total number of players to process
+     * @param costEstimate the estimated cost of processing one player
+     * @return the threshold
+     */
+    private static int getTaskThreshold(int playerCount, @NotNull WorkCostEstimate costEstimate) {
+        ForkJoinPool pool = calculationPool;
+        int parallelism = (pool != null) ? pool.getParallelism() : Runtime.getRuntime().availableProcessors();
+
+        long sizeForBalance = playerCount / ((long) parallelism * TASKS_PER_THREAD) + 1;
+        long sizeForOverhead = (long) (MIN_TASK_NANOS / Math.max(costEstimate.getNanosPerPlayer(), 1));
+        int threshold = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_THRESHOLD, Math.max(sizeForBalance, sizeForOverhead)));
+
+        MyLogger.logHighLevelMsg("Splitting " + playerCount + " players into tasks of up to " + threshold +
+                " players (" + parallelism + " threads, " + (long) costEstimate.getNanosPerPlayer() + "ns per player)");
         return threshold;
     }
 
-    public static @NotNull StatAction getStatAction(StatRequest.Settings requestSettings) {
-        OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+    /**
+     * Gets an action that fills all these columns in a single pass
+     * over the players, so every player is only read once.
+     *
+     * @param columnsToFill the columns to fill, all prepared for the same number of players
+     * @return the StatAction
+     */
+    public static @NotNull StatAction getStatAction(List<StatColumn> columnsToFill) {
+        List<StatKey> statKeys = columnsToFill.stream()
+                .map(StatColumn::getStatKey)
+                .collect(Collectors.toList());
+        StatFileReader statFileReader = StatFileReader.forStats(statKeys);
+
+        int playerCount = columnsToFill.isEmpty() ? 0 : columnsToFill.get(0).size();
+        int threshold = getTaskThreshold(playerCount, statActionCost);
+        StatAction task = new StatAction(columnsToFill.toArray(StatColumn[]::new), statFileReader, threshold, statActionCost);
+
+        MyLogger.actionCreated(playerCount);
+        return task;
+    }
 
-        ImmutableList<String> relevantPlayerNames = ImmutableList.copyOf(offlinePlayerHandler.getIncludedOfflinePlayerNames());
-        ConcurrentHashMap<String, Integer> resultingStatNumbers = new ConcurrentHashMap<>(relevantPlayerNames.size());
-        StatAction task = new StatAction(relevantPlayerNames, requestSettings, resultingStatNumbers);
+    /**
+     * Gets an action that only updates the given players in these columns.
+     *
+     * @param columnsToUpdate the columns to update
+     * @param ordinals the ordinals of the players to update
+     * @return the StatAction
+     */
+    public static @NotNull StatAction getStatAction(List<StatColumn> columnsToUpdate, int[] ordinals) {
+        List<StatKey> statKeys = columnsToUpdate.stream()
+                .map(StatColumn::getStatKey)
+                .collect(Collectors.toList());
+        StatFileReader statFileReader = StatFileReader.forStats(statKeys);
+
+        int threshold = getTaskThreshold(ordinals.length, statActionCost);
+        StatAction task = new StatAction(columnsToUpdate.toArray(StatColumn[]::new), statFileReader, threshold, statActionCost, ordinals);
+
+        MyLogger.actionCreated(ordinals.length);
+        return task;
+    }
+
+    /**
+     * Gets an action that selects the highest values from this column.
+     *
+     * @param column the loaded StatColumn to select from
+     * @param topListSize the number of players to select
+     * @return the TopStatAction
+     */
+    public static @NotNull TopStatAction getTopStatAction(StatColumn column, int topListSize) {
+        int threshold = getTaskThreshold(column.size(), topStatActionCost);
+        return new TopStatAction(column, topListSize, threshold, topStatActionCost);
+    }
+
+    /**
+     * Gets an action that summarizes the values in this column
+     * in a {@link com.artemis.the.gr8.playerstats.core.statistic.QuantileSketch}.
+     *
+     * @param column the loaded StatColumn to summarize
+     * @return the DistributionAction
+     */
+    public static @NotNull DistributionAction getDistributionAction(StatColumn column) {
+        int threshold = getTaskThreshold(column.size(), distributionActionCost);
+        return new DistributionAction(column, threshold, distributionActionCost);
+    }
+
+    /**
+     * Gets an action that calculates a DerivedStat for all players,
+     * from the loaded columns of the statistics in its formula.
+     *
+     * @param derivedStat the DerivedStat to calculate
+     * @param operandColumns the loaded columns of {@link DerivedStat#getOperands()}, in the same order
+     * @param output the array to store the values in, with room for all player-ordinals
+     * @return the DerivedStatAction
+     */
+    public static @NotNull DerivedStatAction getDerivedStatAction(DerivedStat derivedStat, List<StatColumn> operandColumns, int[] output) {
+        int threshold = getTaskThreshold(output.length, derivedStatActionCost);
+        return new DerivedStatAction(derivedStat, operandColumns.toArray(StatColumn[]::new), output, threshold, derivedStatActionCost);
+    }
+
+    /**
+     * Gets an action that subtracts one array of values from another for all
+     * players, such as the values of a statistic at the start of a time window
+     * from its current values.
+     *
+     * @param minuends the values to subtract from, indexed by player-ordinal
+     * @param subtrahends the values to subtract, indexed by player-ordinal
+     * @param output the array to store the differences in, with room for all player-ordinals
+     * @return the ColumnDiffAction
+     */
+    public static @NotNull ColumnDiffAction getColumnDiffAction(int[] minuends, int[] subtrahends, int[] output) {
+        int threshold = getTaskThreshold(output.length, columnDiffActionCost);
+        return new ColumnDiffAction(minuends, subtrahends, output, threshold, columnDiffActionCost);
+    }
+
+    /**
+     * Gets an action that adds up every block, item or entity in this
+     * set over all players, by reading every stats-file once.
+     *
+     * @param statKey the StatKey of the statistic and the set to break down
+     * @return the BreakdownAction, or null if the stats-files cannot
+     * be found, or the set does not exist
+     */
+    public static @Nullable BreakdownAction getBreakdownAction(StatKey statKey) {
+        StatFileReader statFileReader = StatFileReader.forBreakdown(statKey);
+        if (statFileReader == null) {
+            return null;
+        }
+        int playerCount = OfflinePlayerHandler.getInstance().getPlayerOrdinalCount();
+        int threshold = getTaskThreshold(playerCount, breakdownActionCost);
+        BreakdownAction task = new BreakdownAction(statFileReader, playerCount, threshold, breakdownActionCost);
 
-        MyLogger.actionCreated(relevantPlayerNames.size());
+        MyLogger.actionCreated(playerCount);
         return task;
     }
 
     public static @NotNull PlayerLoadAction getPlayerLoadAction(OfflinePlayer[] playersToLoad, ConcurrentHashMap<String, UUID> mapToFill) {
-        PlayerLoadAction task = new PlayerLoadAction(playersToLoad, mapToFill);
+        int threshold = getTaskThreshold(playersToLoad != null ? playersToLoad.length : 0, playerLoadActionCost);
+        PlayerLoadAction task = new PlayerLoadAction(playersToLoad, mapToFill, threshold, playerLoadActionCost);
         MyLogger.actionCreated(playersToLoad != null ? playersToLoad.length : 0);
         return task;
     }
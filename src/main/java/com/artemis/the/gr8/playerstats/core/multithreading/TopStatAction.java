@@ -0,0 +1,80 @@
+package com.artemis.the.gr8.playerstats.core.multithreading;
+
+import com.artemis.the.gr8.playerstats.core.statistic.StatColumn;
+import com.artemis.the.gr8.playerstats.core.statistic.TopHeap;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The action that selects the highest values from a {@link StatColumn}
+ * for a top-stat-lookup. Every subtask keeps its own {@link TopHeap}
+ * of candidates, and those are merged when the subtasks are joined.
+ */
+final class TopStatAction extends RecursiveTask<TopHeap> {
+
+    private final int threshold;
+    private final WorkCostEstimate costEstimate;
+    private final StatColumn column;
+    private final int topListSize;
+    private final int start;
+    private final int end;
+
+    /**
+     * Selects the highest values of all players that are
+     * included in stat calculations.
+     *
+     * @param column the loaded StatColumn to select from
+     * @param topListSize the number of players to select
+     * @param threshold the number of players a task processes directly
+     *                  instead of splitting into subtasks
+     * @param costEstimate the WorkCostEstimate to record the time taken in
+     */
+    public TopStatAction(StatColumn column, int topListSize, int threshold, WorkCostEstimate costEstimate) {
+        this(column, topListSize, threshold, costEstimate, 0, column.size());
+    }
+
+    private TopStatAction(StatColumn column, int topListSize, int threshold,
+                          WorkCostEstimate costEstimate, int start, int end) {
+        this.threshold = threshold;
+        this.costEstimate = costEstimate;
+        this.column = column;
+        this.topListSize = topListSize;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected TopHeap compute() {
+        final int length = end - start;
+        if (length <= threshold) {
+            return selectDirectly();
+        }
+        else {
+            final int split = length / 2;
+            final TopStatAction subTask1 = new TopStatAction(column, topListSize, threshold, costEstimate, start, (start + split));
+            final TopStatAction subTask2 = new TopStatAction(column, topListSize, threshold, costEstimate, (start + split), end);
+
+            //queue and compute all subtasks in the right order
+            subTask1.fork();
+            TopHeap heap = subTask2.compute();
+            heap.merge(subTask1.join());
+            return heap;
+        }
+    }
+
+    private TopHeap selectDirectly() {
+        long time = System.nanoTime();
+        OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        TopHeap heap = new TopHeap(topListSize);
+
+        for (int ordinal = start; ordinal < end; ordinal++) {
+            int value = column.get(ordinal);
+            if (value > 0 && heap.accepts(ordinal, value) && offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                heap.offer(ordinal, value);
+            }
+        }
+        costEstimate.record(System.nanoTime() - time, end - start);
+        return heap;
+    }
+}
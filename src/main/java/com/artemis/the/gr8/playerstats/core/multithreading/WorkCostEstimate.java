@@ -0,0 +1,37 @@
+package com.artemis.the.gr8.playerstats.core.multithreading;
+
+/**
+ * Keeps a running estimate of how long it takes a single thread
+ * to process one player in a certain kind of action, as an
+ * exponentially weighted moving average of the measured costs.
+ */
+final class WorkCostEstimate {
+
+    /** How much weight a new measurement gets compared to the previous estimate. */
+    private static final double WEIGHT = 0.2;
+    private double nanosPerPlayer;
+
+    /**
+     * @param initialNanosPerPlayer the estimate to use
+     *                              before anything has been measured
+     */
+    public WorkCostEstimate(double initialNanosPerPlayer) {
+        nanosPerPlayer = initialNanosPerPlayer;
+    }
+
+    public synchronized double getNanosPerPlayer() {
+        return nanosPerPlayer;
+    }
+
+    /**
+     * Adds the time it took to process a number of players to the estimate.
+     *
+     * @param nanos the time it took, in nanoseconds
+     * @param playerCount the number of players that were processed
+     */
+    public synchronized void record(long nanos, int playerCount) {
+        if (playerCount > 0) {
+            nanosPerPlayer += WEIGHT * (((double) nanos / playerCount) - nanosPerPlayer);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.core.config.GroupHandler;
+import com.artemis.the.gr8.playerstats.core.utils.EnumHandler;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A statistic that is calculated from other statistics with a formula
+ * that is defined in the config (derived-stats), such as
+ * "player_kills * 100 / deaths". Dividing by 0 gives 0, and the
+ * result is rounded to a whole number. A group of statistics in the
+ * groups.yml is a DerivedStat that adds up all statistics in it.
+ *
+ * <p>The formula is compiled once into a small stack program. This program
+ * does not run once for every player: every instruction is applied to
+ * a whole block of players at a time, in plain loops over primitive arrays
+ * (which the JIT can vectorize), so a column for a DerivedStat can be
+ * calculated from the columns of its statistics in a single pass.
+ */
+public final class DerivedStat {
+
+    /** The number of players every instruction is applied to at a time. */
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final int OPERAND = 0;
+    private static final int CONSTANT = 1;
+    private static final int ADD = 2;
+    private static final int SUBTRACT = 3;
+    private static final int MULTIPLY = 4;
+    private static final int DIVIDE = 5;
+    private static final int NEGATE = 6;
+
+    private static volatile Map<String, DerivedStat> configuredStats;
+
+    private final String name;
+    private final List<StatKey> operands;
+    private final int[] instructions;
+    private final int[] arguments;
+    private final double[] constants;
+    private final int stackDepth;
+
+    private DerivedStat(String name, List<StatKey> operands, int[] instructions, int[] arguments, double[] constants, int stackDepth) {
+        this.name = name;
+        this.operands = operands;
+        this.instructions = instructions;
+        this.arguments = arguments;
+        this.constants = constants;
+        this.stackDepth = stackDepth;
+    }
+
+    /**
+     * @param name the name of the derived statistic (case-insensitive)
+     * @return the DerivedStat, or null if there is no derived
+     * statistic with a valid formula with this name
+     */
+    public static @Nullable DerivedStat get(@NotNull String name) {
+        return getConfiguredStats().get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param name the name to check (case-insensitive)
+     * @return true if this is the name of a derived statistic with a valid formula
+     */
+    public static boolean exists(@NotNull String name) {
+        return getConfiguredStats().containsKey(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @return the names of all derived statistics with a valid formula
+     */
+    public static @NotNull List<String> getNames() {
+        List<String> names = new ArrayList<>(getConfiguredStats().keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Forgets all compiled formulas, so they are read from
+     * the config again the next time they are used.
+     */
+    static void clear() {
+        configuredStats = null;
+    }
+
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * @return the statistics the formula uses, which are the columns
+     * {@link #evaluate(StatColumn[], int, int, int[])} needs, in the same order
+     */
+    public @NotNull List<StatKey> getOperands() {
+        return operands;
+    }
+
+    /**
+     * Calculates the values for the players in this range from the
+     * loaded columns of the statistics in the formula.
+     *
+     * @param operandColumns the loaded columns of {@link #getOperands()}, in the same order
+     * @param start the first player-ordinal
+     * @param end the player-ordinal after the last one
+     * @param output the array to store the values in, indexed by player-ordinal
+     */
+    public void evaluate(@NotNull StatColumn[] operandColumns, int start, int end, int[] output) {
+        int[][] columnValues = new int[operandColumns.length][];
+        for (int i = 0; i < operandColumns.length; i++) {
+            columnValues[i] = operandColumns[i].getValues();
+        }
+        double[][] operandValues = new double[operandColumns.length][BLOCK_SIZE];
+        double[][] stack = new double[stackDepth][BLOCK_SIZE];
+
+        for (int blockStart = start; blockStart < end; blockStart += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, end - blockStart);
+            for (int i = 0; i < columnValues.length; i++) {
+                int[] values = columnValues[i];
+                double[] block = operandValues[i];
+                int available = Math.max(0, Math.min(length, values.length - blockStart));
+                for (int j = 0; j < available; j++) {
+                    block[j] = values[blockStart + j];
+                }
+                Arrays.fill(block, available, length, 0);
+            }
+
+            double[] result = execute(operandValues, stack, length);
+            for (int j = 0; j < length; j++) {
+                output[blockStart + j] = toInt(result[j]);
+            }
+        }
+    }
+
+    /**
+     * Calculates the value for one player from the loaded columns
+     * of the statistics in the formula, for example because one
+     * of those values has just changed.
+     *
+     * @param operandColumns the loaded columns of {@link #getOperands()}, in the same order
+     * @param ordinal the player-ordinal
+     * @return the value
+     */
+    public int evaluate(@NotNull StatColumn[] operandColumns, int ordinal) {
+        double[][] operandValues = new double[operandColumns.length][1];
+        for (int i = 0; i < operandColumns.length; i++) {
+            operandValues[i][0] = operandColumns[i].get(ordinal);
+        }
+        return toInt(execute(operandValues, new double[stackDepth][1], 1)[0]);
+    }
+
+    /**
+     * Calculates the value for one player from the values
+     * of the statistics in the formula.
+     *
+     * @param values the values of {@link #getOperands()}, in the same order
+     * @return the value
+     */
+    int evaluate(int[] values) {
+        double[][] operandValues = new double[values.length][1];
+        for (int i = 0; i < values.length; i++) {
+            operandValues[i][0] = values[i];
+        }
+        return toInt(execute(operandValues, new double[stackDepth][1], 1)[0]);
+    }
+
+    /**
+     * Calculates the value for one player, from the values
+     * of the statistics in the formula through Bukkit.
+     *
+     * @param player the player to get the value for
+     * @return the value
+     */
+    int getValueFor(@NotNull OfflinePlayer player) {
+        double[][] operandValues = new double[operands.size()][1];
+        for (int i = 0; i < operands.size(); i++) {
+            operandValues[i][0] = operands.get(i).getValueFor(player);
+        }
+        return toInt(execute(operandValues, new double[stackDepth][1], 1)[0]);
+    }
+
+    /**
+     * Runs the program for a block of players, and returns the
+     * array (from the stack) that holds the result.
+     */
+    private double[] execute(double[][] operandValues, double[][] stack, int length) {
+        int top = -1;
+        for (int i = 0; i < instructions.length; i++) {
+            switch (instructions[i]) {
+                case OPERAND -> System.arraycopy(operandValues[arguments[i]], 0, stack[++top], 0, length);
+                case CONSTANT -> Arrays.fill(stack[++top], 0, length, constants[arguments[i]]);
+                case NEGATE -> {
+                    double[] a = stack[top];
+                    for (int j = 0; j < length; j++) {
+                        a[j] = -a[j];
+                    }
+                }
+                default -> {
+                    double[] a = stack[top - 1];
+                    double[] b = stack[top--];
+                    switch (instructions[i]) {
+                        case ADD -> {
+                            for (int j = 0; j < length; j++) {
+                                a[j] += b[j];
+                            }
+                        }
+                        case SUBTRACT -> {
+                            for (int j = 0; j < length; j++) {
+                                a[j] -= b[j];
+                            }
+                        }
+                        case MULTIPLY -> {
+                            for (int j = 0; j < length; j++) {
+                                a[j] *= b[j];
+                            }
+                        }
+                        case DIVIDE -> {
+                            for (int j = 0; j < length; j++) {
+                                a[j] = (b[j] == 0) ? 0 : a[j] / b[j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return stack[0];
+    }
+
+    private static int toInt(double value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(value)));
+    }
+
+    private static @NotNull Map<String, DerivedStat> getConfiguredStats() {
+        Map<String, DerivedStat> localVar = configuredStats;
+        if (localVar == null) {
+            Map<String, String> formulas = ConfigHandler.getInstance().getDerivedStats();
+            GroupHandler.getInstance().getStatisticGroups().forEach((groupName, statNames) -> {
+                if (formulas.containsKey(groupName)) {
+                    MyLogger.logWarning("Group \"" + groupName + "\" in groups.yml has the same name as a derived statistic, and will be ignored!");
+                } else {
+                    formulas.put(groupName, String.join(" + ", statNames));
+                }
+            });
+            localVar = compileAll(formulas);
+            configuredStats = localVar;
+        }
+        return localVar;
+    }
+
+    private static @NotNull Map<String, DerivedStat> compileAll(@NotNull Map<String, String> formulas) {
+        EnumHandler enumHandler = EnumHandler.getInstance();
+        Map<String, DerivedStat> derivedStats = new HashMap<>();
+        formulas.forEach((name, formula) -> {
+            if (enumHandler.isStatistic(name)) {
+                MyLogger.logWarning("Derived statistic \"" + name + "\" has the same name as a statistic, and will be ignored!");
+                return;
+            }
+            try {
+                derivedStats.put(name, new Compiler(formula).compile(name));
+            } catch (IllegalArgumentException e) {
+                MyLogger.logWarning("The formula of derived statistic \"" + name + "\" is not valid: " + e.getMessage());
+            }
+        });
+        return derivedStats;
+    }
+
+    /**
+     * Turns a formula into a program for a DerivedStat, by parsing it with
+     * the usual precedence (brackets first, then * and /, then + and -).
+     * Statistic names can be followed by a ':' and the name of a block, item,
+     * entity or {@link SubStatSet}, such as "mine_block:diamond_ore".
+     */
+    private static final class Compiler {
+
+        private final String formula;
+        private final List<StatKey> operands;
+        private final List<Double> constants;
+        private final List<Integer> instructions;
+        private final List<Integer> arguments;
+        private int position;
+        private int depth;
+        private int maxDepth;
+
+        private Compiler(String formula) {
+            this.formula = (formula != null) ? formula.toLowerCase(Locale.ENGLISH) : "";
+            operands = new ArrayList<>();
+            constants = new ArrayList<>();
+            instructions = new ArrayList<>();
+            arguments = new ArrayList<>();
+        }
+
+        private DerivedStat compile(String name) throws IllegalArgumentException {
+            parseSum();
+            if (peek() != 0) {
+                throw new IllegalArgumentException("unexpected '" + formula.charAt(position) + "'");
+            }
+            return new DerivedStat(name, List.copyOf(operands),
+                    instructions.stream().mapToInt(Integer::intValue).toArray(),
+                    arguments.stream().mapToInt(Integer::intValue).toArray(),
+                    constants.stream().mapToDouble(Double::doubleValue).toArray(),
+                    maxDepth);
+        }
+
+        private void parseSum() {
+            parseProduct();
+            for (char operator = peek(); operator == '+' || operator == '-'; operator = peek()) {
+                position++;
+                parseProduct();
+                emit(operator == '+' ? ADD : SUBTRACT, 0);
+            }
+        }
+
+        private void parseProduct() {
+            parseFactor();
+            for (char operator = peek(); operator == '*' || operator == '/'; operator = peek()) {
+                position++;
+                parseFactor();
+                emit(operator == '*' ? MULTIPLY : DIVIDE, 0);
+            }
+        }
+
+        private void parseFactor() {
+            char next = peek();
+            if (next == '-') {
+                position++;
+                parseFactor();
+                emit(NEGATE, 0);
+            }
+            else if (next == '(') {
+                position++;
+                parseSum();
+                if (peek() != ')') {
+                    throw new IllegalArgumentException("missing ')'");
+                }
+                position++;
+            }
+            else if (Character.isDigit(next) || next == '.') {
+                String number = readWhile("0123456789.");
+                try {
+                    constants.add(Double.parseDouble(number));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("\"" + number + "\" is not a number");
+                }
+                emit(CONSTANT, constants.size() - 1);
+            }
+            else if (Character.isLetter(next)) {
+                String statName = readWhile("abcdefghijklmnopqrstuvwxyz0123456789_:");
+                StatKey statKey = StatKey.fromString(statName.replace(':', ' '));
+                if (statKey == null) {
+                    throw new IllegalArgumentException("\"" + statName + "\" is not a statistic");
+                }
+                int index = operands.indexOf(statKey);
+                if (index == -1) {
+                    operands.add(statKey);
+                    index = operands.size() - 1;
+                }
+                emit(OPERAND, index);
+            }
+            else {
+                throw new IllegalArgumentException(next == 0 ? "unexpected end" : "unexpected '" + next + "'");
+            }
+        }
+
+        /**
+         * Skips spaces, and returns the next character (or 0 at the end of the formula).
+         */
+        private char peek() {
+            while (position < formula.length() && Character.isWhitespace(formula.charAt(position))) {
+                position++;
+            }
+            return (position < formula.length()) ? formula.charAt(position) : 0;
+        }
+
+        private String readWhile(String allowedCharacters) {
+            int start = position;
+            while (position < formula.length() && allowedCharacters.indexOf(formula.charAt(position)) != -1) {
+                position++;
+            }
+            return formula.substring(start, position);
+        }
+
+        private void emit(int instruction, int argument) {
+            instructions.add(instruction);
+            arguments.add(argument);
+            switch (instruction) {
+                case OPERAND, CONSTANT -> depth++;
+                case ADD, SUBTRACT, MULTIPLY, DIVIDE -> depth--;
+            }
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import org.bukkit.Statistic;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * A top-list that is kept up to date while players play, so
+ * it can be served without being recalculated. It is updated
+ * in O(log n) whenever a player's value changes, and only
+ * needs to be rebuilt from its {@link StatColumn} if a player
+ * drops out of it (because they were excluded, or because
+ * their value went down).
+ */
+public final class Leaderboard {
+
+    /**
+     * Bukkit does not fire a PlayerStatisticIncrementEvent for these
+     * statistics, because they change every tick or every movement.
+     */
+    private static final EnumSet<Statistic> statsWithoutEvents = EnumSet.of(
+            Statistic.PLAY_ONE_MINUTE, Statistic.TOTAL_WORLD_TIME,
+            Statistic.TIME_SINCE_DEATH, Statistic.TIME_SINCE_REST, Statistic.SNEAK_TIME,
+            Statistic.WALK_ONE_CM, Statistic.SPRINT_ONE_CM, Statistic.CROUCH_ONE_CM,
+            Statistic.SWIM_ONE_CM, Statistic.FALL_ONE_CM, Statistic.CLIMB_ONE_CM,
+            Statistic.FLY_ONE_CM, Statistic.AVIATE_ONE_CM,
+            Statistic.WALK_ON_WATER_ONE_CM, Statistic.WALK_UNDER_WATER_ONE_CM,
+            Statistic.BOAT_ONE_CM, Statistic.MINECART_ONE_CM, Statistic.PIG_ONE_CM,
+            Statistic.HORSE_ONE_CM, Statistic.STRIDER_ONE_CM);
+
+    private final int capacity;
+    private final boolean isPinned;
+    private final TreeSet<Long> entries;
+    private final HashMap<Integer, Integer> members;
+
+    private volatile int invalidationCount;
+    private volatile int validForInvalidationCount;
+    private volatile long lastRequested;
+
+    /**
+     * @param capacity the number of players this leaderboard keeps track of
+     * @param isPinned whether this leaderboard was configured by an admin,
+     *                 in which case it should be kept alive indefinitely
+     */
+    Leaderboard(int capacity, boolean isPinned) {
+        this.capacity = capacity;
+        this.isPinned = isPinned;
+        entries = new TreeSet<>();
+        members = new HashMap<>();
+        validForInvalidationCount = -1;
+        lastRequested = System.currentTimeMillis();
+    }
+
+    /**
+     * Checks whether a leaderboard for this statistic can be kept
+     * up to date with PlayerStatisticIncrementEvents.
+     *
+     * @param statistic the Statistic to check
+     * @return true if Bukkit fires events for this statistic
+     */
+    public static boolean canBeLive(@NotNull Statistic statistic) {
+        return !statsWithoutEvents.contains(statistic);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    boolean isPinned() {
+        return isPinned;
+    }
+
+    boolean needsRebuild() {
+        return validForInvalidationCount != invalidationCount;
+    }
+
+    /**
+     * @return the number of times this leaderboard has been marked as
+     * invalid so far, to pass on to {@link #rebuild(TopHeap, int)}
+     */
+    int getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    long getLastRequested() {
+        return lastRequested;
+    }
+
+    /**
+     * Replaces the entries of this leaderboard with the
+     * (unsorted) entries of a freshly calculated TopHeap.
+     * If this leaderboard was invalidated again while that
+     * heap was being calculated, it will still need another
+     * rebuild after this.
+     *
+     * @param heap the TopHeap to take the entries from
+     * @param invalidationCount the invalidation count from
+     *                          before the heap was calculated
+     */
+    synchronized void rebuild(@NotNull TopHeap heap, int invalidationCount) {
+        entries.clear();
+        members.clear();
+        for (int i = 0; i < heap.size(); i++) {
+            entries.add(encode(heap.getOrdinal(i), heap.getValue(i)));
+            members.put(heap.getOrdinal(i), heap.getValue(i));
+        }
+        validForInvalidationCount = invalidationCount;
+    }
+
+    /**
+     * Processes a new value for the player with this ordinal.
+     *
+     * @param ordinal the player-ordinal
+     * @param value the player's new value
+     */
+    synchronized void update(int ordinal, int value) {
+        Integer oldValue = members.get(ordinal);
+        if (oldValue != null) {
+            if (oldValue == value) {
+                return;
+            }
+            entries.remove(encode(ordinal, oldValue));
+            members.remove(ordinal);
+            if (value < oldValue && entries.size() + 1 == capacity) {
+                //someone outside of this leaderboard might have a higher value now
+                invalidationCount++;
+            }
+        }
+
+        if (value > 0 && (entries.size() < capacity || encode(ordinal, value) > entries.first())) {
+            entries.add(encode(ordinal, value));
+            members.put(ordinal, value);
+            if (entries.size() > capacity) {
+                long removed = entries.pollFirst();
+                members.remove(decodeOrdinal(removed));
+            }
+        }
+    }
+
+    /**
+     * Removes a player from this leaderboard, because they
+     * should no longer be included.
+     *
+     * @param ordinal the player-ordinal
+     */
+    synchronized void remove(int ordinal) {
+        Integer oldValue = members.remove(ordinal);
+        if (oldValue != null) {
+            entries.remove(encode(ordinal, oldValue));
+            invalidationCount++;
+        }
+    }
+
+    /**
+     * Gets the highest entries of this leaderboard.
+     *
+     * @param size the number of entries to get
+     * @return a sorted TopHeap with at most this many entries
+     */
+    public synchronized @NotNull TopHeap getTop(int size) {
+        lastRequested = System.currentTimeMillis();
+
+        TopHeap top = new TopHeap(size);
+        for (Long entry : entries.descendingSet()) {
+            if (top.size() == size) {
+                break;
+            }
+            top.offer(decodeOrdinal(entry), decodeValue(entry));
+        }
+        top.sort();
+        return top;
+    }
+
+    /**
+     * Encodes an entry into a long that sorts from lowest to highest
+     * value, and for equal values from highest to lowest ordinal
+     * (the same order a {@link TopHeap} uses).
+     */
+    private static long encode(int ordinal, int value) {
+        return ((long) value << 32) | (Integer.MAX_VALUE - ordinal);
+    }
+
+    private static int decodeOrdinal(long entry) {
+        return Integer.MAX_VALUE - (int) (entry & 0xFFFFFFFFL);
+    }
+
+    private static int decodeValue(long entry) {
+        return (int) (entry >>> 32);
+    }
+}
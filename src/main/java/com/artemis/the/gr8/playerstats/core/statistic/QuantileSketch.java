@@ -0,0 +1,203 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.api.StatDistribution;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A KLL quantile sketch, which summarizes any number of values in
+ * a small, fixed amount of memory, and can estimate their quantiles
+ * (with a rank-error of about 1% for the default size). Next to that,
+ * it keeps the exact count, minimum, maximum and sum.
+ *
+ * <p>Values are added to the lowest level. When a level is full, it is
+ * sorted and every other value (starting at a random one) is moved to the
+ * level above, where every value counts twice as much. Two sketches can be
+ * merged by combining their levels, so every subtask of a calculation can
+ * fill its own sketch, and those are merged when the subtasks are joined.
+ */
+public final class QuantileSketch {
+
+    private static final int DEFAULT_CAPACITY = 200;
+    private static final double LEVEL_RATIO = 2.0 / 3.0;
+
+    private final int capacity;
+    private int[][] levels;
+    private int[] levelSizes;
+
+    private int count;
+    private int min;
+    private int max;
+    private long sum;
+
+    public QuantileSketch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of values the highest level can hold,
+     *                 which determines the accuracy of the quantiles
+     */
+    public QuantileSketch(int capacity) {
+        this.capacity = Math.max(capacity, 8);
+        levels = new int[][] {new int[this.capacity]};
+        levelSizes = new int[1];
+        min = Integer.MAX_VALUE;
+        max = Integer.MIN_VALUE;
+    }
+
+    public void add(int value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        append(0, value);
+        if (levelSizes[0] >= getLevelCapacity(0)) {
+            compact();
+        }
+    }
+
+    /**
+     * Adds all values of another sketch to this one.
+     *
+     * @param other the sketch to merge into this one, which
+     *              should not be used after this
+     */
+    public void merge(@NotNull QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.levelSizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        compact();
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Estimates the value below which this fraction of all values falls.
+     *
+     * @param fraction a number between 0 and 1 (0.5 for the median)
+     * @return the estimated quantile, or 0 if this sketch is empty
+     */
+    public int getQuantile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        int totalSize = 0;
+        for (int size : levelSizes) {
+            totalSize += size;
+        }
+        //combine all values with their weights into one sorted array
+        long[] weightedValues = new long[totalSize];
+        int index = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < levelSizes[level]; i++) {
+                weightedValues[index++] = ((long) levels[level][i] << 32) | level;
+            }
+        }
+        Arrays.sort(weightedValues);
+
+        long totalWeight = 0;
+        for (long weightedValue : weightedValues) {
+            totalWeight += 1L << (int) weightedValue;
+        }
+        double targetWeight = fraction * totalWeight;
+        long cumulativeWeight = 0;
+        for (long weightedValue : weightedValues) {
+            cumulativeWeight += 1L << (int) weightedValue;
+            if (cumulativeWeight >= targetWeight) {
+                return clamp((int) (weightedValue >> 32));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the exact count, minimum, maximum and mean, and the
+     * estimated quantiles of all values in this sketch
+     */
+    public @NotNull StatDistribution toDistribution() {
+        if (count == 0) {
+            return new StatDistribution(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new StatDistribution(count, min, max, (double) sum / count,
+                getQuantile(0.25), getQuantile(0.5), getQuantile(0.75),
+                getQuantile(0.9), getQuantile(0.95), getQuantile(0.99));
+    }
+
+    private int clamp(int value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private void append(int level, int value) {
+        if (level >= levels.length) {
+            //a merged sketch can have more than one level more than this one
+            int oldLength = levels.length;
+            levels = Arrays.copyOf(levels, level + 1);
+            levelSizes = Arrays.copyOf(levelSizes, level + 1);
+            for (int newLevel = oldLength; newLevel <= level; newLevel++) {
+                levels[newLevel] = new int[capacity];
+            }
+        }
+        if (levelSizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][levelSizes[level]++] = value;
+    }
+
+    /**
+     * Compacts the lowest level that is over its capacity,
+     * until every level fits within its capacity.
+     */
+    private void compact() {
+        boolean isCompacted;
+        do {
+            isCompacted = false;
+            for (int level = 0; level < levels.length; level++) {
+                if (levelSizes[level] >= getLevelCapacity(level)) {
+                    compactLevel(level);
+                    isCompacted = true;
+                    break;
+                }
+            }
+        } while (isCompacted);
+    }
+
+    /**
+     * Sorts this level and moves every other value to the level above.
+     * If the number of values is odd, the first one stays behind.
+     */
+    private void compactLevel(int level) {
+        int size = levelSizes[level];
+        int[] values = levels[level];
+        Arrays.sort(values, 0, size);
+
+        int start = size % 2;
+        int offset = ThreadLocalRandom.current().nextInt(2);
+        for (int i = start + offset; i < size; i += 2) {
+            append(level + 1, values[i]);
+        }
+        levelSizes[level] = start;
+    }
+
+    /**
+     * Levels further below the top can hold fewer values,
+     * because every value there has a lower weight.
+     */
+    private int getLevelCapacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(2, (int) Math.ceil(capacity * Math.pow(LEVEL_RATIO, depth)));
+    }
+}
@@ -0,0 +1,356 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.api.PlayerRank;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An order-statistic index over the values of one {@link StatColumn},
+ * which can tell how many players have a higher or lower value than
+ * a given one in O(log n), without sorting the column. It can also list
+ * the players in any range of ranks, in O(log n) plus the length of
+ * that range, which is used for pages of top-lists.
+ *
+ * <p>It is a treap (a binary search tree that is kept balanced by random
+ * priorities), in which every node also stores the size of its subtree.
+ * The nodes are stored in primitive arrays, and every player is its own
+ * node: the index of a node is the player's ordinal. The key of a node
+ * combines the value and the ordinal (the same way the {@link Leaderboard}
+ * does it), so all keys are unique.
+ */
+public final class RankIndex {
+
+    private static final int NONE = -1;
+
+    private long[] keys;
+    private int[] left;
+    private int[] right;
+    private int[] sizes;
+    private int[] priorities;
+    private int root;
+    private volatile long lastRequested;
+
+    /** Scratch output of {@link #split(int, long)}. */
+    private int splitLeft;
+    private int splitRight;
+
+    /** Scratch output of {@link #collectDescending(int, int)}. */
+    private int[] sliceOrdinals;
+    private int[] sliceValues;
+    private int sliceCount;
+
+    /**
+     * Builds a balanced index from the keys of all players that should be in it.
+     *
+     * @param capacity the number of player-ordinals to make room for
+     * @param sortedKeys the keys of the players (see {@link #toKey(int, int)}),
+     *                   sorted from low to high
+     */
+    RankIndex(int capacity, long[] sortedKeys) {
+        int length = Math.max(capacity, 16);
+        keys = new long[length];
+        left = new int[length];
+        right = new int[length];
+        sizes = new int[length];
+        priorities = new int[length];
+        root = build(sortedKeys, 0, sortedKeys.length);
+        assignPriorities(sortedKeys.length);
+        lastRequested = System.currentTimeMillis();
+    }
+
+    static long toKey(int ordinal, int value) {
+        return ((long) value << 32) | (Integer.MAX_VALUE - ordinal);
+    }
+
+    /**
+     * @return the number of players in this index
+     */
+    public synchronized int size() {
+        return getSize(root);
+    }
+
+    /**
+     * @param value the value to compare to
+     * @return the number of players with a value that is higher than this value
+     */
+    public synchronized int countHigher(int value) {
+        return countAbove(((long) value << 32) | 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param value the value to compare to
+     * @return the number of players with a value that is lower than this value
+     */
+    public synchronized int countLower(int value) {
+        return countBelow((long) value << 32);
+    }
+
+    /**
+     * Gets the rank a player with this value has, and the percentage of
+     * players with a lower value, both from the same state of the index.
+     *
+     * @param value the player's value
+     * @return the PlayerRank
+     */
+    public synchronized @NotNull PlayerRank getRank(int value) {
+        lastRequested = System.currentTimeMillis();
+        int playerCount = getSize(root);
+        double percentile = (playerCount == 0) ? 0 : 100.0 * countLower(value) / playerCount;
+        return new PlayerRank(value, countHigher(value) + 1, playerCount, percentile);
+    }
+
+    /**
+     * Gets the position of this player, counting from the highest value.
+     * To combine this with {@link #getSlice(int, int[], int[])} without
+     * anything changing in between, synchronize on this RankIndex.
+     *
+     * @param ordinal the player-ordinal
+     * @return the number of players before this player, or -1
+     * if this player is not in the index
+     */
+    public synchronized int getPosition(int ordinal) {
+        if (ordinal >= sizes.length || sizes[ordinal] == 0) {
+            return -1;
+        }
+        return countAbove(keys[ordinal]);
+    }
+
+    /**
+     * Gets the players in this range of positions, from the highest value
+     * to the lowest (players with the same value are ordered by ordinal).
+     *
+     * @param offset the number of positions to skip, starting from the highest value
+     * @param ordinals the array to store the ordinals of the players in
+     * @param values the array to store their values in, which
+     *               should have the same length as the ordinals
+     * @return the number of players that have been stored, which is lower than
+     * the length of the arrays if there are not enough players after the offset
+     */
+    public synchronized int getSlice(int offset, int[] ordinals, int[] values) {
+        lastRequested = System.currentTimeMillis();
+        sliceOrdinals = ordinals;
+        sliceValues = values;
+        sliceCount = 0;
+        collectDescending(root, offset);
+
+        int count = sliceCount;
+        sliceOrdinals = null;
+        sliceValues = null;
+        return count;
+    }
+
+    long getLastRequested() {
+        return lastRequested;
+    }
+
+    /**
+     * Adds this player to the index, or moves them to their new value.
+     */
+    synchronized void update(int ordinal, int value) {
+        long key = toKey(ordinal, value);
+        if (ordinal < sizes.length && sizes[ordinal] != 0) {
+            if (keys[ordinal] == key) {
+                return;
+            }
+            detach(ordinal);
+        }
+        ensureCapacity(ordinal + 1);
+        keys[ordinal] = key;
+        left[ordinal] = NONE;
+        right[ordinal] = NONE;
+        sizes[ordinal] = 1;
+        priorities[ordinal] = ThreadLocalRandom.current().nextInt();
+
+        split(root, key);
+        int lower = splitLeft;
+        int higher = splitRight;
+        root = merge(merge(lower, ordinal), higher);
+    }
+
+    /**
+     * Removes this player from the index.
+     */
+    synchronized void remove(int ordinal) {
+        if (ordinal < sizes.length && sizes[ordinal] != 0) {
+            detach(ordinal);
+        }
+    }
+
+    private void detach(int ordinal) {
+        long key = keys[ordinal];
+        split(root, key);
+        int lower = splitLeft;
+        split(splitRight, key + 1);
+        int higher = splitRight;
+        sizes[ordinal] = 0;
+        root = merge(lower, higher);
+    }
+
+    /**
+     * @return the number of keys that are higher than this key
+     */
+    private int countAbove(long key) {
+        int count = 0;
+        int node = root;
+        while (node != NONE) {
+            if (keys[node] > key) {
+                count += getSize(right[node]) + 1;
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of keys that are lower than this key
+     */
+    private int countBelow(long key) {
+        int count = 0;
+        int node = root;
+        while (node != NONE) {
+            if (keys[node] < key) {
+                count += getSize(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Walks through this subtree from the highest key to the lowest, skips
+     * the first nodes, and stores the ones after that until the slice is full.
+     * Subtrees that are skipped entirely are never visited.
+     */
+    private void collectDescending(int node, int skip) {
+        if (node == NONE || sliceCount == sliceOrdinals.length) {
+            return;
+        }
+        int higherCount = getSize(right[node]);
+        if (skip < higherCount) {
+            collectDescending(right[node], skip);
+            skip = 0;
+        } else {
+            skip -= higherCount;
+        }
+        if (sliceCount == sliceOrdinals.length) {
+            return;
+        }
+        if (skip == 0) {
+            sliceOrdinals[sliceCount] = Integer.MAX_VALUE - (int) keys[node];
+            sliceValues[sliceCount] = (int) (keys[node] >> 32);
+            sliceCount++;
+        } else {
+            skip--;
+        }
+        collectDescending(left[node], skip);
+    }
+
+    /**
+     * Splits this subtree into the nodes with a key lower than the given key
+     * (stored in splitLeft), and those with a key that is the same or higher
+     * (stored in splitRight).
+     */
+    private void split(int node, long key) {
+        if (node == NONE) {
+            splitLeft = NONE;
+            splitRight = NONE;
+        }
+        else if (keys[node] < key) {
+            split(right[node], key);
+            right[node] = splitLeft;
+            updateSize(node);
+            splitLeft = node;
+        }
+        else {
+            split(left[node], key);
+            left[node] = splitRight;
+            updateSize(node);
+            splitRight = node;
+        }
+    }
+
+    /**
+     * Merges two subtrees, where all keys in the first one are lower
+     * than all keys in the second one.
+     */
+    private int merge(int lower, int higher) {
+        if (lower == NONE) {
+            return higher;
+        }
+        if (higher == NONE) {
+            return lower;
+        }
+        if (priorities[lower] > priorities[higher]) {
+            right[lower] = merge(right[lower], higher);
+            updateSize(lower);
+            return lower;
+        }
+        left[higher] = merge(lower, left[higher]);
+        updateSize(higher);
+        return higher;
+    }
+
+    private int build(long[] sortedKeys, int start, int end) {
+        if (start >= end) {
+            return NONE;
+        }
+        int middle = (start + end) >>> 1;
+        int node = Integer.MAX_VALUE - (int) sortedKeys[middle];
+        keys[node] = sortedKeys[middle];
+        left[node] = build(sortedKeys, start, middle);
+        right[node] = build(sortedKeys, middle + 1, end);
+        updateSize(node);
+        return node;
+    }
+
+    /**
+     * Gives the nodes of the freshly built tree random priorities, with the
+     * highest ones at the top, so it is the same as a treap that was built by
+     * inserting every node one by one.
+     */
+    private void assignPriorities(int nodeCount) {
+        int[] randomPriorities = ThreadLocalRandom.current().ints(nodeCount).sorted().toArray();
+        int next = nodeCount - 1;
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        if (root != NONE) {
+            queue.add(root);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            priorities[node] = randomPriorities[next--];
+            if (left[node] != NONE) {
+                queue.add(left[node]);
+            }
+            if (right[node] != NONE) {
+                queue.add(right[node]);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > sizes.length) {
+            int newLength = Math.max(capacity, sizes.length + (sizes.length >> 1));
+            keys = Arrays.copyOf(keys, newLength);
+            left = Arrays.copyOf(left, newLength);
+            right = Arrays.copyOf(right, newLength);
+            sizes = Arrays.copyOf(sizes, newLength);
+            priorities = Arrays.copyOf(priorities, newLength);
+        }
+    }
+
+    private void updateSize(int node) {
+        sizes[node] = getSize(left[node]) + getSize(right[node]) + 1;
+    }
+
+    private int getSize(int node) {
+        return (node == NONE) ? 0 : sizes[node];
+    }
+}
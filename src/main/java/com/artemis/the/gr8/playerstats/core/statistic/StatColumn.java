@@ -0,0 +1,122 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Holds the values of one statistic for all players PlayerStats knows,
+ * in a primitive array that is indexed by the player-ordinals
+ * that are assigned by the {@link com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler}.
+ * Players that are excluded from statistic calculations always have
+ * a value of 0, so the running total of this column is the server total.
+ */
+public final class StatColumn {
+
+    private final StatKey statKey;
+    private volatile int[] values;
+    private volatile boolean isLoaded;
+    private long total;
+
+    StatColumn(@NotNull StatKey statKey) {
+        this.statKey = statKey;
+        values = new int[0];
+    }
+
+    public @NotNull StatKey getStatKey() {
+        return statKey;
+    }
+
+    /**
+     * Gets the number of player-ordinals this column has room for.
+     *
+     * @return the size
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Gets the value for the player with this ordinal.
+     *
+     * @param ordinal the player-ordinal
+     * @return the value, or 0 if this column does not
+     * have a value for this player
+     */
+    public int get(int ordinal) {
+        int[] localValues = values;
+        return ordinal < localValues.length ? localValues[ordinal] : 0;
+    }
+
+    /**
+     * Stores the value for the player with this ordinal,
+     * and makes room for it if needed.
+     *
+     * @param ordinal the player-ordinal
+     * @param value the value to store
+     */
+    public void set(int ordinal, int value) {
+        int[] localValues = values;
+        if (ordinal >= localValues.length) {
+            localValues = grow(ordinal + 1);
+        }
+        localValues[ordinal] = value;
+    }
+
+    /**
+     * Gets the array the values are currently stored in, to read many of them
+     * at once. This array can be shorter than {@link #size()} later on,
+     * and should not be changed.
+     */
+    int[] getValues() {
+        return values;
+    }
+
+    /**
+     * Gets the sum of all values in this column, which is kept
+     * up to date as values change after it has been loaded.
+     *
+     * @return the total
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * Stores a new value for a loaded column, and
+     * adjusts the total by the difference.
+     */
+    synchronized void update(int ordinal, int value) {
+        total += (long) value - get(ordinal);
+        set(ordinal, value);
+    }
+
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /**
+     * Prepares this column to be (re)filled with values for the
+     * given number of players.
+     */
+    void prepareForLoading(int playerCount) {
+        values = new int[playerCount];
+        isLoaded = false;
+    }
+
+    synchronized void markAsLoaded() {
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        total = sum;
+        isLoaded = true;
+    }
+
+    private synchronized int[] grow(int minSize) {
+        if (values.length < minSize) {
+            values = Arrays.copyOf(values, Math.max(minSize, values.length + (values.length >> 1)));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,419 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal, allocation-free JSON scanner for the vanilla
+ * stats-files. It works directly on the raw bytes of a file
+ * and only understands as much JSON as it needs to find
+ * (and skip) the objects in the "stats" section, so no
+ * Strings or other objects are created while scanning.
+ */
+final class StatFileParser {
+
+    private static final byte[] STATS_KEY = "stats".getBytes(StandardCharsets.UTF_8);
+
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private int stringStart;
+    private int stringEnd;
+    private int[] activeIndices = new int[0];
+
+    void reset(@NotNull ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Finds the value that is stored under the given category
+     * and entry name.
+     *
+     * @param category the UTF-8 bytes of the category name (such as "minecraft:mined")
+     * @param entry the UTF-8 bytes of the entry name (such as "minecraft:diamond_ore")
+     * @return the value, 0 if the entry is not present in this file
+     * @throws IllegalStateException if the file content is not valid JSON
+     */
+    int find(byte[] category, byte[] entry) throws IllegalStateException {
+        if (!enterMember(STATS_KEY) || !enterMember(category) || !enterMember(entry)) {
+            return 0;
+        }
+        return readInt();
+    }
+
+    /**
+     * Finds the values of several entries in a single pass over the file.
+     * Every value can be the total of several entries in its category.
+     *
+     * @param categories the UTF-8 bytes of the category name of every value to find
+     * @param entries the UTF-8 bytes of the entry names of every value to find
+     *                (or null to add up all entries of the category)
+     * @param results the array to store the values in, at the same index as
+     *                their names (values that are not present are set to 0)
+     * @throws IllegalStateException if the file content is not valid JSON
+     */
+    void findAll(byte[][] categories, byte[][][] entries, int[] results) throws IllegalStateException {
+        Arrays.fill(results, 0);
+        if (activeIndices.length < categories.length) {
+            activeIndices = new int[categories.length];
+        }
+        if (!enterMember(STATS_KEY) || !enterObject()) {
+            return;
+        }
+        do {
+            readMemberName();
+            int activeCount = 0;
+            for (int i = 0; i < categories.length; i++) {
+                if (stringEquals(categories[i])) {
+                    activeIndices[activeCount++] = i;
+                }
+            }
+            if (activeCount == 0) {
+                skipValue();
+            } else {
+                readEntries(entries, results, activeCount);
+            }
+        } while (nextMember());
+    }
+
+    /**
+     * Adds the values of all entries in one category to the totals,
+     * for the entries that are in the given list of names.
+     *
+     * @param category the UTF-8 bytes of the category name
+     * @param sortedEntries the UTF-8 bytes of the entry names to add up,
+     *                      sorted with {@link Arrays#compareUnsigned(byte[], byte[])}
+     * @param totalIndices the index in the totals for every entry name
+     * @param totals the array to add the values to
+     * @throws IllegalStateException if the file content is not valid JSON
+     */
+    void addAll(byte[] category, byte[][] sortedEntries, int[] totalIndices, long[] totals) throws IllegalStateException {
+        if (!enterMember(STATS_KEY) || !enterMember(category) || !enterObject()) {
+            return;
+        }
+        do {
+            readMemberName();
+            int index = findSorted(sortedEntries);
+            if (index >= 0) {
+                totals[totalIndices[index]] += readInt();
+            } else {
+                skipValue();
+            }
+        } while (nextMember());
+    }
+
+    /**
+     * Reads the values of all requested entries from the category
+     * object the position is currently at, and adds them to the results.
+     */
+    private void readEntries(byte[][][] entries, int[] results, int activeCount) {
+        if (!enterObject()) {
+            return;
+        }
+        do {
+            readMemberName();
+            boolean isRead = false;
+            int value = 0;
+            for (int i = 0; i < activeCount; i++) {
+                int index = activeIndices[i];
+                if (entries[index] == null || stringEqualsAny(entries[index])) {
+                    if (!isRead) {
+                        value = readInt();
+                        isRead = true;
+                    }
+                    results[index] = (int) Math.min((long) results[index] + value, Integer.MAX_VALUE);
+                }
+            }
+            if (!isRead) {
+                skipValue();
+            }
+        } while (nextMember());
+    }
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @return true if the object has members, false if it was empty
+     * (in which case the position is after the object)
+     */
+    private boolean enterObject() {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Consumes the name of an object member and the colon after it,
+     * and remembers where the name is for {@link #stringEquals(byte[])}.
+     */
+    private void readMemberName() {
+        expect('"');
+        stringStart = position;
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                stringEnd = position - 1;
+                break;
+            } else if (b == '\\') {
+                //keys in stats-files are never escaped, so escaped Strings never match
+                next();
+                stringStart = -1;
+            }
+        }
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+    }
+
+    private boolean stringEquals(byte[] target) {
+        if (stringStart == -1 || stringEnd - stringStart != target.length) {
+            return false;
+        }
+        for (int i = 0; i < target.length; i++) {
+            if (buffer.get(stringStart + i) != target[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks for the member name that was read last in a sorted list of names.
+     *
+     * @return the index of the name, or -1 if it is not in the list
+     */
+    private int findSorted(byte[][] sortedTargets) {
+        if (stringStart == -1) {
+            return -1;
+        }
+        int low = 0;
+        int high = sortedTargets.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareString(sortedTargets[middle]);
+            if (comparison < 0) {
+                high = middle - 1;
+            } else if (comparison > 0) {
+                low = middle + 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the member name that was read last to the given bytes, in the
+     * same (unsigned) order as {@link Arrays#compareUnsigned(byte[], byte[])}.
+     */
+    private int compareString(byte[] target) {
+        int length = stringEnd - stringStart;
+        int commonLength = Math.min(length, target.length);
+        for (int i = 0; i < commonLength; i++) {
+            int comparison = Byte.compareUnsigned(buffer.get(stringStart + i), target[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return length - target.length;
+    }
+
+    private boolean stringEqualsAny(byte[][] targets) {
+        for (byte[] target : targets) {
+            if (stringEquals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Consumes the separator after an object member.
+     *
+     * @return true if another member follows, false if this was
+     * the end of the object
+     */
+    private boolean nextMember() {
+        skipWhitespace();
+        byte next = next();
+        if (next == '}') {
+            return false;
+        } else if (next != ',') {
+            throw unexpected(next);
+        }
+        skipWhitespace();
+        return true;
+    }
+
+    /**
+     * Moves the position to the value of the member with the given name,
+     * assuming the position is currently at the start of an object.
+     *
+     * @return true if the member was found, false if the object
+     * does not contain it (in which case the position is after the object)
+     */
+    private boolean enterMember(byte[] name) {
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return false;
+        }
+        while (true) {
+            boolean isMatch = matchString(name);
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (isMatch) {
+                return true;
+            }
+            skipValue();
+            skipWhitespace();
+            byte next = next();
+            if (next == '}') {
+                return false;
+            } else if (next != ',') {
+                throw unexpected(next);
+            }
+            skipWhitespace();
+        }
+    }
+
+    /**
+     * Consumes a String and compares it to the given bytes.
+     */
+    private boolean matchString(byte[] target) {
+        expect('"');
+        int index = 0;
+        boolean isMatch = true;
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                return isMatch && index == target.length;
+            } else if (b == '\\') {
+                //keys in stats-files are never escaped, so escaped Strings never match
+                next();
+                isMatch = false;
+            } else {
+                if (index >= target.length || target[index] != b) {
+                    isMatch = false;
+                }
+                index++;
+            }
+        }
+    }
+
+    private int readInt() {
+        skipWhitespace();
+        boolean isNegative = false;
+        if (peek() == '-') {
+            isNegative = true;
+            position++;
+        }
+
+        long value = 0;
+        boolean hasDigits = false;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = Math.min(value * 10 + (b - '0'), Integer.MAX_VALUE);
+            hasDigits = true;
+            position++;
+        }
+        if (!hasDigits) {
+            throw unexpected(peek());
+        }
+        return (int) (isNegative ? -value : value);
+    }
+
+    private void skipValue() {
+        byte b = peek();
+        switch (b) {
+            case '"' -> skipString();
+            case '{', '[' -> skipNested();
+            default -> {
+                while (position < limit) {
+                    byte c = buffer.get(position);
+                    if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                        break;
+                    }
+                    position++;
+                }
+            }
+        }
+    }
+
+    private void skipNested() {
+        int depth = 0;
+        do {
+            byte b = next();
+            if (b == '"') {
+                position--;
+                skipString();
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString() {
+        expect('"');
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                return;
+            } else if (b == '\\') {
+                next();
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < limit && isWhitespace(buffer.get(position))) {
+            position++;
+        }
+    }
+
+    private void expect(char c) {
+        byte b = next();
+        if (b != c) {
+            throw unexpected(b);
+        }
+    }
+
+    private byte peek() {
+        if (position >= limit) {
+            throw new IllegalStateException("Unexpected end of stats-file");
+        }
+        return buffer.get(position);
+    }
+
+    private byte next() {
+        byte b = peek();
+        position++;
+        return b;
+    }
+
+    private boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private @NotNull IllegalStateException unexpected(byte b) {
+        return new IllegalStateException("Unexpected character '" + (char) b + "' at position " + position + " in stats-file");
+    }
+}
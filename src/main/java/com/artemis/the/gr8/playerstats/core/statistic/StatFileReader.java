@@ -0,0 +1,377 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.Keyed;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.World;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Reads statistics straight from the vanilla stats-files
+ * (world/stats/[uuid].json), instead of going through
+ * {@link org.bukkit.OfflinePlayer#getStatistic(Statistic)}, which
+ * loads and parses the entire file into a new object
+ * for every single call.
+ *
+ * <p>Only the requested value is extracted. Small files are read
+ * into a re-usable buffer, and larger files are memory-mapped,
+ * so reading a value does not create any new objects apart from
+ * the FileChannel itself. A reader can also be created for several
+ * statistics at once, to read all of them in a single pass. For a
+ * {@link SubStatSet}, all entries of the set are added up in that
+ * same pass. A reader for a breakdown adds the value of every entry
+ * in a set to its own total instead.
+ */
+public final class StatFileReader {
+
+    private static final int MAX_BUFFERED_FILE_SIZE = 64 * 1024;
+    private static final EnumMap<Statistic, String> vanillaNames;
+    private static final ThreadLocal<ByteBuffer> readBuffer;
+    private static final ThreadLocal<StatFileParser> parser;
+    private static final ThreadLocal<int[]> singleResult;
+
+    private final File statsFolder;
+    private final byte[][] categories;
+    /** The entry names per statistic, where null means all entries of the category. */
+    private final byte[][][] entries;
+    private final boolean isSingleEntry;
+
+    /** For a breakdown: the sorted entry names, and the enum-ordinal of the sub-statistic of every name. */
+    private final byte[][] sortedEntries;
+    private final int[] entryOrdinals;
+    private final int breakdownLength;
+
+    static {
+        vanillaNames = new EnumMap<>(Statistic.class);
+        prepareVanillaNames();
+        readBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_BUFFERED_FILE_SIZE));
+        parser = ThreadLocal.withInitial(StatFileParser::new);
+        singleResult = ThreadLocal.withInitial(() -> new int[1]);
+    }
+
+    private StatFileReader(File statsFolder, byte[][] categories, byte[][][] entries) {
+        this.statsFolder = statsFolder;
+        this.categories = categories;
+        this.entries = entries;
+        isSingleEntry = entries.length == 1 && entries[0] != null && entries[0].length == 1;
+        sortedEntries = null;
+        entryOrdinals = null;
+        breakdownLength = 0;
+    }
+
+    private StatFileReader(File statsFolder, byte[] category, byte[][] sortedEntries, int[] entryOrdinals, int breakdownLength) {
+        this.statsFolder = statsFolder;
+        this.categories = new byte[][] {category};
+        this.entries = new byte[0][][];
+        isSingleEntry = false;
+        this.sortedEntries = sortedEntries;
+        this.entryOrdinals = entryOrdinals;
+        this.breakdownLength = breakdownLength;
+    }
+
+    /**
+     * Gets a StatFileReader that can read the given statistic
+     * from the stats-files of the main world.
+     *
+     * @param statKey the statistic to read
+     * @return the StatFileReader, or null if the stats-folder
+     * cannot be found (in which case statistics should be
+     * retrieved through Bukkit instead)
+     */
+    public static @Nullable StatFileReader forStat(@NotNull StatKey statKey) {
+        return forStats(List.of(statKey));
+    }
+
+    /**
+     * Gets a StatFileReader that can read all the given statistics
+     * from the stats-files of the main world in a single pass.
+     *
+     * @param statKeys the statistics to read
+     * @return the StatFileReader, or null if the stats-folder
+     * cannot be found
+     * @see #getStatistics(UUID, int[])
+     */
+    public static @Nullable StatFileReader forStats(@NotNull List<StatKey> statKeys) {
+        File statsFolder = getStatsFolder();
+        if (statsFolder == null) {
+            return null;
+        }
+        byte[][] categories = new byte[statKeys.size()][];
+        byte[][][] entries = new byte[statKeys.size()][][];
+        for (int i = 0; i < statKeys.size(); i++) {
+            StatKey statKey = statKeys.get(i);
+            categories[i] = getVanillaCategory(statKey.statistic()).getBytes(StandardCharsets.UTF_8);
+
+            if (statKey.isSubStatSet()) {
+                SubStatSet subStatSet = statKey.getSubStatSet();
+                entries[i] = (subStatSet == null) ? new byte[0][] :
+                        subStatSet.containsAll() ? null : toBytes(subStatSet.getVanillaNames());
+            } else {
+                Keyed subStat = statKey.getSubStat();
+                String entryName = (subStat == null) ?
+                        getVanillaName(statKey.statistic()) :
+                        subStat.getKey().toString();
+                entries[i] = new byte[][] {entryName.getBytes(StandardCharsets.UTF_8)};
+            }
+        }
+        return new StatFileReader(statsFolder, categories, entries);
+    }
+
+    /**
+     * Gets a StatFileReader that can read the values of all blocks, items or
+     * entities in a {@link SubStatSet} separately, for a breakdown of that set.
+     *
+     * @param statKey the StatKey of the statistic and set to break down
+     * @return the StatFileReader, or null if the stats-folder cannot be
+     * found, or if this is not a StatKey for a set that exists
+     * @see #addBreakdown(UUID, long[])
+     */
+    public static @Nullable StatFileReader forBreakdown(@NotNull StatKey statKey) {
+        File statsFolder = getStatsFolder();
+        SubStatSet subStatSet = statKey.getSubStatSet();
+        if (statsFolder == null || subStatSet == null) {
+            return null;
+        }
+        Statistic statistic = statKey.statistic();
+        List<? extends Enum<?>> subStats = (statistic.getType() == Statistic.Type.ENTITY) ?
+                List.copyOf(subStatSet.getEntities()) :
+                List.copyOf(subStatSet.getMaterials());
+        int breakdownLength = (statistic.getType() == Statistic.Type.ENTITY) ?
+                EntityType.values().length :
+                Material.values().length;
+
+        Integer[] order = new Integer[subStats.size()];
+        byte[][] names = new byte[subStats.size()][];
+        for (int i = 0; i < subStats.size(); i++) {
+            order[i] = i;
+            names[i] = ((Keyed) subStats.get(i)).getKey().toString().getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(names[a], names[b]));
+
+        byte[][] sortedEntries = new byte[order.length][];
+        int[] entryOrdinals = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedEntries[i] = names[order[i]];
+            entryOrdinals[i] = subStats.get(order[i]).ordinal();
+        }
+        return new StatFileReader(statsFolder, getVanillaCategory(statistic).getBytes(StandardCharsets.UTF_8),
+                sortedEntries, entryOrdinals, breakdownLength);
+    }
+
+    /**
+     * @return the length of the totals-array for {@link #addBreakdown(UUID, long[])},
+     * which is the number of Materials or EntityTypes
+     */
+    public int getBreakdownLength() {
+        return breakdownLength;
+    }
+
+    /**
+     * Adds the value of every block, item or entity of this reader's breakdown
+     * to its total, for the player with the given UUID. The stats-file is used
+     * for all players, including the ones that are online (for whom it is
+     * as recent as the last time the server saved their data).
+     *
+     * @param uniqueID the UUID of the player
+     * @param totals the totals, indexed by the ordinal of the Material or EntityType
+     * @return true if the values were read (or this player does not have a
+     * stats-file), false if the file could not be read
+     */
+    public boolean addBreakdown(@NotNull UUID uniqueID, long[] totals) {
+        try {
+            ByteBuffer buffer = readFile(uniqueID);
+            if (buffer == null) {
+                return true;
+            }
+            StatFileParser fileParser = parser.get();
+            fileParser.reset(buffer);
+            fileParser.addAll(categories[0], sortedEntries, entryOrdinals, totals);
+            return true;
+        }
+        catch (IOException | IllegalStateException e) {
+            MyLogger.logException(e, "StatFileReader", "addBreakdown() for " + uniqueID);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the value of this reader's statistic for the player with
+     * the given UUID. For players that are online, the stats-file will
+     * be outdated, so for them this value should be retrieved through
+     * Bukkit instead.
+     *
+     * @param uniqueID the UUID of the player
+     * @return the value (or 0 if this player does not have a stats-file),
+     * or -1 if the file could not be read
+     */
+    public int getStatistic(@NotNull UUID uniqueID) {
+        if (!isSingleEntry) {
+            int[] result = singleResult.get();
+            return getStatistics(uniqueID, result) ? result[0] : -1;
+        }
+        try {
+            ByteBuffer buffer = readFile(uniqueID);
+            if (buffer == null) {
+                return 0;
+            }
+            StatFileParser fileParser = parser.get();
+            fileParser.reset(buffer);
+            return fileParser.find(categories[0], entries[0][0]);
+        }
+        catch (IOException | IllegalStateException e) {
+            MyLogger.logException(e, "StatFileReader", "getStatistic() for " + uniqueID);
+            return -1;
+        }
+    }
+
+    /**
+     * Reads the values of all of this reader's statistics for the player
+     * with the given UUID, in the order they were given when this reader
+     * was created. As with {@link #getStatistic(UUID)}, this should
+     * only be used for players that are offline.
+     *
+     * @param uniqueID the UUID of the player
+     * @param results the array to store the values in (or 0 for
+     *                every value if this player does not have a stats-file)
+     * @return true if the values were read, false if the file could not be read
+     */
+    public boolean getStatistics(@NotNull UUID uniqueID, int[] results) {
+        try {
+            ByteBuffer buffer = readFile(uniqueID);
+            if (buffer == null) {
+                Arrays.fill(results, 0);
+                return true;
+            }
+            StatFileParser fileParser = parser.get();
+            fileParser.reset(buffer);
+            fileParser.findAll(categories, entries, results);
+            return true;
+        }
+        catch (IOException | IllegalStateException e) {
+            MyLogger.logException(e, "StatFileReader", "getStatistics() for " + uniqueID);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the stats-file of this player into the re-usable buffer
+     * of this thread, or maps it into memory if it is too large.
+     *
+     * @return the buffer, or null if this player does not have a stats-file
+     */
+    private @Nullable ByteBuffer readFile(@NotNull UUID uniqueID) throws IOException {
+        File file = new File(statsFolder, uniqueID + ".json");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_BUFFERED_FILE_SIZE) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = readBuffer.get();
+            buffer.clear();
+            while (buffer.position() < size && channel.read(buffer) != -1) {
+                //keep reading until the whole file is in the buffer
+            }
+            buffer.flip();
+            return buffer;
+        }
+        catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static byte[][] toBytes(@NotNull List<String> names) {
+        byte[][] bytes = new byte[names.size()][];
+        for (int i = 0; i < names.size(); i++) {
+            bytes[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the stats-folder of the main world, or null if it cannot be found
+     */
+    static @Nullable File getStatsFolder() {
+        List<World> worlds = Bukkit.getWorlds();
+        if (worlds.isEmpty()) {
+            return null;
+        }
+        File statsFolder = new File(worlds.get(0).getWorldFolder(), "stats");
+        return statsFolder.isDirectory() ? statsFolder : null;
+    }
+
+    /**
+     * Gets the name of the category a statistic is
+     * stored under in the vanilla stats-files.
+     */
+    @Contract(pure = true)
+    private static @NotNull String getVanillaCategory(@NotNull Statistic statistic) {
+        return switch (statistic) {
+            case MINE_BLOCK -> "minecraft:mined";
+            case CRAFT_ITEM -> "minecraft:crafted";
+            case USE_ITEM -> "minecraft:used";
+            case BREAK_ITEM -> "minecraft:broken";
+            case PICKUP -> "minecraft:picked_up";
+            case DROP -> "minecraft:dropped";
+            case KILL_ENTITY -> "minecraft:killed";
+            case ENTITY_KILLED_BY -> "minecraft:killed_by";
+            default -> "minecraft:custom";
+        };
+    }
+
+    /**
+     * Gets the name an untyped statistic is stored
+     * under in the vanilla stats-files.
+     */
+    private static @NotNull String getVanillaName(@NotNull Statistic statistic) {
+        return vanillaNames.getOrDefault(statistic,
+                "minecraft:" + statistic.toString().toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Most untyped statistics have the same name in Bukkit and
+     * in the vanilla stats-files. These are the exceptions.
+     */
+    private static void prepareVanillaNames() {
+        vanillaNames.put(Statistic.DROP_COUNT, "minecraft:drop");
+        vanillaNames.put(Statistic.PLAY_ONE_MINUTE, "minecraft:play_time");
+        vanillaNames.put(Statistic.CAKE_SLICES_EATEN, "minecraft:eat_cake_slice");
+        vanillaNames.put(Statistic.CAULDRON_FILLED, "minecraft:fill_cauldron");
+        vanillaNames.put(Statistic.CAULDRON_USED, "minecraft:use_cauldron");
+        vanillaNames.put(Statistic.ARMOR_CLEANED, "minecraft:clean_armor");
+        vanillaNames.put(Statistic.BANNER_CLEANED, "minecraft:clean_banner");
+        vanillaNames.put(Statistic.BREWINGSTAND_INTERACTION, "minecraft:interact_with_brewingstand");
+        vanillaNames.put(Statistic.BEACON_INTERACTION, "minecraft:interact_with_beacon");
+        vanillaNames.put(Statistic.DROPPER_INSPECTED, "minecraft:inspect_dropper");
+        vanillaNames.put(Statistic.HOPPER_INSPECTED, "minecraft:inspect_hopper");
+        vanillaNames.put(Statistic.DISPENSER_INSPECTED, "minecraft:inspect_dispenser");
+        vanillaNames.put(Statistic.NOTEBLOCK_PLAYED, "minecraft:play_noteblock");
+        vanillaNames.put(Statistic.NOTEBLOCK_TUNED, "minecraft:tune_noteblock");
+        vanillaNames.put(Statistic.FLOWER_POTTED, "minecraft:pot_flower");
+        vanillaNames.put(Statistic.TRAPPED_CHEST_TRIGGERED, "minecraft:trigger_trapped_chest");
+        vanillaNames.put(Statistic.ENDERCHEST_OPENED, "minecraft:open_enderchest");
+        vanillaNames.put(Statistic.ITEM_ENCHANTED, "minecraft:enchant_item");
+        vanillaNames.put(Statistic.RECORD_PLAYED, "minecraft:play_record");
+        vanillaNames.put(Statistic.FURNACE_INTERACTION, "minecraft:interact_with_furnace");
+        vanillaNames.put(Statistic.CRAFTING_TABLE_INTERACTION, "minecraft:interact_with_crafting_table");
+        vanillaNames.put(Statistic.CHEST_OPENED, "minecraft:open_chest");
+        vanillaNames.put(Statistic.SHULKER_BOX_OPENED, "minecraft:open_shulker_box");
+    }
+}
@@ -0,0 +1,97 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.core.multithreading.ThreadManager;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps track of the last-modified time and size of every player's
+ * stats-file, so a periodic check can find the few players whose
+ * stats have changed, instead of reading all of them again.
+ * Both are stored in primitive arrays that are indexed by
+ * player-ordinal.
+ */
+final class StatFileTracker {
+
+    private static final long UNKNOWN = -1;
+
+    private final OfflinePlayerHandler offlinePlayerHandler;
+    private final long startTime;
+    private long[] lastModifiedTimes;
+    private long[] fileSizes;
+
+    /**
+     * Files that have not been checked before are considered
+     * changed if they were modified after this tracker was created.
+     */
+    StatFileTracker() {
+        offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        startTime = System.currentTimeMillis();
+        lastModifiedTimes = new long[0];
+        fileSizes = new long[0];
+    }
+
+    /**
+     * Checks the stats-files of all included players that are offline,
+     * and records their current last-modified time and size.
+     *
+     * @param statsFolder the stats-folder of the main world
+     * @return the ordinals of the players whose file has
+     * changed since the last check
+     */
+    synchronized int[] findChangedPlayers(@NotNull Path statsFolder) {
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+        if (lastModifiedTimes.length < playerCount) {
+            int oldLength = lastModifiedTimes.length;
+            lastModifiedTimes = Arrays.copyOf(lastModifiedTimes, playerCount);
+            fileSizes = Arrays.copyOf(fileSizes, playerCount);
+            Arrays.fill(lastModifiedTimes, oldLength, playerCount, UNKNOWN);
+        }
+
+        return ThreadManager.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, playerCount)
+                .parallel()
+                .filter(ordinal -> offlinePlayerHandler.isIncludedPlayer(ordinal) &&
+                        Bukkit.getPlayer(offlinePlayerHandler.getPlayerUUID(ordinal)) == null &&
+                        hasChanged(statsFolder, ordinal))
+                .toArray()));
+    }
+
+    /**
+     * Compares the current last-modified time and size of this player's
+     * stats-file to the recorded ones, and records the current ones.
+     */
+    private boolean hasChanged(@NotNull Path statsFolder, int ordinal) {
+        long lastModified;
+        long size;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(
+                    statsFolder.resolve(offlinePlayerHandler.getPlayerUUID(ordinal) + ".json"), BasicFileAttributes.class);
+            lastModified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+        } catch (NoSuchFileException e) {
+            lastModified = 0;
+            size = 0;
+        } catch (IOException e) {
+            return false;
+        }
+
+        long recordedLastModified = lastModifiedTimes[ordinal];
+        boolean hasChanged = (recordedLastModified == UNKNOWN) ?
+                lastModified > startTime :
+                lastModified != recordedLastModified || size != fileSizes[ordinal];
+
+        lastModifiedTimes[ordinal] = lastModified;
+        fileSizes[ordinal] = size;
+        return hasChanged;
+    }
+}
@@ -0,0 +1,663 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.api.enums.TimeWindow;
+import com.artemis.the.gr8.playerstats.core.Main;
+import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.core.multithreading.ThreadManager;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.World;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a history of compact snapshots of the loaded {@link StatColumn}s,
+ * which are taken periodically (every hour by default), so a statistic can be
+ * requested for a {@link TimeWindow}: the value of a player over the last week
+ * is the current value minus the value in the snapshot from a week ago.
+ *
+ * <p>Once a day, a full snapshot is written, and the snapshots in between only
+ * store the difference to that full snapshot for every player. All values are
+ * written as variable-length numbers, so the many players whose values are
+ * small (or have not changed) only take up a single byte. To keep the history
+ * from growing forever, it is thinned out after every snapshot: all snapshots
+ * are kept for two days, then one (full) snapshot per day for two weeks, then
+ * one per week until they are older than the configured number of days.
+ *
+ * <p>Every snapshot contains the UUID of every player-ordinal, so players
+ * are matched by UUID when it is read, and the ordinals can change in between.
+ */
+public final class StatHistory {
+
+    private static final String HISTORY_FOLDER_NAME = "history";
+    private static final int MAGIC_NUMBER = 0x50534853;
+    private static final int VERSION = 1;
+
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    private static final long FULL_SNAPSHOT_INTERVAL = DAY;
+    private static final long KEEP_ALL_SNAPSHOTS = 2 * DAY;
+    private static final long KEEP_DAILY_SNAPSHOTS = 14 * DAY;
+    private static final long WEEK = 7 * DAY;
+
+    private static volatile StatHistory instance;
+    private final ConfigHandler config;
+    private final OfflinePlayerHandler offlinePlayerHandler;
+    private final Object historyLock;
+    private final ConcurrentHashMap<String, int[]> pastValues;
+    private TreeMap<Long, SnapshotInfo> snapshots;
+
+    private StatHistory() {
+        config = ConfigHandler.getInstance();
+        offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        historyLock = new Object();
+        pastValues = new ConcurrentHashMap<>();
+    }
+
+    public static StatHistory getInstance() {
+        StatHistory localVar = instance;
+        if (localVar != null) {
+            return localVar;
+        }
+
+        synchronized (StatHistory.class) {
+            if (instance == null) {
+                instance = new StatHistory();
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Writes a snapshot of all loaded columns (and of the statistics in the
+     * last snapshot, so their history continues after a restart or reload),
+     * and thins out the history afterwards.
+     */
+    public void takeSnapshot() {
+        File folder = getHistoryFolder();
+        if (folder == null || offlinePlayerHandler.getPlayerOrdinalCount() == 0) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        synchronized (historyLock) {
+            TreeMap<Long, SnapshotInfo> snapshots = getSnapshots(folder);
+            StatStore statStore = StatStore.getInstance();
+            if (!snapshots.isEmpty()) {
+                try {
+                    statStore.loadColumns(snapshots.lastEntry().getValue().statKeys());
+                } catch (ConcurrentModificationException e) {
+                    MyLogger.logWarning("Not all statistics in the history could be loaded, " +
+                            "so they are left out of this snapshot");
+                }
+            }
+            List<StatColumn> columns = statStore.getLoadedColumns().stream()
+                    .filter(column -> !column.getStatKey().isDerived())
+                    .collect(Collectors.toList());
+            if (columns.isEmpty()) {
+                return;
+            }
+
+            SnapshotInfo fullSnapshot = snapshots.descendingMap().values().stream()
+                    .filter(SnapshotInfo::isFull)
+                    .findFirst()
+                    .orElse(null);
+            if (fullSnapshot != null && time - fullSnapshot.time() >= FULL_SNAPSHOT_INTERVAL) {
+                fullSnapshot = null;
+            }
+            SnapshotInfo snapshot = write(new File(folder, time + ".bin"), time, fullSnapshot, columns);
+            if (snapshot != null) {
+                snapshots.put(time, snapshot);
+            }
+            thinOut(snapshots, time);
+            pastValues.clear();
+            MyLogger.logMediumLevelTask("Saved " + columns.size() + " statistics to the history", time);
+        }
+    }
+
+    /**
+     * Calculates the column for the change of this statistic in the given
+     * time window, from the current column and the newest snapshot that was
+     * taken before the start of the window. A statistic is added to the
+     * history by the periodic snapshots once its column has been loaded,
+     * so its first windows can only be calculated once enough snapshots
+     * have been taken. For a DerivedStat, the formula is calculated from
+     * the changes of the statistics in it.
+     *
+     * @param statKey the statistic to get the column for
+     * @param timeWindow the time window
+     * @return a loaded StatColumn that is not kept in the {@link StatStore}
+     * @throws ConcurrentModificationException if Bukkit's player-data
+     * could not be accessed while loading the column
+     * @throws IllegalStateException if the history of this statistic
+     * does not go back as far as the start of the time window
+     */
+    public @NotNull StatColumn getWindowColumn(@NotNull StatKey statKey, @NotNull TimeWindow timeWindow) throws ConcurrentModificationException, IllegalStateException {
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+        int[] values = new int[playerCount];
+
+        DerivedStat derivedStat = statKey.getDerivedStat();
+        if (derivedStat != null) {
+            List<StatColumn> operandColumns = derivedStat.getOperands().stream()
+                    .map(operand -> getWindowColumn(operand, timeWindow))
+                    .collect(Collectors.toList());
+            ThreadManager.invoke(ThreadManager.getDerivedStatAction(derivedStat, operandColumns, values));
+        }
+        else {
+            StatColumn currentColumn = StatStore.getInstance().getColumn(statKey);
+            int[] valuesAtStart = getPastValues(statKey, System.currentTimeMillis() - timeWindow.getMillis());
+            ThreadManager.invoke(ThreadManager.getColumnDiffAction(currentColumn.getValues(), valuesAtStart, values));
+        }
+        return toColumn(statKey, values);
+    }
+
+    /**
+     * Calculates the change in the value of one player during the given time
+     * window, the same way {@link #getWindowColumn(StatKey, TimeWindow)} does
+     * for all players, but without calculating the change for everyone else.
+     *
+     * @param statKey the statistic to get the change for
+     * @param timeWindow the time window
+     * @param ordinal the player-ordinal of an included player
+     * @return the change in the value of this player, or 0 if it went down
+     * @throws ConcurrentModificationException if Bukkit's player-data
+     * could not be accessed while loading the column
+     * @throws IllegalStateException if the history of this statistic
+     * does not go back as far as the start of the time window
+     */
+    public int getWindowValue(@NotNull StatKey statKey, @NotNull TimeWindow timeWindow, int ordinal) throws ConcurrentModificationException, IllegalStateException {
+        DerivedStat derivedStat = statKey.getDerivedStat();
+        if (derivedStat != null) {
+            int[] operandValues = derivedStat.getOperands().stream()
+                    .mapToInt(operand -> getWindowValue(operand, timeWindow, ordinal))
+                    .toArray();
+            return derivedStat.evaluate(operandValues);
+        }
+        long currentValue = StatStore.getInstance().getColumn(statKey).get(ordinal);
+        int[] valuesAtStart = getPastValues(statKey, System.currentTimeMillis() - timeWindow.getMillis());
+        long valueAtStart = (ordinal < valuesAtStart.length) ? valuesAtStart[ordinal] : 0;
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, currentValue - valueAtStart));
+    }
+
+    /**
+     * Calculates the column for the number of positions every player has
+     * climbed in the ranking of this statistic during the given time window.
+     * Both rankings are calculated from columns (the current one and the
+     * values from the snapshot at the start of the window), so no stats-files
+     * are read. Players who dropped or stayed in the same position get a value of 0.
+     *
+     * @param statKey the statistic to get the column for
+     * @param timeWindow the time window
+     * @return a loaded StatColumn that is not kept in the {@link StatStore}
+     * @throws ConcurrentModificationException if Bukkit's player-data
+     * could not be accessed while loading the column
+     * @throws IllegalStateException if the history of this statistic
+     * does not go back as far as the start of the time window
+     * @see #getWindowColumn(StatKey, TimeWindow)
+     */
+    public @NotNull StatColumn getRankChangeColumn(@NotNull StatKey statKey, @NotNull TimeWindow timeWindow) throws ConcurrentModificationException, IllegalStateException {
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+        int[] currentValues = StatStore.getInstance().getColumn(statKey).getValues();
+        int[] valuesAtStart = getValuesAt(statKey, System.currentTimeMillis() - timeWindow.getMillis());
+
+        int[] values = new int[playerCount];
+        ThreadManager.invoke(ThreadManager.getColumnDiffAction(
+                getRanks(valuesAtStart, playerCount), getRanks(currentValues, playerCount), values));
+        return toColumn(statKey, values);
+    }
+
+    /**
+     * Forgets the values that have been read from the history, because
+     * the player-ordinals they are indexed by are about to change.
+     */
+    public void clear() {
+        synchronized (historyLock) {
+            pastValues.clear();
+            snapshots = null;
+        }
+    }
+
+    /**
+     * Gets the values of this statistic at this time, indexed by the current
+     * player-ordinals. For a DerivedStat, the formula is calculated from the
+     * values of the statistics in it at that time.
+     */
+    private int[] getValuesAt(@NotNull StatKey statKey, long time) {
+        DerivedStat derivedStat = statKey.getDerivedStat();
+        if (derivedStat == null) {
+            return getPastValues(statKey, time);
+        }
+        List<StatColumn> operandColumns = derivedStat.getOperands().stream()
+                .map(operand -> toColumn(operand, getValuesAt(operand, time)))
+                .collect(Collectors.toList());
+        int[] values = new int[offlinePlayerHandler.getPlayerOrdinalCount()];
+        ThreadManager.invoke(ThreadManager.getDerivedStatAction(derivedStat, operandColumns, values));
+        return values;
+    }
+
+    /**
+     * Gets the position of every included player in the ranking of these values,
+     * where players with the same value share the same position, and excluded
+     * players get a position of 0.
+     */
+    private int[] getRanks(int[] values, int playerCount) {
+        int[] sortedValues = new int[playerCount];
+        int includedCount = 0;
+        for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+            if (offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                sortedValues[includedCount++] = (ordinal < values.length) ? values[ordinal] : 0;
+            }
+        }
+        Arrays.sort(sortedValues, 0, includedCount);
+
+        int[] ranks = new int[playerCount];
+        for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+            if (offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                int value = (ordinal < values.length) ? values[ordinal] : 0;
+                ranks[ordinal] = includedCount - countAtMost(sortedValues, includedCount, value) + 1;
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * @return the number of values in the sorted part of this array that are not higher than this value
+     */
+    private static int countAtMost(int[] sortedValues, int length, int value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static @NotNull StatColumn toColumn(@NotNull StatKey statKey, int[] values) {
+        StatColumn column = new StatColumn(statKey);
+        column.prepareForLoading(values.length);
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            column.set(ordinal, values[ordinal]);
+        }
+        column.markAsLoaded();
+        return column;
+    }
+
+    /**
+     * Gets the values of this statistic from the newest snapshot that was taken
+     * at or before this time, indexed by the current player-ordinals. Values
+     * that could not be read are never cached, so the next request tries again.
+     *
+     * @throws IllegalStateException if there is no such snapshot, because
+     * the history of this statistic does not go back this far (yet), or if
+     * the snapshot (or the full snapshot it is based on) could not be read
+     */
+    private int[] getPastValues(@NotNull StatKey statKey, long time) throws IllegalStateException {
+        synchronized (historyLock) {
+            File folder = getHistoryFolder();
+            SnapshotInfo pastSnapshot = (folder == null) ? null : getSnapshots(folder).headMap(time, true)
+                    .descendingMap().values().stream()
+                    .filter(snapshot -> snapshot.statKeys().contains(statKey))
+                    .findFirst()
+                    .orElse(null);
+            if (pastSnapshot == null) {
+                MyLogger.logMediumLevelMsg("The history of " + statKey.statistic() + " does not go back far enough yet");
+                throw new IllegalStateException("The history of this statistic does not go back far enough");
+            }
+            String cacheKey = pastSnapshot.time() + ":" + statKey;
+            int[] values = pastValues.get(cacheKey);
+            if (values == null) {
+                Map<StatKey, int[]> snapshotValues = readValues(pastSnapshot, Set.of(statKey));
+                if (snapshotValues == null || !snapshotValues.containsKey(statKey)) {
+                    MyLogger.logWarning("The history of " + statKey.statistic() + " could not be read from " +
+                            pastSnapshot.file().getName());
+                    throw new IllegalStateException("The history of this statistic could not be read");
+                }
+                values = snapshotValues.get(statKey);
+                pastValues.put(cacheKey, values);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Deletes the snapshots that are no longer needed. Snapshots that only
+     * store the difference to a full snapshot are deleted after two days,
+     * and full snapshots are thinned out to one per week after two weeks.
+     * A full snapshot is always kept for as long as a snapshot that is kept
+     * stores the differences to it, even if it is older than the configured
+     * number of days.
+     */
+    private void thinOut(@NotNull TreeMap<Long, SnapshotInfo> snapshots, long time) {
+        long maxAge = Math.max(1, config.getHistoryDays()) * DAY;
+        long lastKeptWeekly = Long.MIN_VALUE;
+        List<SnapshotInfo> snapshotsToDelete = new ArrayList<>();
+
+        for (SnapshotInfo snapshot : snapshots.values()) {
+            long age = time - snapshot.time();
+            if (age > maxAge || (age > KEEP_ALL_SNAPSHOTS && !snapshot.isFull())) {
+                snapshotsToDelete.add(snapshot);
+            }
+            else if (age > KEEP_DAILY_SNAPSHOTS) {
+                //full snapshots are not taken at exactly the same time every day
+                if (snapshot.time() - lastKeptWeekly >= WEEK - HOUR) {
+                    lastKeptWeekly = snapshot.time();
+                } else {
+                    snapshotsToDelete.add(snapshot);
+                }
+            }
+        }
+        Set<Long> neededFullSnapshots = snapshots.values().stream()
+                .filter(snapshot -> !snapshot.isFull() && !snapshotsToDelete.contains(snapshot))
+                .map(SnapshotInfo::fullSnapshotTime)
+                .collect(Collectors.toSet());
+        snapshotsToDelete.removeIf(snapshot -> neededFullSnapshots.contains(snapshot.time()));
+
+        for (SnapshotInfo snapshot : snapshotsToDelete) {
+            try {
+                Files.deleteIfExists(snapshot.file().toPath());
+                snapshots.remove(snapshot.time());
+            } catch (IOException e) {
+                MyLogger.logException(e, "StatHistory", "thinOut(), trying to delete " + snapshot.file().getName());
+            }
+        }
+        if (!snapshotsToDelete.isEmpty()) {
+            MyLogger.logMediumLevelMsg("Removed " + snapshotsToDelete.size() + " old snapshots from the history");
+        }
+    }
+
+    private @NotNull TreeMap<Long, SnapshotInfo> getSnapshots(@NotNull File folder) {
+        if (snapshots == null) {
+            snapshots = new TreeMap<>();
+            File[] files = folder.listFiles((dir, name) -> name.endsWith(".bin"));
+            if (files != null) {
+                for (File file : files) {
+                    SnapshotInfo snapshot = readInfo(file);
+                    if (snapshot != null) {
+                        snapshots.put(snapshot.time(), snapshot);
+                    }
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Writes a snapshot of these columns. If a full snapshot is given, only the
+     * difference to the value in that snapshot is stored for every player.
+     * The snapshot is first written to a temporary file, so a crash can
+     * never leave a half-written snapshot.
+     *
+     * @return the SnapshotInfo of the new snapshot, or null if it
+     * could not be written
+     */
+    private @Nullable SnapshotInfo write(@NotNull File file, long time, @Nullable SnapshotInfo fullSnapshot, @NotNull List<StatColumn> columns) {
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+        Set<StatKey> statKeys = columns.stream()
+                .map(StatColumn::getStatKey)
+                .collect(Collectors.toSet());
+        Map<StatKey, int[]> baseValues = (fullSnapshot != null) ? readValues(fullSnapshot, statKeys) : null;
+        if (baseValues == null) {
+            fullSnapshot = null;
+            baseValues = Map.of();
+        }
+
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()), 1 << 16))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeLong(time);
+            out.writeLong(fullSnapshot != null ? fullSnapshot.time() : 0);
+
+            out.writeInt(playerCount);
+            for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                UUID uniqueID = offlinePlayerHandler.getPlayerUUID(ordinal);
+                out.writeLong(uniqueID.getMostSignificantBits());
+                out.writeLong(uniqueID.getLeastSignificantBits());
+            }
+
+            out.writeInt(columns.size());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(playerCount);
+            for (StatColumn column : columns) {
+                StatKey statKey = column.getStatKey();
+                writeString(out, statKey.statistic().name());
+                writeString(out, statKey.material() != null ? statKey.material().name() :
+                        statKey.entity() != null ? statKey.entity().name() : "");
+                writeString(out, statKey.subStatSetName() != null ? statKey.subStatSetName() : "");
+
+                int[] base = baseValues.get(statKey);
+                bytes.reset();
+                for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                    long baseValue = (base != null && ordinal < base.length) ? base[ordinal] : 0;
+                    writeVarLong(bytes, column.get(ordinal) - baseValue);
+                }
+                out.writeInt(bytes.size());
+                bytes.writeTo(out);
+            }
+        }
+        catch (IOException e) {
+            MyLogger.logException(e, "StatHistory", "write()");
+            return null;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            MyLogger.logException(e, "StatHistory", "write(), trying to replace " + file.getName());
+            return null;
+        }
+        return new SnapshotInfo(file, time, (fullSnapshot != null) ? fullSnapshot.time() : 0, statKeys);
+    }
+
+    /**
+     * Reads only the header of a snapshot, and the names of the statistics in it.
+     */
+    private @Nullable SnapshotInfo readInfo(@NotNull File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long time = buffer.getLong();
+            long fullSnapshotTime = buffer.getLong();
+            int playerCount = buffer.getInt();
+            buffer.position(buffer.position() + playerCount * 2 * Long.BYTES);
+
+            int columnCount = buffer.getInt();
+            Set<StatKey> statKeys = new HashSet<>();
+            for (int i = 0; i < columnCount; i++) {
+                StatKey statKey = toStatKey(readString(buffer), readString(buffer), readString(buffer));
+                int length = buffer.getInt();
+                buffer.position(buffer.position() + length);
+                if (statKey != null) {
+                    statKeys.add(statKey);
+                }
+            }
+            return new SnapshotInfo(file, time, fullSnapshotTime, statKeys);
+        }
+        catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            MyLogger.logException(e, "StatHistory", "readInfo(), trying to read " + file.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the values of these statistics from a snapshot (and from the full
+     * snapshot it is based on), indexed by the current player-ordinals.
+     *
+     * @return the values of the statistics that are in this snapshot, or null
+     * if it (or the full snapshot it is based on) could not be read
+     */
+    private @Nullable Map<StatKey, int[]> readValues(@NotNull SnapshotInfo snapshot, @NotNull Collection<StatKey> statKeys) {
+        Map<StatKey, int[]> baseValues = Map.of();
+        if (!snapshot.isFull()) {
+            SnapshotInfo fullSnapshot = (snapshots != null) ? snapshots.get(snapshot.fullSnapshotTime()) : null;
+            baseValues = (fullSnapshot != null) ? readValues(fullSnapshot, statKeys) : null;
+            if (baseValues == null) {
+                return null;
+            }
+        }
+
+        int currentPlayerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+        try (FileChannel channel = FileChannel.open(snapshot.file().toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position(2 * Integer.BYTES + 2 * Long.BYTES);
+
+            int playerCount = buffer.getInt();
+            int[] currentOrdinals = new int[playerCount];
+            for (int i = 0; i < playerCount; i++) {
+                currentOrdinals[i] = offlinePlayerHandler.getPlayerOrdinal(new UUID(buffer.getLong(), buffer.getLong()));
+            }
+
+            int columnCount = buffer.getInt();
+            Map<StatKey, int[]> columnValues = new HashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                StatKey statKey = toStatKey(readString(buffer), readString(buffer), readString(buffer));
+                int length = buffer.getInt();
+                int end = buffer.position() + length;
+                if (statKey == null || !statKeys.contains(statKey)) {
+                    buffer.position(end);
+                    continue;
+                }
+
+                int[] base = baseValues.get(statKey);
+                int[] values = new int[currentPlayerCount];
+                for (int j = 0; j < playerCount; j++) {
+                    long value = readVarLong(buffer);
+                    int ordinal = currentOrdinals[j];
+                    if (ordinal >= 0 && ordinal < currentPlayerCount) {
+                        long baseValue = (base != null && ordinal < base.length) ? base[ordinal] : 0;
+                        values[ordinal] = (int) (baseValue + value);
+                    }
+                }
+                buffer.position(end);
+                columnValues.put(statKey, values);
+            }
+            return columnValues;
+        }
+        catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            MyLogger.logException(e, "StatHistory", "readValues(), trying to read " + snapshot.file().getName());
+            return null;
+        }
+    }
+
+    /**
+     * Turns the stored names back into a StatKey. Statistics or sub-statistics
+     * that no longer exist (after a server update) are skipped.
+     */
+    private static @Nullable StatKey toStatKey(String statName, String subStatName, String setName) {
+        try {
+            Statistic statistic = Statistic.valueOf(statName);
+            if (!setName.isEmpty()) {
+                return new StatKey(statistic, null, null, setName);
+            }
+            return switch (statistic.getType()) {
+                case UNTYPED -> new StatKey(statistic, null, null);
+                case BLOCK, ITEM -> new StatKey(statistic, Material.valueOf(subStatName), null);
+                case ENTITY -> new StatKey(statistic, null, EntityType.valueOf(subStatName));
+            };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a number with the zigzag-encoding, so small negative numbers
+     * are small as well, in as few bytes as needed (7 bits per byte).
+     */
+    static void writeVarLong(@NotNull ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    static long readVarLong(@NotNull ByteBuffer buffer) {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 64);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @NotNull String readString(@NotNull ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The history is kept per main world, like the stats-files.
+     */
+    private @Nullable File getHistoryFolder() {
+        List<World> worlds = Bukkit.getWorlds();
+        if (worlds.isEmpty()) {
+            return null;
+        }
+        File folder = new File(new File(Main.getPluginInstance().getDataFolder(), HISTORY_FOLDER_NAME), worlds.get(0).getName());
+        if (!folder.exists() && !folder.mkdirs()) {
+            MyLogger.logWarning("The history folder could not be created!");
+            return null;
+        }
+        return folder;
+    }
+
+    /**
+     * @param file the file this snapshot is stored in
+     * @param time the time this snapshot was taken, in milliseconds
+     * @param fullSnapshotTime the time of the full snapshot this snapshot stores
+     *                         the differences to, or 0 if this is a full snapshot
+     * @param statKeys the statistics in this snapshot
+     */
+    private record SnapshotInfo(File file, long time, long fullSnapshotTime, Set<StatKey> statKeys) {
+
+        boolean isFull() {
+            return fullSnapshotTime == 0;
+        }
+    }
+}
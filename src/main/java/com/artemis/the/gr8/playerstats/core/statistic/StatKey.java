@@ -0,0 +1,143 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.utils.EnumHandler;
+import org.bukkit.Keyed;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Statistic;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Identifies one statistic column: a {@link Statistic}, combined
+ * with the block, item or entity it is about (if it is not of
+ * Type.Untyped), or with the name of a {@link SubStatSet} if the
+ * column holds the total for several of them. A {@link DerivedStat}
+ * has no Statistic of its own, and is only identified by its name.
+ */
+public record StatKey(@Nullable Statistic statistic, @Nullable Material material, @Nullable EntityType entity,
+                      @Nullable String subStatSetName, @Nullable String derivedStatName) {
+
+    public StatKey(@NotNull Statistic statistic, @Nullable Material material, @Nullable EntityType entity) {
+        this(statistic, material, entity, null, null);
+    }
+
+    public StatKey(@NotNull Statistic statistic, @Nullable Material material, @Nullable EntityType entity,
+                   @Nullable String subStatSetName) {
+        this(statistic, material, entity, subStatSetName, null);
+    }
+
+    @Contract("_ -> new")
+    public static @NotNull StatKey derived(@NotNull String derivedStatName) {
+        return new StatKey(null, null, null, null, derivedStatName.toLowerCase(Locale.ENGLISH));
+    }
+
+    @Contract("_ -> new")
+    public static @NotNull StatKey of(@NotNull StatRequest.Settings requestSettings) {
+        if (requestSettings.getDerivedStat() != null) {
+            return derived(requestSettings.getDerivedStat());
+        }
+        Statistic statistic = requestSettings.getStatistic();
+        if (requestSettings.getSubStatSet() != null) {
+            return new StatKey(statistic, null, null, requestSettings.getSubStatSet());
+        }
+        return switch (statistic.getType()) {
+            case UNTYPED -> new StatKey(statistic, null, null);
+            case BLOCK -> new StatKey(statistic, requestSettings.getBlock(), null);
+            case ITEM -> new StatKey(statistic, requestSettings.getItem(), null);
+            case ENTITY -> new StatKey(statistic, null, requestSettings.getEntity());
+        };
+    }
+
+    /**
+     * Turns a statistic name, optionally followed by a space and the name
+     * of a block, item, entity or {@link SubStatSet}, into a StatKey
+     * (for example "deaths", "mine_block diamond_ore" or "mine_block ores").
+     *
+     * @param statName the name to parse (case-insensitive)
+     * @return the StatKey, or null if this is not a valid statistic
+     * with a valid sub-statistic
+     */
+    public static @Nullable StatKey fromString(@NotNull String statName) {
+        EnumHandler enumHandler = EnumHandler.getInstance();
+        String[] args = statName.trim().split("\\s+");
+        Statistic statistic = enumHandler.getStatEnum(args[0]);
+        if (statistic == null) {
+            return null;
+        }
+        String subStatName = (args.length > 1) ? args[1] : null;
+        if (statistic.getType() != Statistic.Type.UNTYPED && subStatName != null &&
+                !enumHandler.isSubStatEntry(subStatName) && SubStatSet.exists(subStatName)) {
+            return new StatKey(statistic, null, null, subStatName.toLowerCase(Locale.ENGLISH));
+        }
+        StatKey statKey = switch (statistic.getType()) {
+            case UNTYPED -> new StatKey(statistic, null, null);
+            case BLOCK -> new StatKey(statistic, enumHandler.getBlockEnum(subStatName), null);
+            case ITEM -> new StatKey(statistic, enumHandler.getItemEnum(subStatName), null);
+            case ENTITY -> new StatKey(statistic, null, enumHandler.getEntityEnum(subStatName));
+        };
+        boolean hasValidSubStat = (statistic.getType() == Statistic.Type.UNTYPED) == (statKey.getSubStat() == null);
+        return hasValidSubStat ? statKey : null;
+    }
+
+    /**
+     * @return the block, item or entity of this StatKey, or null if
+     * the statistic is of Type.Untyped, or this is a StatKey for a SubStatSet
+     */
+    public @Nullable Keyed getSubStat() {
+        return material != null ? material : entity;
+    }
+
+    public boolean isSubStatSet() {
+        return subStatSetName != null;
+    }
+
+    /**
+     * @return the SubStatSet of this StatKey, or null if this
+     * StatKey is not for a SubStatSet (or that set no longer exists)
+     */
+    public @Nullable SubStatSet getSubStatSet() {
+        return (subStatSetName != null) ? SubStatSet.get(statistic.getType(), subStatSetName) : null;
+    }
+
+    public boolean isDerived() {
+        return derivedStatName != null;
+    }
+
+    /**
+     * @return the DerivedStat of this StatKey, or null if this StatKey
+     * is not for a DerivedStat (or that statistic no longer exists)
+     */
+    public @Nullable DerivedStat getDerivedStat() {
+        return (derivedStatName != null) ? DerivedStat.get(derivedStatName) : null;
+    }
+
+    /**
+     * Gets the value of this statistic through Bukkit (which, for a SubStatSet,
+     * is the total of all blocks, items or entities in the set, and for a
+     * DerivedStat, the result of its formula).
+     *
+     * @param player the player to get the value for
+     * @return the value
+     */
+    public int getValueFor(@NotNull OfflinePlayer player) {
+        if (derivedStatName != null) {
+            DerivedStat derivedStat = getDerivedStat();
+            return (derivedStat != null) ? derivedStat.getValueFor(player) : 0;
+        }
+        if (subStatSetName != null) {
+            SubStatSet subStatSet = getSubStatSet();
+            return (subStatSet != null) ? subStatSet.getValueFor(player, statistic) : 0;
+        }
+        return switch (statistic.getType()) {
+            case UNTYPED -> player.getStatistic(statistic);
+            case ENTITY -> player.getStatistic(statistic, entity);
+            case BLOCK, ITEM -> player.getStatistic(statistic, material);
+        };
+    }
+}
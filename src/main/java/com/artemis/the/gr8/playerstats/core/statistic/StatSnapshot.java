@@ -0,0 +1,217 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A binary snapshot of all loaded {@link StatColumn}s and the player
+ * index they are based on, so PlayerStats can start from the values it
+ * already knew after a restart, and only has to read the stats-files
+ * that have changed since the snapshot was written.
+ *
+ * <p>The file consists of a header (with the time it was written and
+ * the name of the main world), the UUID of every player-ordinal, whether
+ * that player was included, and then every column as a raw int-array
+ * that is indexed by those same ordinals.
+ */
+public final class StatSnapshot {
+
+    private static final int MAGIC_NUMBER = 0x50535350;
+    private static final int VERSION = 1;
+
+    private final long creationTime;
+    private final UUID[] playerUUIDs;
+    private final boolean[] wasIncluded;
+    private final LinkedHashMap<StatKey, int[]> columnValues;
+
+    private StatSnapshot(long creationTime, UUID[] playerUUIDs, boolean[] wasIncluded, LinkedHashMap<StatKey, int[]> columnValues) {
+        this.creationTime = creationTime;
+        this.playerUUIDs = playerUUIDs;
+        this.wasIncluded = wasIncluded;
+        this.columnValues = columnValues;
+    }
+
+    /**
+     * @return the time this snapshot was written, in milliseconds
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * @return the UUIDs of all players in this snapshot, indexed by the ordinal
+     * they had when it was written
+     */
+    public UUID[] getPlayerUUIDs() {
+        return playerUUIDs;
+    }
+
+    /**
+     * @param ordinal the player-ordinal
+     * @return true if this player was included in statistic
+     * calculations when this snapshot was written
+     */
+    public boolean wasIncluded(int ordinal) {
+        return ordinal < wasIncluded.length && wasIncluded[ordinal];
+    }
+
+    public @NotNull LinkedHashMap<StatKey, int[]> getColumnValues() {
+        return columnValues;
+    }
+
+    /**
+     * Writes all players that currently have an ordinal, and the values of
+     * these columns, to the given file. The snapshot is first written to
+     * a temporary file, so a crash can never leave a half-written snapshot.
+     *
+     * @param file the file to write to
+     * @param worldName the name of the main world
+     * @param columns the loaded columns to store
+     */
+    static void write(@NotNull File file, @NotNull String worldName, @NotNull List<StatColumn> columns) {
+        long time = System.currentTimeMillis();
+        OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()), 1 << 16))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeLong(time);
+            writeString(out, worldName);
+
+            out.writeInt(playerCount);
+            for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                UUID uniqueID = offlinePlayerHandler.getPlayerUUID(ordinal);
+                out.writeLong(uniqueID.getMostSignificantBits());
+                out.writeLong(uniqueID.getLeastSignificantBits());
+            }
+            for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                out.writeBoolean(offlinePlayerHandler.isIncludedPlayer(ordinal));
+            }
+
+            out.writeInt(columns.size());
+            for (StatColumn column : columns) {
+                StatKey statKey = column.getStatKey();
+                writeString(out, statKey.statistic().name());
+                writeString(out, statKey.material() != null ? statKey.material().name() :
+                        statKey.entity() != null ? statKey.entity().name() : "");
+                for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                    out.writeInt(column.get(ordinal));
+                }
+            }
+        }
+        catch (IOException e) {
+            MyLogger.logException(e, "StatSnapshot", "write()");
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            MyLogger.logException(e, "StatSnapshot", "write(), trying to replace " + file.getName());
+            return;
+        }
+        MyLogger.logMediumLevelTask("Saved " + columns.size() + " statistics for " + playerCount + " players", time);
+    }
+
+    /**
+     * Maps a snapshot into memory and reads it.
+     *
+     * @param file the file to read
+     * @param worldName the name of the current main world
+     * @return the snapshot, or null if there is no valid
+     * snapshot for this world
+     */
+    static @Nullable StatSnapshot read(@NotNull File file, @NotNull String worldName) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long creationTime = buffer.getLong();
+            if (!worldName.equals(readString(buffer))) {
+                return null;
+            }
+
+            int playerCount = buffer.getInt();
+            UUID[] playerUUIDs = new UUID[playerCount];
+            for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                playerUUIDs[ordinal] = new UUID(buffer.getLong(), buffer.getLong());
+            }
+            boolean[] wasIncluded = new boolean[playerCount];
+            for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                wasIncluded[ordinal] = buffer.get() != 0;
+            }
+
+            int columnCount = buffer.getInt();
+            LinkedHashMap<StatKey, int[]> columnValues = new LinkedHashMap<>(columnCount * 2);
+            for (int i = 0; i < columnCount; i++) {
+                StatKey statKey = toStatKey(readString(buffer), readString(buffer));
+                int[] values = new int[playerCount];
+                buffer.asIntBuffer().get(values);
+                buffer.position(buffer.position() + playerCount * Integer.BYTES);
+                if (statKey != null) {
+                    columnValues.put(statKey, values);
+                }
+            }
+            return new StatSnapshot(creationTime, playerUUIDs, wasIncluded, columnValues);
+        }
+        catch (IOException | BufferUnderflowException | NegativeArraySizeException | IllegalArgumentException e) {
+            MyLogger.logException(e, "StatSnapshot", "read()");
+            return null;
+        }
+    }
+
+    /**
+     * Turns the stored names back into a StatKey. Statistics or sub-statistics
+     * that no longer exist (after a server update) are skipped.
+     */
+    private static @Nullable StatKey toStatKey(String statName, String subStatName) {
+        try {
+            Statistic statistic = Statistic.valueOf(statName);
+            return switch (statistic.getType()) {
+                case UNTYPED -> new StatKey(statistic, null, null);
+                case BLOCK, ITEM -> new StatKey(statistic, Material.valueOf(subStatName), null);
+                case ENTITY -> new StatKey(statistic, null, EntityType.valueOf(subStatName));
+            };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @NotNull String readString(@NotNull ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
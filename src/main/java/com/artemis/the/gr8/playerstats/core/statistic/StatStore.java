@@ -0,0 +1,718 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.core.Main;
+import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.core.multithreading.ThreadManager;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The resident store of all statistic values PlayerStats has
+ * calculated. It holds one {@link StatColumn} per requested
+ * statistic, which is loaded the first time that statistic
+ * is requested, and kept in memory until the next reload.
+ * After that, server totals, top lists and player lookups
+ * only need to look at the values in this column.
+ *
+ * <p>For top lists that have been requested recently, or that are
+ * configured to always be updated, the store also keeps a live
+ * {@link Leaderboard}, which is updated whenever a player's value
+ * changes, so these can be shown without scanning the column again.
+ * In the same way, statistics that players have requested their rank
+ * for keep a {@link RankIndex}. Columns for a {@link SubStatSet} are kept
+ * up to date by adding the change of every block, item or entity in it.
+ * Columns for a {@link DerivedStat} (or a group of statistics) are calculated
+ * from the columns of the statistics in its formula once, and after that,
+ * a player's value is calculated again whenever one of those changes.
+ *
+ * <p>When PlayerStats is disabled, all loaded columns are written to
+ * a {@link StatSnapshot}, which is restored on the next start.
+ * While it is running, a {@link StatFileTracker} is used to find the
+ * players whose stats-file has changed, so only those are read again.
+ */
+public final class StatStore {
+
+    private static final String SNAPSHOT_FILE_NAME = "stats-snapshot.bin";
+    /** File modification times can be rounded to the nearest second on some file systems. */
+    private static final long MODIFICATION_TIME_MARGIN = 2000;
+
+    private static volatile StatStore instance;
+    private final ConfigHandler config;
+    private final OfflinePlayerHandler offlinePlayerHandler;
+    private final ConcurrentHashMap<StatKey, StatColumn> columns;
+    private final ConcurrentHashMap<StatKey, Leaderboard> leaderboards;
+    private final ConcurrentHashMap<StatKey, RankIndex> rankIndexes;
+    private final Set<StatColumn> subStatSetColumns;
+    private final ConcurrentHashMap<StatKey, Set<StatColumn>> derivedColumnsByOperand;
+    private final Object loadingLock;
+    private final StatFileTracker statFileTracker;
+    private volatile Set<StatKey> alwaysUpdatedTopLists;
+
+    private StatStore() {
+        config = ConfigHandler.getInstance();
+        offlinePlayerHandler = OfflinePlayerHandler.getInstance();
+        columns = new ConcurrentHashMap<>();
+        leaderboards = new ConcurrentHashMap<>();
+        rankIndexes = new ConcurrentHashMap<>();
+        subStatSetColumns = ConcurrentHashMap.newKeySet();
+        derivedColumnsByOperand = new ConcurrentHashMap<>();
+        loadingLock = new Object();
+        statFileTracker = new StatFileTracker();
+        alwaysUpdatedTopLists = getAlwaysUpdatedTopLists();
+    }
+
+    public static StatStore getInstance() {
+        StatStore localVar = instance;
+        if (localVar != null) {
+            return localVar;
+        }
+
+        synchronized (StatStore.class) {
+            if (instance == null) {
+                instance = new StatStore();
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Gets the column for this statistic. If this statistic has not
+     * been requested before, the column is loaded first. Otherwise,
+     * only the values of the players that are currently online are
+     * updated.
+     *
+     * @param statKey the statistic to get the column for
+     * @return the loaded StatColumn
+     * @throws ConcurrentModificationException if Bukkit's player-data
+     * could not be accessed while loading the column
+     */
+    public @NotNull StatColumn getColumn(@NotNull StatKey statKey) throws ConcurrentModificationException {
+        if (statKey.isDerived()) {
+            return getDerivedColumn(statKey);
+        }
+        StatColumn column = columns.computeIfAbsent(statKey, this::createColumn);
+        if (!column.isLoaded()) {
+            loadIfNeeded(List.of(column));
+            return column;
+        }
+        updateOnlinePlayers(column);
+        return column;
+    }
+
+    /**
+     * Loads the columns for all of these statistics that have not been
+     * loaded yet, in a single pass over all players. This is much faster
+     * than loading them one by one, because every player only has to
+     * be read once. For a DerivedStat, the statistics in its formula are loaded.
+     *
+     * @param statKeys the statistics to load
+     * @throws ConcurrentModificationException if Bukkit's player-data
+     * could not be accessed while loading the columns
+     */
+    public void loadColumns(@NotNull Collection<StatKey> statKeys) throws ConcurrentModificationException {
+        List<StatColumn> requestedColumns = statKeys.stream()
+                .flatMap(statKey -> statKey.isDerived() ? getOperands(statKey).stream() : Stream.of(statKey))
+                .distinct()
+                .map(statKey -> columns.computeIfAbsent(statKey, this::createColumn))
+                .collect(Collectors.toList());
+        loadIfNeeded(requestedColumns);
+    }
+
+    /**
+     * Gets the column for this statistic if it has already been loaded.
+     *
+     * @param statKey the statistic to get the column for
+     * @return the StatColumn, or null if this statistic has not been loaded
+     */
+    public @Nullable StatColumn getLoadedColumn(@NotNull StatKey statKey) {
+        StatColumn column = columns.get(statKey);
+        return (column != null && column.isLoaded()) ? column : null;
+    }
+
+    /**
+     * Gets all columns that have been loaded.
+     *
+     * @return the loaded StatColumns
+     */
+    @NotNull List<StatColumn> getLoadedColumns() {
+        return columns.values().stream()
+                .filter(StatColumn::isLoaded)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the live {@link Leaderboard} for this column, and creates
+     * and builds it first if there is none yet (or if the existing one
+     * is too small, or needs to be rebuilt).
+     *
+     * @param column the loaded StatColumn to get the leaderboard for
+     * @param topListSize the number of players the leaderboard should hold
+     * @return the Leaderboard, or null if the top list for this statistic
+     * cannot (or should not) be kept up to date, or if this column is not
+     * kept in the store (such as the column for a time window)
+     */
+    public @Nullable Leaderboard getLeaderboard(@NotNull StatColumn column, int topListSize) {
+        StatKey statKey = column.getStatKey();
+        boolean isAlwaysUpdated = alwaysUpdatedTopLists.contains(statKey);
+        if (columns.get(statKey) != column || statKey.isDerived() || !Leaderboard.canBeLive(statKey.statistic()) ||
+                (!isAlwaysUpdated && config.getTopListUpdateMinutes() <= 0)) {
+            return null;
+        }
+        removeExpiredLeaderboards();
+
+        Leaderboard leaderboard = leaderboards.compute(statKey, (key, existing) ->
+                (existing != null && existing.getCapacity() >= topListSize) ?
+                        existing :
+                        new Leaderboard(Math.max(topListSize, config.getTopListMaxSize()), isAlwaysUpdated));
+        if (leaderboard.needsRebuild()) {
+            buildLeaderboard(column, leaderboard);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Gets the {@link RankIndex} for this column, and builds it first
+     * if there is none yet. Like unpinned leaderboards, a RankIndex is
+     * removed again when it has not been used for a while. A column
+     * that is not kept in the store (such as the column for a time window)
+     * gets a new RankIndex that is not kept either.
+     *
+     * @param column the loaded StatColumn to get the RankIndex for
+     * @return the RankIndex
+     */
+    public @NotNull RankIndex getRankIndex(@NotNull StatColumn column) {
+        if (columns.get(column.getStatKey()) != column) {
+            return buildRankIndex(column);
+        }
+        long expiryTime = System.currentTimeMillis() - config.getTopListUpdateMinutes() * 60_000L;
+        rankIndexes.entrySet().removeIf(entry ->
+                !alwaysUpdatedTopLists.contains(entry.getKey()) && entry.getValue().getLastRequested() < expiryTime);
+
+        RankIndex rankIndex = rankIndexes.get(column.getStatKey());
+        if (rankIndex != null) {
+            return rankIndex;
+        }
+        //publish the RankIndex before releasing the column's lock, so setValue() cannot miss it
+        synchronized (column) {
+            return rankIndexes.computeIfAbsent(column.getStatKey(), statKey -> buildRankIndex(column));
+        }
+    }
+
+    /**
+     * Stores a new value for one player, for example because
+     * a PlayerStatisticIncrementEvent has been fired for them.
+     * This value is ignored if the statistic has not been loaded.
+     *
+     * @param statKey the statistic that changed
+     * @param uniqueID the UUID of the player
+     * @param value the new value
+     */
+    public void updateValue(@NotNull StatKey statKey, @NotNull UUID uniqueID, int value) {
+        StatColumn column = getLoadedColumn(statKey);
+        if (column != null) {
+            int ordinal = offlinePlayerHandler.getPlayerOrdinal(uniqueID);
+            if (ordinal != -1) {
+                setValue(column, ordinal, value);
+            }
+        }
+    }
+
+    /**
+     * Adds the change in one block, item or entity to the loaded columns
+     * of all SubStatSets of the same statistic that contain it.
+     *
+     * @param statKey the statistic that changed (for a single block, item or entity)
+     * @param uniqueID the UUID of the player
+     * @param difference the amount the value has changed by
+     */
+    public void updateSubStatSets(@NotNull StatKey statKey, @NotNull UUID uniqueID, int difference) {
+        if (subStatSetColumns.isEmpty() || statKey.getSubStat() == null || difference == 0) {
+            return;
+        }
+        int ordinal = offlinePlayerHandler.getPlayerOrdinal(uniqueID);
+        if (ordinal == -1) {
+            return;
+        }
+        for (StatColumn column : subStatSetColumns) {
+            StatKey setKey = column.getStatKey();
+            SubStatSet subStatSet = setKey.getSubStatSet();
+            if (setKey.statistic() == statKey.statistic() && column.isLoaded() &&
+                    subStatSet != null && subStatSet.contains(statKey.getSubStat())) {
+                addToValue(column, ordinal, difference);
+            }
+        }
+    }
+
+    /**
+     * Updates the values of one player in all loaded columns,
+     * for example because this player has just been included
+     * in statistic calculations again. Their stats-file is read
+     * by the worker pool, the same way it is for changed stats-files,
+     * so this should not be called from the main Thread.
+     *
+     * @param ordinal the player-ordinal
+     */
+    public void updatePlayer(int ordinal) {
+        synchronized (loadingLock) {
+            //columns for a DerivedStat are updated along with the statistics in their formula
+            List<StatColumn> loadedColumns = columns.values().stream()
+                    .filter(column -> column.isLoaded() && !column.getStatKey().isDerived())
+                    .collect(Collectors.toList());
+            if (loadedColumns.isEmpty()) {
+                return;
+            }
+            ThreadManager.invoke(ThreadManager.getStatAction(loadedColumns, new int[]{ordinal}));
+            MyLogger.actionFinished();
+        }
+    }
+
+    /**
+     * Adds one player to all loaded columns, live leaderboards and rank
+     * indexes, because they have just joined for the first time. They do
+     * not have any statistics yet, so nothing needs to be read for them.
+     *
+     * @param ordinal the player-ordinal
+     */
+    public void addPlayer(int ordinal) {
+        columns.values().stream()
+                .filter(column -> column.isLoaded() && !column.getStatKey().isDerived())
+                .forEach(column -> setValue(column, ordinal, 0));
+    }
+
+    /**
+     * Removes one player from all loaded columns and live leaderboards,
+     * because they have just been excluded from statistic calculations.
+     *
+     * @param ordinal the player-ordinal
+     */
+    public void removePlayer(int ordinal) {
+        columns.values().stream()
+                .filter(StatColumn::isLoaded)
+                .forEach(column -> {
+                    synchronized (column) {
+                        column.update(ordinal, 0);
+                        RankIndex rankIndex = rankIndexes.get(column.getStatKey());
+                        if (rankIndex != null) {
+                            rankIndex.remove(ordinal);
+                        }
+                    }
+                });
+        leaderboards.values().forEach(leaderboard -> leaderboard.remove(ordinal));
+    }
+
+    /**
+     * Checks which stats-files have changed since the last check, and
+     * reads the values of only those players again for all loaded columns.
+     * Players that are online are skipped, because their values are
+     * already kept up to date.
+     *
+     * @return the number of players whose values have been read again
+     */
+    public int refreshChangedPlayers() {
+        File statsFolder = StatFileReader.getStatsFolder();
+        if (statsFolder == null) {
+            return 0;
+        }
+        long time = System.currentTimeMillis();
+        int[] changedOrdinals = statFileTracker.findChangedPlayers(statsFolder.toPath());
+        if (changedOrdinals.length == 0) {
+            return 0;
+        }
+
+        synchronized (loadingLock) {
+            //columns for a DerivedStat are updated along with the statistics in their formula
+            List<StatColumn> loadedColumns = columns.values().stream()
+                    .filter(column -> column.isLoaded() && !column.getStatKey().isDerived())
+                    .collect(Collectors.toList());
+            if (loadedColumns.isEmpty()) {
+                return 0;
+            }
+            ThreadManager.invoke(ThreadManager.getStatAction(loadedColumns, changedOrdinals));
+            MyLogger.actionFinished();
+        }
+        MyLogger.logMediumLevelTask("Updated " + changedOrdinals.length + " players with changed stats-files", time);
+        return changedOrdinals.length;
+    }
+
+    /**
+     * Writes all loaded columns to the snapshot-file. Columns for a SubStatSet
+     * or DerivedStat are left out, because the set or formula might be changed
+     * in the config before the next start.
+     */
+    public void writeSnapshot() {
+        World mainWorld = getMainWorld();
+        if (mainWorld == null || offlinePlayerHandler.getPlayerOrdinalCount() == 0) {
+            return;
+        }
+        List<StatColumn> loadedColumns = columns.values().stream()
+                .filter(column -> column.isLoaded() && !column.getStatKey().isSubStatSet() && !column.getStatKey().isDerived())
+                .collect(Collectors.toList());
+        StatSnapshot.write(getSnapshotFile(), mainWorld.getName(), loadedColumns);
+    }
+
+    /**
+     * Reads the snapshot that was written when PlayerStats was last disabled.
+     *
+     * @return the snapshot, or null if there is no (valid) snapshot
+     * for the current main world
+     */
+    public @Nullable StatSnapshot readSnapshot() {
+        World mainWorld = getMainWorld();
+        return (mainWorld != null) ? StatSnapshot.read(getSnapshotFile(), mainWorld.getName()) : null;
+    }
+
+    /**
+     * Loads the columns from a snapshot, and only reads the players
+     * whose stats-file has changed since the snapshot was written
+     * (or who were not included in statistic calculations then).
+     * This requires the players from the snapshot to still have the
+     * same ordinals they had when it was written.
+     *
+     * @param snapshot the snapshot to restore
+     */
+    public void restoreSnapshot(@NotNull StatSnapshot snapshot) {
+        File statsFolder = StatFileReader.getStatsFolder();
+        if (statsFolder == null || snapshot.getColumnValues().isEmpty()) {
+            return;
+        }
+        long time = System.currentTimeMillis();
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+
+        synchronized (loadingLock) {
+            List<StatColumn> restoredColumns = new ArrayList<>();
+            snapshot.getColumnValues().forEach((statKey, values) -> {
+                StatColumn column = columns.computeIfAbsent(statKey, this::createColumn);
+                if (!column.isLoaded()) {
+                    column.prepareForLoading(playerCount);
+                    for (int ordinal = 0; ordinal < Math.min(playerCount, values.length); ordinal++) {
+                        if (offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                            column.set(ordinal, values[ordinal]);
+                        }
+                    }
+                    restoredColumns.add(column);
+                }
+            });
+
+            int[] outdatedOrdinals = ThreadManager.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, playerCount)
+                    .parallel()
+                    .filter(ordinal -> offlinePlayerHandler.isIncludedPlayer(ordinal) &&
+                            isOutdated(snapshot, statsFolder, ordinal))
+                    .toArray()));
+            if (!restoredColumns.isEmpty() && outdatedOrdinals.length > 0) {
+                ThreadManager.invoke(ThreadManager.getStatAction(restoredColumns, outdatedOrdinals));
+                MyLogger.actionFinished();
+            }
+            restoredColumns.forEach(StatColumn::markAsLoaded);
+
+            MyLogger.logLowLevelTask("Restored " + restoredColumns.size() + " statistics from the last snapshot, " +
+                    "and updated " + outdatedOrdinals.length + " players", time);
+        }
+    }
+
+    /**
+     * Removes all columns, so every statistic will be
+     * loaded from scratch the next time it is requested.
+     */
+    public void clear() {
+        columns.clear();
+        leaderboards.clear();
+        rankIndexes.clear();
+        subStatSetColumns.clear();
+        derivedColumnsByOperand.clear();
+        SubStatSet.clear();
+        DerivedStat.clear();
+        alwaysUpdatedTopLists = getAlwaysUpdatedTopLists();
+        MyLogger.logMediumLevelMsg("Cleared all stored statistics");
+    }
+
+    /**
+     * Loads the columns that have not been loaded yet. Columns are only loaded
+     * by one thread at a time, so the same column is never loaded twice.
+     */
+    private void loadIfNeeded(@NotNull List<StatColumn> requestedColumns) throws ConcurrentModificationException {
+        synchronized (loadingLock) {
+            List<StatColumn> columnsToLoad = requestedColumns.stream()
+                    .filter(column -> !column.isLoaded())
+                    .collect(Collectors.toList());
+            if (!columnsToLoad.isEmpty()) {
+                loadColumns(columnsToLoad);
+            }
+        }
+    }
+
+    private void loadColumns(@NotNull List<StatColumn> columnsToLoad) throws ConcurrentModificationException {
+        long time = System.currentTimeMillis();
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+        columnsToLoad.forEach(column -> column.prepareForLoading(playerCount));
+
+        try {
+            ThreadManager.invoke(ThreadManager.getStatAction(columnsToLoad));
+        } catch (ConcurrentModificationException e) {
+            MyLogger.logWarning("The requestSettings could not be executed due to a ConcurrentModificationException. " +
+                    "This likely happened because Bukkit hasn't fully initialized all player-data yet. " +
+                    "Try again and it should be fine!");
+            throw new ConcurrentModificationException(e.toString());
+        }
+        columnsToLoad.forEach(StatColumn::markAsLoaded);
+
+        MyLogger.actionFinished();
+        ThreadManager.recordCalcTime(System.currentTimeMillis() - time);
+        MyLogger.logMediumLevelTask("Calculated all stats" +
+                (columnsToLoad.size() > 1 ? " for " + columnsToLoad.size() + " statistics" : ""), time);
+    }
+
+    /**
+     * Gets the column for this DerivedStat. The first time, the columns of all
+     * statistics in its formula are loaded (in a single pass, for the ones that
+     * have not been loaded yet), and its column is calculated from them in one
+     * parallel pass. After that, it is kept up to date along with those columns.
+     */
+    private @NotNull StatColumn getDerivedColumn(@NotNull StatKey statKey) throws ConcurrentModificationException {
+        StatColumn column = columns.computeIfAbsent(statKey, this::createColumn);
+        DerivedStat derivedStat = statKey.getDerivedStat();
+        if (derivedStat == null) {
+            return column;
+        }
+        List<StatColumn> operandColumns = derivedStat.getOperands().stream()
+                .map(operand -> columns.computeIfAbsent(operand, this::createColumn))
+                .collect(Collectors.toList());
+
+        synchronized (loadingLock) {
+            if (!column.isLoaded()) {
+                loadIfNeeded(operandColumns);
+                calculateDerivedColumn(column, derivedStat, operandColumns);
+            }
+        }
+        //the values of online players are passed on to the DerivedStat by setValue()
+        operandColumns.forEach(this::updateOnlinePlayers);
+        return column;
+    }
+
+    private void calculateDerivedColumn(@NotNull StatColumn column, @NotNull DerivedStat derivedStat, @NotNull List<StatColumn> operandColumns) {
+        long time = System.currentTimeMillis();
+        int playerCount = offlinePlayerHandler.getPlayerOrdinalCount();
+        int[] values = new int[playerCount];
+        ThreadManager.invoke(ThreadManager.getDerivedStatAction(derivedStat, operandColumns, values));
+
+        synchronized (column) {
+            column.prepareForLoading(playerCount);
+            for (int ordinal = 0; ordinal < playerCount; ordinal++) {
+                column.set(ordinal, values[ordinal]);
+            }
+            column.markAsLoaded();
+        }
+        MyLogger.logMediumLevelTask("Calculated derived statistic " + derivedStat.getName(), time);
+    }
+
+    /**
+     * Calculates the value of one player again in the loaded columns
+     * of all DerivedStats that have this statistic in their formula.
+     * This is done while holding the lock of the derived column, so
+     * the last value that is stored is calculated from the latest
+     * values of all statistics in the formula.
+     */
+    private void updateDerivedColumns(@NotNull StatKey operand, int ordinal) {
+        Set<StatColumn> derivedColumns = derivedColumnsByOperand.get(operand);
+        if (derivedColumns == null) {
+            return;
+        }
+        for (StatColumn derivedColumn : derivedColumns) {
+            DerivedStat derivedStat = derivedColumn.getStatKey().getDerivedStat();
+            if (derivedStat == null || !derivedColumn.isLoaded()) {
+                continue;
+            }
+            StatColumn[] operandColumns = derivedStat.getOperands().stream()
+                    .map(this::getLoadedColumn)
+                    .toArray(StatColumn[]::new);
+            if (Arrays.asList(operandColumns).contains(null)) {
+                continue;
+            }
+            //a DerivedStat is never used in another formula, so nothing has to be updated after this
+            synchronized (derivedColumn) {
+                int value = derivedStat.evaluate(operandColumns, ordinal);
+                if (value != derivedColumn.get(ordinal) && offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                    storeValue(derivedColumn, ordinal, value);
+                }
+            }
+        }
+    }
+
+    private @NotNull List<StatKey> getOperands(@NotNull StatKey derivedStatKey) {
+        DerivedStat derivedStat = derivedStatKey.getDerivedStat();
+        return (derivedStat != null) ? derivedStat.getOperands() : List.of();
+    }
+
+    private @NotNull StatColumn createColumn(@NotNull StatKey statKey) {
+        StatColumn column = new StatColumn(statKey);
+        if (statKey.isSubStatSet()) {
+            subStatSetColumns.add(column);
+        }
+        else if (statKey.isDerived()) {
+            getOperands(statKey).forEach(operand ->
+                    derivedColumnsByOperand.computeIfAbsent(operand, key -> ConcurrentHashMap.newKeySet()).add(column));
+        }
+        return column;
+    }
+
+    private boolean isOutdated(@NotNull StatSnapshot snapshot, @NotNull File statsFolder, int ordinal) {
+        if (!snapshot.wasIncluded(ordinal)) {
+            return true;
+        }
+        File statsFile = new File(statsFolder, offlinePlayerHandler.getPlayerUUID(ordinal) + ".json");
+        return statsFile.lastModified() > snapshot.getCreationTime() - MODIFICATION_TIME_MARGIN;
+    }
+
+    private @NotNull File getSnapshotFile() {
+        return new File(Main.getPluginInstance().getDataFolder(), SNAPSHOT_FILE_NAME);
+    }
+
+    private @Nullable World getMainWorld() {
+        List<World> worlds = Bukkit.getWorlds();
+        return worlds.isEmpty() ? null : worlds.get(0);
+    }
+
+    private void updateOnlinePlayers(@NotNull StatColumn column) {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            int ordinal = offlinePlayerHandler.getPlayerOrdinal(player.getUniqueId());
+            if (ordinal != -1) {
+                setValue(column, ordinal, column.getStatKey().getValueFor(player));
+            }
+        }
+    }
+
+    /**
+     * Stores a new value for an included player in a loaded column, and in its
+     * live leaderboard and RankIndex. Whether the player is included is checked
+     * while holding the column's lock, so a player that is excluded at the same
+     * time either gets this value before being removed, or does not get it at all.
+     * The columns of DerivedStats that use this statistic are updated after
+     * that lock has been released, so the locks of two columns are never held
+     * at the same time.
+     *
+     * @param column the loaded StatColumn
+     * @param ordinal the player-ordinal
+     * @param value the new value
+     */
+    public void setValue(@NotNull StatColumn column, int ordinal, int value) {
+        synchronized (column) {
+            if (!offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                return;
+            }
+            storeValue(column, ordinal, value);
+        }
+        updateDerivedColumns(column.getStatKey(), ordinal);
+    }
+
+    /**
+     * Adds a difference to the value of an included player in a loaded column,
+     * the same way {@link #setValue(StatColumn, int, int)} stores a new value.
+     * The current value is read and the new one is stored while holding the
+     * column's lock, so two changes at the same time cannot overwrite each other.
+     *
+     * @param column the loaded StatColumn
+     * @param ordinal the player-ordinal
+     * @param difference the amount to add to the current value
+     */
+    private void addToValue(@NotNull StatColumn column, int ordinal, int difference) {
+        synchronized (column) {
+            if (!offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                return;
+            }
+            storeValue(column, ordinal, (int) Math.min((long) column.get(ordinal) + difference, Integer.MAX_VALUE));
+        }
+        updateDerivedColumns(column.getStatKey(), ordinal);
+    }
+
+    /**
+     * Stores a value in the column, its live leaderboard and its RankIndex.
+     * This should only be called while holding the column's lock.
+     */
+    private void storeValue(@NotNull StatColumn column, int ordinal, int value) {
+        column.update(ordinal, value);
+        Leaderboard leaderboard = leaderboards.get(column.getStatKey());
+        if (leaderboard != null) {
+            leaderboard.update(ordinal, value);
+        }
+        RankIndex rankIndex = rankIndexes.get(column.getStatKey());
+        if (rankIndex != null) {
+            rankIndex.update(ordinal, value);
+        }
+    }
+
+    private void buildLeaderboard(@NotNull StatColumn column, @NotNull Leaderboard leaderboard) {
+        long time = System.currentTimeMillis();
+        int invalidationCount = leaderboard.getInvalidationCount();
+        TopHeap heap = ThreadManager.invoke(ThreadManager.getTopStatAction(column, leaderboard.getCapacity()));
+        leaderboard.rebuild(heap, invalidationCount);
+
+        //the values of online players might have changed while the column was being scanned
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            int ordinal = offlinePlayerHandler.getPlayerOrdinal(player.getUniqueId());
+            if (ordinal != -1 && offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                leaderboard.update(ordinal, column.get(ordinal));
+            }
+        }
+        MyLogger.logMediumLevelTask("Built live top " + leaderboard.getCapacity(), time);
+    }
+
+    /**
+     * Builds the RankIndex while holding the column's lock,
+     * so no values can change while it is being built. To keep
+     * it up to date afterwards, it has to be stored in rankIndexes
+     * before that lock is released.
+     */
+    private @NotNull RankIndex buildRankIndex(@NotNull StatColumn column) {
+        long time = System.currentTimeMillis();
+        RankIndex rankIndex;
+        synchronized (column) {
+            int playerCount = column.size();
+            long[] keys = IntStream.range(0, playerCount)
+                    .filter(offlinePlayerHandler::isIncludedPlayer)
+                    .mapToLong(ordinal -> RankIndex.toKey(ordinal, column.get(ordinal)))
+                    .sorted()
+                    .toArray();
+            rankIndex = new RankIndex(playerCount, keys);
+        }
+        MyLogger.logMediumLevelTask("Built rank index for " + rankIndex.size() + " players", time);
+        return rankIndex;
+    }
+
+    private void removeExpiredLeaderboards() {
+        long expiryTime = System.currentTimeMillis() - config.getTopListUpdateMinutes() * 60_000L;
+        leaderboards.values().removeIf(leaderboard ->
+                !leaderboard.isPinned() && leaderboard.getLastRequested() < expiryTime);
+    }
+
+    private @NotNull Set<StatKey> getAlwaysUpdatedTopLists() {
+        Set<StatKey> statKeys = new HashSet<>();
+        for (String statName : config.getAlwaysUpdatedTopLists()) {
+            StatKey statKey = StatKey.fromString(statName);
+            if (statKey == null) {
+                MyLogger.logWarning("\"" + statName + "\" in always-updated-top-lists is not a valid statistic!");
+            } else {
+                statKeys.add(statKey);
+            }
+        }
+        return statKeys;
+    }
+}
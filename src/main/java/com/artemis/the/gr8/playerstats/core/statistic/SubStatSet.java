@@ -0,0 +1,221 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.core.config.GroupHandler;
+import com.artemis.the.gr8.playerstats.core.utils.EnumHandler;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import org.bukkit.Keyed;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Statistic;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A set of blocks, items or entities that the value of a statistic
+ * can be added up over, so something like "all blocks mined" or
+ * "all ores mined" can be stored in a single {@link StatColumn}.
+ * The set called "all" contains every block, item or entity,
+ * and other sets are defined in the config (sub-stat-sets), or
+ * as a group of blocks, items or entities in the groups.yml.
+ *
+ * <p>The same set is resolved separately for every Statistic.Type,
+ * and names that do not fit that type (such as an item that is not
+ * a block, for a statistic of Type.Block) are skipped.
+ */
+public final class SubStatSet {
+
+    /** The name of the set that contains every block, item or entity. */
+    public static final String ALL = "all";
+
+    private static final ConcurrentHashMap<String, SubStatSet> resolvedSets = new ConcurrentHashMap<>();
+    private static volatile Map<String, List<String>> configuredSets;
+
+    private final boolean containsAll;
+    private final EnumSet<Material> materials;
+    private final EnumSet<EntityType> entities;
+
+    private SubStatSet(boolean containsAll, EnumSet<Material> materials, EnumSet<EntityType> entities) {
+        this.containsAll = containsAll;
+        this.materials = materials;
+        this.entities = entities;
+    }
+
+    /**
+     * Gets the set with this name for this type of statistic.
+     *
+     * @param type the Statistic.Type (Block, Item or Entity)
+     * @param setName the name of the set (case-insensitive)
+     * @return the SubStatSet, or null if there is no set with this name,
+     * or if the type is Untyped
+     */
+    public static @Nullable SubStatSet get(@NotNull Statistic.Type type, @NotNull String setName) {
+        if (type == Statistic.Type.UNTYPED || !exists(setName)) {
+            return null;
+        }
+        String name = setName.toLowerCase(Locale.ENGLISH);
+        return resolvedSets.computeIfAbsent(type + ":" + name, key -> resolve(type, name));
+    }
+
+    /**
+     * @param setName the name to check (case-insensitive)
+     * @return true if this is "all", or the name of a set in the config or groups.yml
+     */
+    public static boolean exists(@NotNull String setName) {
+        String name = setName.toLowerCase(Locale.ENGLISH);
+        return name.equals(ALL) || getConfiguredSets().containsKey(name);
+    }
+
+    /**
+     * @return "all", followed by the names of all sets in the config and groups.yml
+     */
+    public static @NotNull List<String> getNames() {
+        List<String> names = new ArrayList<>();
+        names.add(ALL);
+        names.addAll(getConfiguredSets().keySet());
+        return names;
+    }
+
+    /**
+     * Forgets all resolved sets, so they are read
+     * from the config again the next time they are used.
+     */
+    static void clear() {
+        configuredSets = null;
+        resolvedSets.clear();
+    }
+
+    /**
+     * @return true if this set contains every block, item or entity
+     */
+    public boolean containsAll() {
+        return containsAll;
+    }
+
+    /**
+     * @param subStat a block, item or entity
+     * @return true if this set contains it
+     */
+    public boolean contains(@Nullable Keyed subStat) {
+        if (subStat instanceof Material material) {
+            return materials.contains(material);
+        }
+        return subStat instanceof EntityType entity && entities.contains(entity);
+    }
+
+    @NotNull Set<Material> getMaterials() {
+        return Collections.unmodifiableSet(materials);
+    }
+
+    @NotNull Set<EntityType> getEntities() {
+        return Collections.unmodifiableSet(entities);
+    }
+
+    /**
+     * @return the names the blocks, items or entities in this set are
+     * stored under in the vanilla stats-files (such as "minecraft:diamond_ore")
+     */
+    @NotNull List<String> getVanillaNames() {
+        List<String> vanillaNames = new ArrayList<>(materials.size() + entities.size());
+        materials.forEach(material -> vanillaNames.add(material.getKey().toString()));
+        entities.forEach(entity -> vanillaNames.add(entity.getKey().toString()));
+        return vanillaNames;
+    }
+
+    /**
+     * Adds up the values of this statistic for every block, item or entity
+     * in this set through Bukkit.
+     *
+     * @param player the player to get the value for
+     * @param statistic the statistic to add up
+     * @return the total, or Integer.MAX_VALUE if it does not fit in an int
+     */
+    int getValueFor(@NotNull OfflinePlayer player, @NotNull Statistic statistic) {
+        long total = 0;
+        for (Material material : materials) {
+            try {
+                total += player.getStatistic(statistic, material);
+            } catch (IllegalArgumentException ignored) {
+                //not every block or item has a value for every statistic
+            }
+        }
+        for (EntityType entity : entities) {
+            try {
+                total += player.getStatistic(statistic, entity);
+            } catch (IllegalArgumentException ignored) {
+                //not every entity has a value for every statistic
+            }
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static @NotNull SubStatSet resolve(@NotNull Statistic.Type type, @NotNull String name) {
+        EnumHandler enumHandler = EnumHandler.getInstance();
+        boolean containsAll = name.equals(ALL);
+        EnumSet<Material> materials = EnumSet.noneOf(Material.class);
+        EnumSet<EntityType> entities = EnumSet.noneOf(EntityType.class);
+
+        if (containsAll) {
+            switch (type) {
+                case BLOCK, ITEM -> {
+                    for (Material material : Material.values()) {
+                        if (!material.isLegacy() && (type == Statistic.Type.BLOCK ? material.isBlock() : material.isItem())) {
+                            materials.add(material);
+                        }
+                    }
+                }
+                case ENTITY -> {
+                    for (EntityType entity : EntityType.values()) {
+                        if (entity != EntityType.UNKNOWN) {
+                            entities.add(entity);
+                        }
+                    }
+                }
+            }
+        }
+        else {
+            for (String subStatName : getConfiguredSets().getOrDefault(name, List.of())) {
+                switch (type) {
+                    case BLOCK -> addIfPresent(materials, enumHandler.getBlockEnum(subStatName));
+                    case ITEM -> addIfPresent(materials, enumHandler.getItemEnum(subStatName));
+                    case ENTITY -> addIfPresent(entities, enumHandler.getEntityEnum(subStatName));
+                }
+            }
+        }
+        return new SubStatSet(containsAll, materials, entities);
+    }
+
+    private static <T extends Enum<T>> void addIfPresent(@NotNull EnumSet<T> set, @Nullable T value) {
+        if (value != null) {
+            set.add(value);
+        }
+    }
+
+    private static @NotNull Map<String, List<String>> getConfiguredSets() {
+        Map<String, List<String>> localVar = configuredSets;
+        if (localVar == null) {
+            Map<String, List<String>> sets = ConfigHandler.getInstance().getSubStatSets();
+            GroupHandler.getInstance().getSubStatGroups().forEach((groupName, subStatNames) -> {
+                if (sets.containsKey(groupName)) {
+                    MyLogger.logWarning("Group \"" + groupName + "\" in groups.yml has the same name as a sub-stat-set in the config.yml, and will be ignored!");
+                } else {
+                    sets.put(groupName, subStatNames);
+                }
+            });
+            localVar = sets;
+            configuredSets = localVar;
+        }
+        return localVar;
+    }
+}
@@ -0,0 +1,144 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+/**
+ * A fixed-size min-heap of player-ordinals and their values,
+ * that keeps the highest values that are offered to it. The
+ * lowest of those is always on top, so every new candidate
+ * only needs to be compared to that one. Equal values are
+ * ordered by ordinal, to keep results stable.
+ */
+public final class TopHeap {
+
+    private final int capacity;
+    private final int[] ordinals;
+    private final int[] values;
+    private int size;
+    private boolean isSorted;
+
+    public TopHeap(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+        ordinals = new int[this.capacity];
+        values = new int[this.capacity];
+    }
+
+    /**
+     * Checks whether a candidate with this value would currently
+     * make it into this heap, without adding it.
+     *
+     * @param ordinal the player-ordinal of the candidate
+     * @param value the value of the candidate
+     * @return true if this candidate would be added
+     */
+    public boolean accepts(int ordinal, int value) {
+        if (size < capacity) {
+            return true;
+        }
+        return capacity > 0 && isHigher(ordinal, value, ordinals[0], values[0]);
+    }
+
+    /**
+     * Adds this candidate if it belongs in the top, and removes
+     * the current lowest entry if the heap was already full.
+     *
+     * @param ordinal the player-ordinal of the candidate
+     * @param value the value of the candidate
+     * @throws IllegalStateException if this heap has already been sorted
+     */
+    public void offer(int ordinal, int value) throws IllegalStateException {
+        if (isSorted) {
+            throw new IllegalStateException("This TopHeap has already been sorted");
+        }
+        if (size < capacity) {
+            ordinals[size] = ordinal;
+            values[size] = value;
+            siftUp(size++);
+        }
+        else if (accepts(ordinal, value)) {
+            ordinals[0] = ordinal;
+            values[0] = value;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Offers all entries of another TopHeap to this one.
+     *
+     * @param other the TopHeap to merge into this one
+     */
+    public void merge(TopHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ordinals[i], other.values[i]);
+        }
+    }
+
+    /**
+     * Sorts the entries from highest to lowest value. After this,
+     * they can be retrieved in order with {@link #getOrdinal(int)}
+     * and {@link #getValue(int)}, but no new entries can be offered.
+     */
+    public void sort() {
+        if (!isSorted) {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            isSorted = true;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getOrdinal(int index) {
+        return ordinals[index];
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isHigher(ordinals[parent], values[parent], ordinals[index], values[index])) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int end) {
+        while (true) {
+            int lowest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < end && isHigher(ordinals[lowest], values[lowest], ordinals[left], values[left])) {
+                lowest = left;
+            }
+            if (right < end && isHigher(ordinals[lowest], values[lowest], ordinals[right], values[right])) {
+                lowest = right;
+            }
+            if (lowest == index) {
+                return;
+            }
+            swap(index, lowest);
+            index = lowest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int ordinal = ordinals[i];
+        ordinals[i] = ordinals[j];
+        ordinals[j] = ordinal;
+
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private static boolean isHigher(int ordinal1, int value1, int ordinal2, int value2) {
+        return value1 > value2 || (value1 == value2 && ordinal1 < ordinal2);
+    }
+}
@@ -0,0 +1,69 @@
+package com.artemis.the.gr8.playerstats.core.statrequest;
+
+import com.artemis.the.gr8.playerstats.api.RequestGenerator;
+import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+
+/**
+ * A request for the blocks, items or entities of a statistic with the
+ * highest totals over all players. A breakdown is always made over a
+ * set of sub-statistics, so it can only be configured with
+ * {@link #subStatSet(Statistic, String)}.
+ */
+public final class BreakdownStatRequest extends StatRequest<LinkedHashMap<String, Long>> implements RequestGenerator<LinkedHashMap<String, Long>> {
+
+    public BreakdownStatRequest(int topListSize) {
+        this(Bukkit.getConsoleSender(), topListSize);
+    }
+
+    public BreakdownStatRequest(CommandSender sender, int topListSize) {
+        super(sender);
+        super.configureForBreakdown(topListSize);
+    }
+
+    @Override
+    public boolean isValid() {
+        Settings settings = super.getSettings();
+        return settings.getSubStatSet() != null &&
+                settings.getTimeWindow() == null &&
+                settings.getTopListSize() > 0 &&
+                super.hasMatchingSubStat();
+    }
+
+    @Override
+    public StatRequest<LinkedHashMap<String, Long>> untyped(@NotNull Statistic statistic) {
+        throw new IllegalArgumentException("A breakdown is made over a set of sub-statistics, use subStatSet() instead");
+    }
+
+    @Override
+    public StatRequest<LinkedHashMap<String, Long>> blockOrItemType(@NotNull Statistic statistic, @NotNull Material material) {
+        throw new IllegalArgumentException("A breakdown is made over a set of sub-statistics, use subStatSet() instead");
+    }
+
+    @Override
+    public StatRequest<LinkedHashMap<String, Long>> entityType(@NotNull Statistic statistic, @NotNull EntityType entityType) {
+        throw new IllegalArgumentException("A breakdown is made over a set of sub-statistics, use subStatSet() instead");
+    }
+
+    @Override
+    public StatRequest<LinkedHashMap<String, Long>> subStatSet(@NotNull Statistic statistic, @NotNull String setName) {
+        if (!SubStatSet.exists(setName)) {
+            throw new IllegalArgumentException("\"" + setName + "\" is not the name of a sub-stat set");
+        }
+        super.configureSubStatSet(statistic, setName);
+        return this;
+    }
+
+    @Override
+    public StatRequest<LinkedHashMap<String, Long>> derived(@NotNull String derivedStatName) {
+        throw new IllegalArgumentException("A breakdown is made over a set of sub-statistics, so it cannot be made for a derived statistic");
+    }
+}
@@ -0,0 +1,66 @@
+package com.artemis.the.gr8.playerstats.core.statrequest;
+
+import com.artemis.the.gr8.playerstats.api.RequestGenerator;
+import com.artemis.the.gr8.playerstats.api.StatDistribution;
+import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+
+public final class DistributionStatRequest extends StatRequest<StatDistribution> implements RequestGenerator<StatDistribution> {
+
+    public DistributionStatRequest() {
+        this(Bukkit.getConsoleSender());
+    }
+
+    public DistributionStatRequest(CommandSender sender) {
+        super(sender);
+        super.configureForDistribution();
+    }
+
+    @Override
+    public boolean isValid() {
+        return super.hasMatchingSubStat();
+    }
+
+    @Override
+    public StatRequest<StatDistribution> untyped(@NotNull Statistic statistic) {
+        super.configureUntyped(statistic);
+        return this;
+    }
+
+    @Override
+    public StatRequest<StatDistribution> blockOrItemType(@NotNull Statistic statistic, @NotNull Material material) {
+        super.configureBlockOrItemType(statistic, material);
+        return this;
+    }
+
+    @Override
+    public StatRequest<StatDistribution> entityType(@NotNull Statistic statistic, @NotNull EntityType entityType) {
+        super.configureEntityType(statistic, entityType);
+        return this;
+    }
+
+    @Override
+    public StatRequest<StatDistribution> subStatSet(@NotNull Statistic statistic, @NotNull String setName) {
+        if (!SubStatSet.exists(setName)) {
+            throw new IllegalArgumentException("\"" + setName + "\" is not the name of a sub-stat set");
+        }
+        super.configureSubStatSet(statistic, setName);
+        return this;
+    }
+
+    @Override
+    public StatRequest<StatDistribution> derived(@NotNull String derivedStatName) {
+        if (!DerivedStat.exists(derivedStatName)) {
+            throw new IllegalArgumentException("\"" + derivedStatName + "\" is not the name of a derived statistic");
+        }
+        super.configureDerived(derivedStatName);
+        return this;
+    }
+}
\ No newline at end of file
@@ -3,6 +3,8 @@ package com.artemis.the.gr8.playerstats.core.statrequest;
 import com.artemis.the.gr8.playerstats.api.RequestGenerator;
 import com.artemis.the.gr8.playerstats.api.StatRequest;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
 import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -38,7 +40,8 @@ public final class PlayerStatRequest extends StatRequest<Integer> implements Req
 
         OfflinePlayerHandler offlinePlayerHandler = OfflinePlayerHandler.getInstance();
         if (offlinePlayerHandler.isExcludedPlayer(settings.getPlayerName())) {
-            return ConfigHandler.getInstance().allowPlayerLookupsForExcludedPlayers();
+            //the history only keeps track of included players
+            return ConfigHandler.getInstance().allowPlayerLookupsForExcludedPlayers() && settings.getTimeWindow() == null;
         } else {
             return offlinePlayerHandler.isIncludedPlayer(settings.getPlayerName());
         }
@@ -61,4 +64,22 @@ public final class PlayerStatRequest extends StatRequest<Integer> implements Req
         super.configureEntityType(statistic, entityType);
         return this;
     }
+
+    @Override
+    public StatRequest<Integer> subStatSet(@NotNull Statistic statistic, @NotNull String setName) {
+        if (!SubStatSet.exists(setName)) {
+            throw new IllegalArgumentException("\"" + setName + "\" is not the name of a sub-stat set");
+        }
+        super.configureSubStatSet(statistic, setName);
+        return this;
+    }
+
+    @Override
+    public StatRequest<Integer> derived(@NotNull String derivedStatName) {
+        if (!DerivedStat.exists(derivedStatName)) {
+            throw new IllegalArgumentException("\"" + derivedStatName + "\" is not the name of a derived statistic");
+        }
+        super.configureDerived(derivedStatName);
+        return this;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.artemis.the.gr8.playerstats.core.statrequest;
+
+import com.artemis.the.gr8.playerstats.api.PlayerRank;
+import com.artemis.the.gr8.playerstats.api.RequestGenerator;
+import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Statistic;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.EntityType;
+import org.jetbrains.annotations.NotNull;
+
+public final class RankStatRequest extends StatRequest<PlayerRank> implements RequestGenerator<PlayerRank> {
+
+    public RankStatRequest(String playerName) {
+        this(Bukkit.getConsoleSender(), playerName);
+    }
+
+    public RankStatRequest(CommandSender sender, String playerName) {
+        super(sender);
+        super.configureForRank(playerName);
+    }
+
+    /**
+     * Excluded players are not ranked, so only
+     * included players can be looked up.
+     */
+    @Override
+    public boolean isValid() {
+        String playerName = super.getSettings().getPlayerName();
+        if (playerName == null || !OfflinePlayerHandler.getInstance().isIncludedPlayer(playerName)) {
+            return false;
+        }
+        return super.hasMatchingSubStat();
+    }
+
+    @Override
+    public StatRequest<PlayerRank> untyped(@NotNull Statistic statistic) {
+        super.configureUntyped(statistic);
+        return this;
+    }
+
+    @Override
+    public StatRequest<PlayerRank> blockOrItemType(@NotNull Statistic statistic, @NotNull Material material) {
+        super.configureBlockOrItemType(statistic, material);
+        return this;
+    }
+
+    @Override
+    public StatRequest<PlayerRank> entityType(@NotNull Statistic statistic, @NotNull EntityType entityType) {
+        super.configureEntityType(statistic, entityType);
+        return this;
+    }
+
+    @Override
+    public StatRequest<PlayerRank> subStatSet(@NotNull Statistic statistic, @NotNull String setName) {
+        if (!SubStatSet.exists(setName)) {
+            throw new IllegalArgumentException("\"" + setName + "\" is not the name of a sub-stat set");
+        }
+        super.configureSubStatSet(statistic, setName);
+        return this;
+    }
+
+    @Override
+    public StatRequest<PlayerRank> derived(@NotNull String derivedStatName) {
+        if (!DerivedStat.exists(derivedStatName)) {
+            throw new IllegalArgumentException("\"" + derivedStatName + "\" is not the name of a derived statistic");
+        }
+        super.configureDerived(derivedStatName);
+        return this;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.artemis.the.gr8.playerstats.core.statrequest;
+
+import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes sure identical top- and server-requests that arrive while
+ * the first one is still being calculated don't start calculations
+ * of their own. Instead, they wait for the one that is already
+ * running, and all get its raw result (which is then formatted
+ * separately for every sender).
+ */
+final class RequestCoalescer {
+
+    private final ConcurrentHashMap<ResultKey, CompletableFuture<Object>> runningCalculations;
+
+    public RequestCoalescer() {
+        runningCalculations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Calculates the raw result for a request with these settings, or waits
+     * for the calculation of an identical request if one is already running.
+     *
+     * @param requestSettings the settings of the request
+     * @param calculation the function that calculates the raw result
+     * @return the raw result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull StatRequest.Settings requestSettings, @NotNull Supplier<T> calculation) {
+        ResultKey resultKey = ResultKey.of(requestSettings);
+        CompletableFuture<Object> newCalculation = new CompletableFuture<>();
+        CompletableFuture<Object> runningCalculation = runningCalculations.putIfAbsent(resultKey, newCalculation);
+
+        if (runningCalculation != null) {
+            MyLogger.logHighLevelMsg(Thread.currentThread().getName() + " is waiting for the running calculation of " + resultKey);
+            try {
+                return (T) runningCalculation.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T value = calculation.get();
+            newCalculation.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            newCalculation.completeExceptionally(e);
+            throw e;
+        } finally {
+            runningCalculations.remove(resultKey, newCalculation);
+        }
+    }
+}
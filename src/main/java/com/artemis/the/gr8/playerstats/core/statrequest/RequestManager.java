@@ -1,27 +1,44 @@
 package com.artemis.the.gr8.playerstats.core.statrequest;
 
+import com.artemis.the.gr8.playerstats.api.PlayerRank;
 import com.artemis.the.gr8.playerstats.api.RequestGenerator;
+import com.artemis.the.gr8.playerstats.api.StatDistribution;
 import com.artemis.the.gr8.playerstats.api.StatManager;
 import com.artemis.the.gr8.playerstats.api.StatRequest;
 import com.artemis.the.gr8.playerstats.api.StatResult;
+import com.artemis.the.gr8.playerstats.api.enums.Target;
+import com.artemis.the.gr8.playerstats.api.enums.TimeWindow;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.core.msg.msgutils.FormattingFunction;
 import com.artemis.the.gr8.playerstats.core.msg.OutputManager;
 import com.artemis.the.gr8.playerstats.core.multithreading.ThreadManager;
 import com.artemis.the.gr8.playerstats.core.sharing.ShareManager;
+import com.artemis.the.gr8.playerstats.core.statistic.Leaderboard;
+import com.artemis.the.gr8.playerstats.core.statistic.QuantileSketch;
+import com.artemis.the.gr8.playerstats.core.statistic.RankIndex;
+import com.artemis.the.gr8.playerstats.core.statistic.StatColumn;
+import com.artemis.the.gr8.playerstats.core.statistic.StatHistory;
+import com.artemis.the.gr8.playerstats.core.statistic.StatKey;
+import com.artemis.the.gr8.playerstats.core.statistic.StatStore;
+import com.artemis.the.gr8.playerstats.core.statistic.TopHeap;
 import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
 import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import net.kyori.adventure.text.TextComponent;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.Statistic;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.EntityType;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Turns user input into a {@link StatRequest} that can be
@@ -29,6 +46,11 @@ import java.util.stream.Collectors;
  */
 public final class RequestManager implements StatManager {
 
+    /**
+     * A top-list is selected with a bounded heap instead of a full sort
+     * if it is at least this many times smaller than the number of players.
+     */
+    private static final int TOP_HEAP_RATIO = 16;
     private static RequestProcessor processor;
     private final OfflinePlayerHandler offlinePlayerHandler;
 
@@ -42,6 +64,9 @@ public final class RequestManager implements StatManager {
             case PLAYER -> processor.processPlayerRequest(request.getSettings());
             case SERVER -> processor.processServerRequest(request.getSettings());
             case TOP -> processor.processTopRequest(request.getSettings());
+            case RANK -> processor.processRankRequest(request.getSettings());
+            case DISTRIBUTION -> processor.processDistributionRequest(request.getSettings());
+            case BREAKDOWN -> processor.processBreakdownRequest(request.getSettings());
         };
     }
 
@@ -72,12 +97,35 @@ public final class RequestManager implements StatManager {
         return processor.processServerRequest(request.getSettings());
     }
 
+    @Contract(" -> new")
+    @Override
+    public @NotNull RequestGenerator<StatDistribution> createDistributionStatRequest() {
+        return new DistributionStatRequest();
+    }
+
+    @Override
+    public @NotNull StatResult<StatDistribution> executeDistributionStatRequest(@NotNull StatRequest<StatDistribution> request) {
+        return processor.processDistributionRequest(request.getSettings());
+    }
+
     @Contract("_ -> new")
     @Override
     public @NotNull RequestGenerator<LinkedHashMap<String, Integer>> createTopStatRequest(int topListSize) {
         return new TopStatRequest(topListSize);
     }
 
+    @Contract("_, _ -> new")
+    @Override
+    public @NotNull RequestGenerator<LinkedHashMap<String, Integer>> createTopStatRequest(int topListOffset, int topListSize) {
+        return new TopStatRequest(topListOffset, topListSize);
+    }
+
+    @Contract("_, _ -> new")
+    @Override
+    public @NotNull RequestGenerator<LinkedHashMap<String, Integer>> createTopStatRequestAroundPlayer(String playerName, int playersAboveAndBelow) {
+        return new TopStatRequest(Bukkit.getConsoleSender(), playerName, playersAboveAndBelow);
+    }
+
     @Override
     public @NotNull RequestGenerator<LinkedHashMap<String, Integer>> createTotalTopStatRequest() {
         int playerCount = offlinePlayerHandler.getIncludedPlayerCount();
@@ -89,16 +137,65 @@ public final class RequestManager implements StatManager {
         return processor.processTopRequest(request.getSettings());
     }
 
+    @Contract("_ -> new")
+    @Override
+    public @NotNull RequestGenerator<PlayerRank> createRankRequest(String playerName) {
+        return new RankStatRequest(playerName);
+    }
+
+    @Override
+    public @NotNull StatResult<PlayerRank> executeRankRequest(@NotNull StatRequest<PlayerRank> request) {
+        return processor.processRankRequest(request.getSettings());
+    }
+
+    @Contract("_ -> new")
+    @Override
+    public @NotNull RequestGenerator<LinkedHashMap<String, Long>> createBreakdownStatRequest(int topListSize) {
+        return new BreakdownStatRequest(topListSize);
+    }
+
+    @Override
+    public @NotNull StatResult<LinkedHashMap<String, Long>> executeBreakdownStatRequest(@NotNull StatRequest<LinkedHashMap<String, Long>> request) {
+        return processor.processBreakdownRequest(request.getSettings());
+    }
+
+    @Override
+    public @NotNull List<StatResult<?>> executeBatchRequest(@NotNull List<StatRequest<?>> requests) throws IllegalArgumentException {
+        for (int i = 0; i < requests.size(); i++) {
+            if (!requests.get(i).isValid()) {
+                throw new IllegalArgumentException("The StatRequest at index " + i + " is not valid");
+            }
+        }
+        List<StatKey> statKeys = requests.stream()
+                .map(StatRequest::getSettings)
+                .filter(settings -> settings.getTarget() != Target.PLAYER && settings.getTarget() != Target.BREAKDOWN)
+                .map(StatKey::of)
+                .collect(Collectors.toList());
+        StatStore.getInstance().loadColumns(statKeys);
+
+        return requests.stream()
+                .map(RequestManager::execute)
+                .collect(Collectors.toList());
+    }
+
     private final class RequestProcessor {
 
         private static ConfigHandler config;
         private static OutputManager outputManager;
         private static ShareManager shareManager;
+        private static StatStore statStore;
+        private static StatHistory statHistory;
+        private static ResultCache resultCache;
+        private static RequestCoalescer requestCoalescer;
 
         public RequestProcessor(OutputManager outputManager) {
             RequestProcessor.config = ConfigHandler.getInstance();
             RequestProcessor.outputManager = outputManager;
             RequestProcessor.shareManager = ShareManager.getInstance();
+            RequestProcessor.statStore = StatStore.getInstance();
+            RequestProcessor.statHistory = StatHistory.getInstance();
+            RequestProcessor.resultCache = ResultCache.getInstance();
+            RequestProcessor.requestCoalescer = new RequestCoalescer();
         }
 
         public @NotNull StatResult<Integer> processPlayerRequest(StatRequest.Settings requestSettings) {
@@ -120,15 +217,51 @@ public final class RequestManager implements StatManager {
         }
 
         public @NotNull StatResult<LinkedHashMap<String, Integer>> processTopRequest(StatRequest.Settings requestSettings) {
-            LinkedHashMap<String, Integer> stats = getTopStats(requestSettings);
-            FormattingFunction formattingFunction = outputManager.formatTopStats(requestSettings, stats);
+            TopStatPage topStatPage = getRawResult(requestSettings, () -> calculateTopStats(requestSettings));
+            //copy the stored result, so the one that is handed out can be changed safely
+            LinkedHashMap<String, Integer> stats = new LinkedHashMap<>(topStatPage.topStats());
+            FormattingFunction formattingFunction = outputManager.formatTopStats(requestSettings, stats, topStatPage.topListOffset());
             TextComponent formattedResult = processFunction(requestSettings.getCommandSender(), formattingFunction);
             String resultAsString = outputManager.textComponentToString(formattedResult);
 
             return new StatResult<>(stats, formattedResult, resultAsString);
         }
 
+        public @NotNull StatResult<StatDistribution> processDistributionRequest(StatRequest.Settings requestSettings) {
+            StatDistribution distribution = getRawResult(requestSettings, () -> calculateDistribution(requestSettings));
+            FormattingFunction formattingFunction = outputManager.formatDistribution(requestSettings, distribution);
+            TextComponent formattedResult = processFunction(requestSettings.getCommandSender(), formattingFunction);
+            String resultAsString = outputManager.textComponentToString(formattedResult);
+
+            return new StatResult<>(distribution, formattedResult, resultAsString);
+        }
+
+        public @NotNull StatResult<LinkedHashMap<String, Long>> processBreakdownRequest(StatRequest.Settings requestSettings) {
+            LinkedHashMap<String, Long> breakdown = new LinkedHashMap<>(
+                    getRawResult(requestSettings, () -> calculateBreakdown(requestSettings)));
+            FormattingFunction formattingFunction = outputManager.formatBreakdown(requestSettings, breakdown);
+            TextComponent formattedResult = processFunction(requestSettings.getCommandSender(), formattingFunction);
+            String resultAsString = outputManager.textComponentToString(formattedResult);
+
+            return new StatResult<>(breakdown, formattedResult, resultAsString);
+        }
+
+        public @NotNull StatResult<PlayerRank> processRankRequest(StatRequest.Settings requestSettings) {
+            PlayerRank rank = getPlayerRank(requestSettings);
+            FormattingFunction formattingFunction = outputManager.formatRank(requestSettings, rank);
+            TextComponent formattedResult = processFunction(requestSettings.getCommandSender(), formattingFunction);
+            String resultAsString = outputManager.textComponentToString(formattedResult);
+
+            return new StatResult<>(rank, formattedResult, resultAsString);
+        }
+
         private int getPlayerStat(@NotNull StatRequest.Settings requestSettings) {
+            //the change in a time window is calculated from the history, which only has included players
+            if (requestSettings.getTimeWindow() != null) {
+                int ordinal = offlinePlayerHandler.getIncludedPlayerOrdinal(requestSettings.getPlayerName());
+                return statHistory.getWindowValue(StatKey.of(requestSettings), requestSettings.getTimeWindow(), ordinal);
+            }
+
             OfflinePlayer player;
             if (offlinePlayerHandler.isExcludedPlayer(requestSettings.getPlayerName()) &&
                     config.allowPlayerLookupsForExcludedPlayers()) {
@@ -136,27 +269,190 @@ public final class RequestManager implements StatManager {
             } else {
                 player = offlinePlayerHandler.getIncludedOfflinePlayer(requestSettings.getPlayerName());
             }
-            return switch (requestSettings.getStatistic().getType()) {
-                case UNTYPED -> player.getStatistic(requestSettings.getStatistic());
-                case ENTITY -> player.getStatistic(requestSettings.getStatistic(), requestSettings.getEntity());
-                case BLOCK -> player.getStatistic(requestSettings.getStatistic(), requestSettings.getBlock());
-                case ITEM -> player.getStatistic(requestSettings.getStatistic(), requestSettings.getItem());
-            };
+
+            //use the stored value if this statistic has been loaded before, and it can't have changed since
+            //(excluded players are not stored, and derived statistics are only calculated again when requested)
+            StatKey statKey = StatKey.of(requestSettings);
+            StatColumn column = statKey.isDerived() ? null : statStore.getLoadedColumn(statKey);
+            int ordinal = offlinePlayerHandler.getPlayerOrdinal(player.getUniqueId());
+            if (column != null && ordinal != -1 && !player.isOnline() && offlinePlayerHandler.isIncludedPlayer(ordinal)) {
+                return column.get(ordinal);
+            }
+            return statKey.getValueFor(player);
+        }
+
+        /**
+         * Looks up the player's rank in the {@link RankIndex} for this statistic,
+         * instead of sorting all players.
+         */
+        private @NotNull PlayerRank getPlayerRank(@NotNull StatRequest.Settings requestSettings) {
+            int ordinal = offlinePlayerHandler.getIncludedPlayerOrdinal(requestSettings.getPlayerName());
+            StatColumn column = getStatColumn(requestSettings);
+            int value = column.get(ordinal);
+            return statStore.getRankIndex(column).getRank(value);
         }
 
         private long getServerStat(StatRequest.Settings requestSettings) {
-            List<Integer> numbers = getAllStatsAsync(requestSettings)
-                    .values()
-                    .parallelStream()
-                    .toList();
-            return numbers.parallelStream().mapToLong(Integer::longValue).sum();
+            return getRawResult(requestSettings, () -> getStatColumn(requestSettings).getTotal());
         }
 
-        private LinkedHashMap<String, Integer> getTopStats(StatRequest.Settings requestSettings) {
-            return getAllStatsAsync(requestSettings).entrySet().stream()
-                    .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+        /**
+         * Gets a recent result for an identical request from the {@link ResultCache},
+         * or waits for an identical request that is currently being calculated,
+         * and only runs the calculation itself if neither is available.
+         */
+        private <T> T getRawResult(StatRequest.Settings requestSettings, Supplier<T> calculation) {
+            return resultCache.get(requestSettings, () -> requestCoalescer.get(requestSettings, calculation));
+        }
+
+        /**
+         * Summarizes the column in a single parallel pass, in which every subtask
+         * fills its own {@link QuantileSketch}, and those are merged when they are joined.
+         */
+        private @NotNull StatDistribution calculateDistribution(StatRequest.Settings requestSettings) {
+            StatColumn column = getStatColumn(requestSettings);
+            long time = System.currentTimeMillis();
+            QuantileSketch sketch = ThreadManager.invoke(ThreadManager.getDistributionAction(column));
+
+            MyLogger.logMediumLevelTask("Calculated distribution of " + sketch.getCount() + " players", time);
+            return sketch.toDistribution();
+        }
+
+        /**
+         * Adds up every block, item or entity in the set over all players in a single
+         * parallel pass over the stats-files, in which every subtask fills its own array
+         * of totals, and keeps the ones with the highest totals.
+         */
+        private @NotNull LinkedHashMap<String, Long> calculateBreakdown(StatRequest.Settings requestSettings) {
+            StatKey statKey = StatKey.of(requestSettings);
+            long time = System.currentTimeMillis();
+            ForkJoinTask<long[]> task = ThreadManager.getBreakdownAction(statKey);
+            if (task == null) {
+                MyLogger.logWarning("The stats-files of the main world could not be found, no breakdown can be made");
+                return new LinkedHashMap<>();
+            }
+            long[] totals = ThreadManager.invoke(task);
+            MyLogger.actionFinished();
+
+            Enum<?>[] subStats = (statKey.statistic().getType() == Statistic.Type.ENTITY) ?
+                    EntityType.values() : Material.values();
+            LinkedHashMap<String, Long> breakdown = IntStream.range(0, totals.length)
+                    .filter(i -> totals[i] > 0)
+                    .boxed()
+                    .sorted(Comparator.comparingLong((Integer i) -> totals[i]).reversed())
                     .limit(requestSettings.getTopListSize())
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+                    .collect(Collectors.toMap(i -> subStats[i].toString(), i -> totals[i], (a, b) -> a, LinkedHashMap::new));
+
+            MyLogger.logMediumLevelTask("Calculated breakdown of " + statKey.statistic() +
+                    " (" + requestSettings.getSubStatSet() + ")", time);
+            return breakdown;
+        }
+
+        /**
+         * Selects the top-list from the column of this statistic, or for a top-list
+         * of the players who climbed the most positions during a time window,
+         * from the column with the positions every player has climbed.
+         */
+        private @NotNull TopStatPage calculateTopStats(StatRequest.Settings requestSettings) {
+            StatColumn column = (requestSettings.isRankChange() && requestSettings.getTimeWindow() != null) ?
+                    statHistory.getRankChangeColumn(StatKey.of(requestSettings), requestSettings.getTimeWindow()) :
+                    getStatColumn(requestSettings);
+            if (requestSettings.getPlayerName() != null) {
+                return getTopStatsAroundPlayer(column, requestSettings.getPlayerName(), requestSettings.getTopListSize());
+            }
+            int topListOffset = requestSettings.getTopListOffset();
+            int topListSize = requestSettings.getTopListSize();
+            if (topListOffset == 0 && (long) topListSize * TOP_HEAP_RATIO <= column.size()) {
+                Leaderboard leaderboard = statStore.getLeaderboard(column, topListSize);
+                if (leaderboard != null) {
+                    return new TopStatPage(0, toTopStatMap(leaderboard.getTop(topListSize)));
+                }
+                return new TopStatPage(0, getTopStatsFromHeap(column, topListSize));
+            }
+            return new TopStatPage(topListOffset, getTopStatsFromRankIndex(column, topListOffset, topListSize));
+        }
+
+        /**
+         * Finds the player's position in the sorted {@link RankIndex}, and reads the players
+         * around it in the same step, so the result costs O(log n) plus the number of players.
+         */
+        private @NotNull TopStatPage getTopStatsAroundPlayer(StatColumn column, String playerName, int topListSize) {
+            int ordinal = offlinePlayerHandler.getIncludedPlayerOrdinal(playerName);
+            RankIndex rankIndex = statStore.getRankIndex(column);
+
+            int topListOffset;
+            int count;
+            int[] ordinals;
+            int[] values;
+            synchronized (rankIndex) {
+                int position = rankIndex.getPosition(ordinal);
+                if (position == -1) {
+                    return new TopStatPage(0, new LinkedHashMap<>());
+                }
+                topListOffset = Math.max(0, position - topListSize / 2);
+                int length = Math.min(topListSize, rankIndex.size() - topListOffset);
+                ordinals = new int[length];
+                values = new int[length];
+                count = rankIndex.getSlice(topListOffset, ordinals, values);
+            }
+
+            LinkedHashMap<String, Integer> topStats = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                putPlayerStat(topStats, ordinals[i], values[i]);
+            }
+            return new TopStatPage(topListOffset, topStats);
+        }
+
+        /**
+         * Reads a page (or a long top-list) from the sorted {@link RankIndex}, which only has
+         * to visit the players on that page, instead of sorting all players every time.
+         * Players with a value of 0 are left out, like they are for every top-list.
+         */
+        private @NotNull LinkedHashMap<String, Integer> getTopStatsFromRankIndex(StatColumn column, int topListOffset, int topListSize) {
+            RankIndex rankIndex = statStore.getRankIndex(column);
+            int length = Math.max(0, Math.min(topListSize, rankIndex.size() - topListOffset));
+            int[] ordinals = new int[length];
+            int[] values = new int[length];
+            int count = rankIndex.getSlice(topListOffset, ordinals, values);
+
+            LinkedHashMap<String, Integer> topStats = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count && values[i] > 0; i++) {
+                putPlayerStat(topStats, ordinals[i], values[i]);
+            }
+            return topStats;
+        }
+
+        /**
+         * Selects the top-list in a single parallel pass over the column,
+         * with a fixed-size heap per subtask, instead of sorting all players.
+         */
+        private @NotNull LinkedHashMap<String, Integer> getTopStatsFromHeap(StatColumn column, int topListSize) {
+            long time = System.currentTimeMillis();
+            TopHeap heap = ThreadManager.invoke(ThreadManager.getTopStatAction(column, topListSize));
+            heap.sort();
+
+            LinkedHashMap<String, Integer> topStats = toTopStatMap(heap);
+            MyLogger.logMediumLevelTask("Selected top " + topListSize, time);
+            return topStats;
+        }
+
+        private @NotNull LinkedHashMap<String, Integer> toTopStatMap(@NotNull TopHeap sortedHeap) {
+            LinkedHashMap<String, Integer> topStats = new LinkedHashMap<>(sortedHeap.size() * 2);
+            for (int i = 0; i < sortedHeap.size(); i++) {
+                putPlayerStat(topStats, sortedHeap.getOrdinal(i), sortedHeap.getValue(i));
+            }
+            return topStats;
+        }
+
+        /**
+         * Adds this player to a top-list by name. A player without a name
+         * (which should never be in a top-list) is left out.
+         */
+        private void putPlayerStat(@NotNull LinkedHashMap<String, Integer> topStats, int ordinal, int value) {
+            String playerName = offlinePlayerHandler.getPlayerName(ordinal);
+            if (playerName != null) {
+                topStats.put(playerName, value);
+            }
         }
 
         private TextComponent processFunction(CommandSender sender, FormattingFunction function) {
@@ -174,29 +470,18 @@ public final class RequestManager implements StatManager {
         }
 
         /**
-         * Invokes a bunch of worker pool threads to get the statistics for
-         * all players that are stored in the {@link OfflinePlayerHandler}).
+         * Gets the {@link StatColumn} with the statistics for all players
+         * that are stored in the {@link OfflinePlayerHandler}. If this statistic
+         * has not been requested before, the {@link StatStore} invokes a bunch
+         * of worker pool threads to load it. For a time window, the column with
+         * the change since the start of that window is calculated by the {@link StatHistory}.
          */
-        private @NotNull ConcurrentHashMap<String, Integer> getAllStatsAsync(StatRequest.Settings requestSettings) {
-            long time = System.currentTimeMillis();
-
-            ForkJoinPool commonPool = ForkJoinPool.commonPool();
-            ConcurrentHashMap<String, Integer> allStats;
-
-            try {
-                allStats = commonPool.invoke(ThreadManager.getStatAction(requestSettings));
-            } catch (ConcurrentModificationException e) {
-                MyLogger.logWarning("The requestSettings could not be executed due to a ConcurrentModificationException. " +
-                        "This likely happened because Bukkit hasn't fully initialized all player-data yet. " +
-                        "Try again and it should be fine!");
-                throw new ConcurrentModificationException(e.toString());
-            }
-
-            MyLogger.actionFinished();
-            ThreadManager.recordCalcTime(System.currentTimeMillis() - time);
-            MyLogger.logMediumLevelTask("Calculated all stats", time);
-
-            return allStats;
+        private @NotNull StatColumn getStatColumn(StatRequest.Settings requestSettings) {
+            StatKey statKey = StatKey.of(requestSettings);
+            TimeWindow timeWindow = requestSettings.getTimeWindow();
+            return (timeWindow != null) ?
+                    statHistory.getWindowColumn(statKey, timeWindow) :
+                    statStore.getColumn(statKey);
         }
     }
 }
\ No newline at end of file
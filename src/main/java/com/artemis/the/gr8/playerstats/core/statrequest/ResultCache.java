@@ -0,0 +1,114 @@
+package com.artemis.the.gr8.playerstats.core.statrequest;
+
+import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
+import com.artemis.the.gr8.playerstats.core.utils.MyLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the raw results of recent top- and server-requests, so
+ * identical requests that follow shortly after each other (for example
+ * from many players clicking the same shared statistic, or from
+ * placeholders that are polled) don't need to be calculated again.
+ * Results expire after the configured number of seconds, and when
+ * too many results are stored, the least recently used one is removed.
+ */
+public final class ResultCache {
+
+    private static volatile ResultCache instance;
+    private final ConfigHandler config;
+    private final LinkedHashMap<ResultKey, CachedResult> results;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private ResultCache() {
+        config = ConfigHandler.getInstance();
+        results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ResultKey, CachedResult> eldest) {
+                if (size() > config.getMaxReusedResults()) {
+                    evictions++;
+                    MyLogger.logHighLevelMsg("Result cache evicted " + eldest.getKey() + " (" + evictions + " evictions so far)");
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static ResultCache getInstance() {
+        ResultCache localVar = instance;
+        if (localVar != null) {
+            return localVar;
+        }
+
+        synchronized (ResultCache.class) {
+            if (instance == null) {
+                instance = new ResultCache();
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Gets the stored result for a request with these settings if there is
+     * one that hasn't expired yet, or calculates and stores a new one.
+     *
+     * @param requestSettings the settings of the request
+     * @param calculation the function that calculates the raw result
+     * @return the raw result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull StatRequest.Settings requestSettings, @NotNull Supplier<T> calculation) {
+        long maxAge = config.getResultReuseSeconds() * 1000L;
+        if (maxAge <= 0) {
+            return calculation.get();
+        }
+
+        ResultKey cacheKey = ResultKey.of(requestSettings);
+        synchronized (this) {
+            CachedResult cachedResult = results.get(cacheKey);
+            if (cachedResult != null) {
+                if (System.currentTimeMillis() - cachedResult.creationTime() < maxAge) {
+                    hits++;
+                    logHitRate("Result cache hit for " + cacheKey);
+                    return (T) cachedResult.value();
+                }
+                results.remove(cacheKey);
+            }
+            misses++;
+            logHitRate("Result cache miss for " + cacheKey);
+        }
+
+        T value = calculation.get();
+        synchronized (this) {
+            results.put(cacheKey, new CachedResult(value, System.currentTimeMillis()));
+        }
+        return value;
+    }
+
+    /**
+     * Removes all stored results, because they might
+     * no longer be correct.
+     */
+    public synchronized void clear() {
+        if (!results.isEmpty()) {
+            results.clear();
+            MyLogger.logMediumLevelMsg("Cleared all re-usable results");
+        }
+    }
+
+    private void logHitRate(String content) {
+        long hitRate = (100 * hits) / (hits + misses);
+        MyLogger.logHighLevelMsg(content + " (" + hits + " hits, " + misses + " misses, " + hitRate + "% hit rate)");
+    }
+
+    private record CachedResult(Object value, long creationTime) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.artemis.the.gr8.playerstats.core.statrequest;
+
+import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.api.enums.Target;
+import com.artemis.the.gr8.playerstats.api.enums.TimeWindow;
+import com.artemis.the.gr8.playerstats.core.statistic.StatKey;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Identifies the raw result of a top-, server- or breakdown-request (for a time
+ * window or not, and for top-lists ranked by value or by positions climbed):
+ * two requests with the same ResultKey always have the same result,
+ * no matter who sent them. The player a top-list is centered around is
+ * identified by their ordinal, so a name change does not matter.
+ */
+record ResultKey(Target target, StatKey statKey, int playerOrdinal, int topListOffset, int topListSize,
+                 @Nullable TimeWindow timeWindow, boolean rankChange) {
+
+    static @NotNull ResultKey of(@NotNull StatRequest.Settings requestSettings) {
+        if (requestSettings.getTarget() == Target.TOP) {
+            int playerOrdinal = (requestSettings.getPlayerName() != null) ?
+                    OfflinePlayerHandler.getInstance().getPlayerOrdinal(requestSettings.getPlayerName()) : -1;
+            return new ResultKey(Target.TOP, StatKey.of(requestSettings), playerOrdinal,
+                    requestSettings.getTopListOffset(), requestSettings.getTopListSize(), requestSettings.getTimeWindow(),
+                    requestSettings.isRankChange());
+        }
+        else if (requestSettings.getTarget() == Target.BREAKDOWN) {
+            return new ResultKey(Target.BREAKDOWN, StatKey.of(requestSettings), -1, 0, requestSettings.getTopListSize(), null, false);
+        }
+        return new ResultKey(requestSettings.getTarget(), StatKey.of(requestSettings), -1, 0, 0, requestSettings.getTimeWindow(), false);
+    }
+}
@@ -2,6 +2,8 @@ package com.artemis.the.gr8.playerstats.core.statrequest;
 
 import com.artemis.the.gr8.playerstats.api.RequestGenerator;
 import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
@@ -43,4 +45,22 @@ public final class ServerStatRequest extends StatRequest<Long> implements Reques
         super.configureEntityType(statistic, entityType);
         return this;
     }
+
+    @Override
+    public StatRequest<Long> subStatSet(@NotNull Statistic statistic, @NotNull String setName) {
+        if (!SubStatSet.exists(setName)) {
+            throw new IllegalArgumentException("\"" + setName + "\" is not the name of a sub-stat set");
+        }
+        super.configureSubStatSet(statistic, setName);
+        return this;
+    }
+
+    @Override
+    public StatRequest<Long> derived(@NotNull String derivedStatName) {
+        if (!DerivedStat.exists(derivedStatName)) {
+            throw new IllegalArgumentException("\"" + derivedStatName + "\" is not the name of a derived statistic");
+        }
+        super.configureDerived(derivedStatName);
+        return this;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.artemis.the.gr8.playerstats.core.statrequest;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+
+/**
+ * The raw result of a top-request: the players on it, and the number
+ * of positions in the full top-list that come before the first one.
+ */
+record TopStatPage(int topListOffset, @NotNull LinkedHashMap<String, Integer> topStats) {
+}
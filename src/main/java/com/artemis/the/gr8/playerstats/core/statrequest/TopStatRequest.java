@@ -2,6 +2,9 @@ package com.artemis.the.gr8.playerstats.core.statrequest;
 
 import com.artemis.the.gr8.playerstats.api.RequestGenerator;
 import com.artemis.the.gr8.playerstats.api.StatRequest;
+import com.artemis.the.gr8.playerstats.core.statistic.DerivedStat;
+import com.artemis.the.gr8.playerstats.core.statistic.SubStatSet;
+import com.artemis.the.gr8.playerstats.core.utils.OfflinePlayerHandler;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Statistic;
@@ -18,12 +21,41 @@ public final class TopStatRequest extends StatRequest<LinkedHashMap<String, Inte
     }
 
     public TopStatRequest(CommandSender sender, int topListSize) {
+        this(sender, 0, topListSize);
+    }
+
+    public TopStatRequest(int topListOffset, int topListSize) {
+        this(Bukkit.getConsoleSender(), topListOffset, topListSize);
+    }
+
+    public TopStatRequest(CommandSender sender, int topListOffset, int topListSize) {
         super(sender);
-        super.configureForTop(topListSize);
+        super.configureForTop(topListOffset, topListSize);
+    }
+
+    /**
+     * Creates a request for the players directly above and below this player.
+     */
+    public TopStatRequest(CommandSender sender, String playerName, int playersAboveAndBelow) {
+        super(sender);
+        super.configureForTopAroundPlayer(playerName, playersAboveAndBelow);
     }
 
     @Override
     public boolean isValid() {
+        StatRequest.Settings settings = super.getSettings();
+        if (settings.getTopListOffset() < 0 || settings.getTopListSize() < 0) {
+            return false;
+        }
+        //positions can only be climbed during a time window
+        if (settings.isRankChange() && settings.getTimeWindow() == null) {
+            return false;
+        }
+        //only included players have a position in the top-list
+        if (settings.getPlayerName() != null &&
+                !OfflinePlayerHandler.getInstance().isIncludedPlayer(settings.getPlayerName())) {
+            return false;
+        }
         return super.hasMatchingSubStat();
     }
 
@@ -44,4 +76,22 @@ public final class TopStatRequest extends StatRequest<LinkedHashMap<String, Inte
         super.configureEntityType(statistic, entityType);
         return this;
     }
+
+    @Override
+    public StatRequest<LinkedHashMap<String, Integer>> subStatSet(@NotNull Statistic statistic, @NotNull String setName) {
+        if (!SubStatSet.exists(setName)) {
+            throw new IllegalArgumentException("\"" + setName + "\" is not the name of a sub-stat set");
+        }
+        super.configureSubStatSet(statistic, setName);
+        return this;
+    }
+
+    @Override
+    public StatRequest<LinkedHashMap<String, Integer>> derived(@NotNull String derivedStatName) {
+        if (!DerivedStat.exists(derivedStatName)) {
+            throw new IllegalArgumentException("\"" + derivedStatName + "\" is not the name of a derived statistic");
+        }
+        super.configureDerived(derivedStatName);
+        return this;
+    }
 }
\ No newline at end of file
@@ -1,30 +1,41 @@
 package com.artemis.the.gr8.playerstats.core.utils;
 
+import com.artemis.the.gr8.playerstats.core.Main;
 import com.artemis.the.gr8.playerstats.core.config.ConfigHandler;
 import com.artemis.the.gr8.playerstats.core.multithreading.ThreadManager;
+import com.artemis.the.gr8.playerstats.core.statistic.StatSnapshot;
+import com.artemis.the.gr8.playerstats.core.statistic.StatStore;
+import com.artemis.the.gr8.playerstats.core.statrequest.ResultCache;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * A utility class that deals with OfflinePlayers. It stores a list
  * of all OfflinePlayer-names that need to be included in statistic
  * calculations, and can retrieve the corresponding OfflinePlayer
- * object for a given player-name.
+ * object for a given player-name. Every player it loads (included or
+ * excluded) is given a dense ordinal by its {@link PlayerRegistry}, which
+ * is used as index in the {@link com.artemis.the.gr8.playerstats.core.statistic.StatColumn}s,
+ * and can be looked up by name or UUID without going through Bukkit.
+ * These ordinals do not change for as long as the server is running.
  */
 public final class OfflinePlayerHandler extends FileHandler {
 
     private static volatile OfflinePlayerHandler instance;
     private final ConfigHandler config;
-    private static ConcurrentHashMap<String, UUID> includedPlayerUUIDs;
-    private static ConcurrentHashMap<String, UUID> excludedPlayerUUIDs;
+    private static final PlayerRegistry registry = new PlayerRegistry();
+    private static final List<OfflinePlayer> pendingJoins = new ArrayList<>();
+    private static boolean isLoading;
 
     private OfflinePlayerHandler() {
         super("excluded_players.yml");
@@ -61,24 +72,28 @@ public final class OfflinePlayerHandler extends FileHandler {
      * @return true if this player is included
      */
     public boolean isIncludedPlayer(String playerName) {
-        return includedPlayerUUIDs.containsKey(playerName);
+        int ordinal = registry.getOrdinal(playerName);
+        return ordinal != -1 && registry.isIncluded(ordinal);
     }
 
     public boolean isExcludedPlayer(String playerName) {
-        return excludedPlayerUUIDs.containsKey(playerName);
+        int ordinal = registry.getOrdinal(playerName);
+        return ordinal != -1 && registry.isExcluded(ordinal);
     }
 
     public boolean isExcludedPlayer(UUID uniqueID) {
-        return excludedPlayerUUIDs.containsValue(uniqueID);
+        int ordinal = registry.getOrdinal(uniqueID);
+        return ordinal != -1 && registry.isExcluded(ordinal);
     }
 
     public boolean addPlayerToExcludeList(String playerName) {
         if (isIncludedPlayer(playerName)) {
-            UUID uuid = includedPlayerUUIDs.get(playerName);
+            int ordinal = registry.getOrdinal(playerName);
+            UUID uuid = registry.getUUID(ordinal);
 
             super.writeEntryToList("excluded", uuid.toString());
-            includedPlayerUUIDs.remove(playerName);
-            excludedPlayerUUIDs.put(playerName, uuid);
+            registry.setIncluded(playerName, uuid, false);
+            StatStore.getInstance().removePlayer(ordinal);
             return true;
         }
         return false;
@@ -86,19 +101,53 @@ public final class OfflinePlayerHandler extends FileHandler {
 
     public boolean removePlayerFromExcludeList(String playerName) {
         if (isExcludedPlayer(playerName)) {
-            UUID uuid = excludedPlayerUUIDs.get(playerName);
+            UUID uuid = registry.getUUID(registry.getOrdinal(playerName));
 
             super.removeEntryFromList("excluded", uuid.toString());
-            excludedPlayerUUIDs.remove(playerName);
-            includedPlayerUUIDs.put(playerName, uuid);
+            int ordinal = registry.setIncluded(playerName, uuid, true);
+
+            //reading their stats-file takes too long for the main Thread
+            Bukkit.getScheduler().runTaskAsynchronously(Main.getPluginInstance(), () -> {
+                StatStore.getInstance().updatePlayer(ordinal);
+                ResultCache.getInstance().clear();
+            });
             return true;
         }
         return false;
     }
 
+    /**
+     * Adds a player who has just joined for the first time to the players
+     * that are included in statistic calculations, without loading all
+     * OfflinePlayers again. They are given the next ordinal, and are added
+     * to the loaded columns with a value of 0, so no files are read.
+     * If the OfflinePlayers are being (re)loaded right now, the player is
+     * added once that is done instead, because loading replaces all
+     * included players.
+     *
+     * @param player the player who joined
+     * @return true if the player has been added, or false if they
+     * should not be included, or have been put aside until loading is done
+     */
+    public boolean addJoinedPlayer(@NotNull OfflinePlayer player) {
+        synchronized (pendingJoins) {
+            if (isLoading) {
+                pendingJoins.add(player);
+                return false;
+            }
+        }
+        return includeJoinedPlayer(player);
+    }
+
     @Contract(" -> new")
     public @NotNull ArrayList<String> getExcludedPlayerNames() {
-        return Collections.list(excludedPlayerUUIDs.keys());
+        ArrayList<String> playerNames = new ArrayList<>();
+        for (int ordinal = 0; ordinal < registry.size(); ordinal++) {
+            if (registry.isExcluded(ordinal)) {
+                playerNames.add(registry.getName(ordinal));
+            }
+        }
+        return playerNames;
     }
 
     /**
@@ -109,7 +158,13 @@ public final class OfflinePlayerHandler extends FileHandler {
      */
     @Contract(" -> new")
     public @NotNull ArrayList<String> getIncludedOfflinePlayerNames() {
-        return Collections.list(includedPlayerUUIDs.keys());
+        ArrayList<String> playerNames = new ArrayList<>(registry.getIncludedCount());
+        for (int ordinal = 0; ordinal < registry.size(); ordinal++) {
+            if (registry.isIncluded(ordinal)) {
+                playerNames.add(registry.getName(ordinal));
+            }
+        }
+        return playerNames;
     }
 
     /**
@@ -119,11 +174,11 @@ public final class OfflinePlayerHandler extends FileHandler {
      * @return the number of included OfflinePlayers
      */
     public int getIncludedPlayerCount() {
-        return includedPlayerUUIDs.size();
+        return registry.getIncludedCount();
     }
 
     /**
-     * Uses the playerName to get the player's UUID from a private HashMap,
+     * Uses the playerName to get the player's UUID from the {@link PlayerRegistry},
      * and uses the UUID to get the corresponding OfflinePlayer Object.
      *
      * @param playerName name of the target player (case-sensitive)
@@ -132,8 +187,20 @@ public final class OfflinePlayerHandler extends FileHandler {
      * of players that should be included in statistic calculations
      */
     public @NotNull OfflinePlayer getIncludedOfflinePlayer(String playerName) throws IllegalArgumentException {
-        if (includedPlayerUUIDs.get(playerName) != null) {
-            return Bukkit.getOfflinePlayer(includedPlayerUUIDs.get(playerName));
+        return Bukkit.getOfflinePlayer(registry.getUUID(getIncludedPlayerOrdinal(playerName)));
+    }
+
+    /**
+     * Gets the ordinal of an included player by name, without going through Bukkit.
+     *
+     * @param playerName name of the target player (case-sensitive)
+     * @return the ordinal
+     * @throws IllegalArgumentException if this player is not on the list
+     * of players that should be included in statistic calculations
+     */
+    public int getIncludedPlayerOrdinal(String playerName) throws IllegalArgumentException {
+        if (isIncludedPlayer(playerName)) {
+            return registry.getOrdinal(playerName);
         }
         else {
             MyLogger.logWarning("Cannot calculate statistics for player-name: " + playerName +
@@ -143,45 +210,184 @@ public final class OfflinePlayerHandler extends FileHandler {
         }
     }
 
+    /**
+     * Gets the ordinal of this player.
+     *
+     * @param uniqueID the UUID of the player
+     * @return the ordinal, or -1 if this player has not been given
+     * an ordinal (because they have never been included or excluded)
+     */
+    public int getPlayerOrdinal(UUID uniqueID) {
+        return registry.getOrdinal(uniqueID);
+    }
+
+    /**
+     * Gets the ordinal of the player who last had this name.
+     *
+     * @param playerName the name of the player (case-sensitive)
+     * @return the ordinal, or -1 if no player with this
+     * name has been given an ordinal
+     */
+    public int getPlayerOrdinal(String playerName) {
+        return registry.getOrdinal(playerName);
+    }
+
+    /**
+     * Gets the number of ordinals that have been given out
+     * (which is one higher than the highest ordinal).
+     *
+     * @return the number of ordinals
+     */
+    public int getPlayerOrdinalCount() {
+        return registry.size();
+    }
+
+    /**
+     * Checks if the player with this ordinal is currently
+     * included for /statistic lookups.
+     *
+     * @param ordinal the player-ordinal
+     * @return true if this player is included
+     */
+    public boolean isIncludedPlayer(int ordinal) {
+        return registry.isIncluded(ordinal);
+    }
+
+    /**
+     * Gets the name of the player with this ordinal. Included and excluded
+     * players always have a name, but the ordinals that were given out from
+     * a snapshot only get one once their player has been loaded.
+     *
+     * @param ordinal the player-ordinal
+     * @return the name, or null if this player has not been loaded (yet)
+     */
+    public @Nullable String getPlayerName(int ordinal) {
+        return registry.getName(ordinal);
+    }
+
+    public @NotNull UUID getPlayerUUID(int ordinal) {
+        return registry.getUUID(ordinal);
+    }
+
     public @NotNull OfflinePlayer getExcludedOfflinePlayer(String playerName) throws IllegalArgumentException {
-        if (excludedPlayerUUIDs.get(playerName) != null) {
-            return Bukkit.getOfflinePlayer(excludedPlayerUUIDs.get(playerName));
+        if (isExcludedPlayer(playerName)) {
+            return Bukkit.getOfflinePlayer(registry.getUUID(registry.getOrdinal(playerName)));
         }
         throw new IllegalArgumentException("There is no player on the exclude-list with this name");
     }
 
     private void loadOfflinePlayers() {
+        synchronized (pendingJoins) {
+            isLoading = true;
+        }
         Executors.newSingleThreadExecutor().execute(() -> {
-            loadExcludedPlayerNames();
+            //when the server has just started, continue from where the last snapshot left off
+            StatSnapshot snapshot = (registry.size() == 0) ? StatStore.getInstance().readSnapshot() : null;
+            boolean useSnapshot = snapshot != null && registry.seed(snapshot.getPlayerUUIDs());
+
+            loadExcludedPlayers();
             loadIncludedOfflinePlayers();
+            if (useSnapshot) {
+                StatStore.getInstance().restoreSnapshot(snapshot);
+            }
         });
     }
 
     private void loadIncludedOfflinePlayers() {
         long time = System.currentTimeMillis();
+        ConcurrentHashMap<String, UUID> includedPlayers = new ConcurrentHashMap<>(Math.max(16, registry.getIncludedCount()));
 
-        OfflinePlayer[] offlinePlayers;
-        if (config.whitelistOnly()) {
-            offlinePlayers = getWhitelistedPlayers();
-        } else if (config.excludeBanned()) {
-            offlinePlayers = getNonBannedPlayers();
+        //the whitelist is short, so it is quicker to load directly
+        PlayerIndex playerIndex = config.whitelistOnly() ? null : PlayerIndex.update();
+        if (playerIndex != null) {
+            loadFromPlayerIndex(playerIndex, includedPlayers);
         } else {
-            offlinePlayers = Bukkit.getOfflinePlayers();
+            OfflinePlayer[] offlinePlayers;
+            if (config.whitelistOnly()) {
+                offlinePlayers = getWhitelistedPlayers();
+            } else if (config.excludeBanned()) {
+                offlinePlayers = getNonBannedPlayers();
+            } else {
+                offlinePlayers = Bukkit.getOfflinePlayers();
+            }
+            ThreadManager.invoke(ThreadManager.getPlayerLoadAction(offlinePlayers, includedPlayers));
+            MyLogger.actionFinished();
         }
+        registry.replaceIncluded(includedPlayers);
+        includeJoinedPlayers();
 
-        int size = includedPlayerUUIDs != null ? includedPlayerUUIDs.size() : 16;
-        includedPlayerUUIDs = new ConcurrentHashMap<>(size);
+        MyLogger.logLowLevelTask(("Loaded " + includedPlayers.size() + " offline players"), time);
+    }
 
-        ForkJoinPool.commonPool().invoke(ThreadManager.getPlayerLoadAction(offlinePlayers, includedPlayerUUIDs));
+    /**
+     * Includes the players that joined for the first time while loading,
+     * and the first-time players that are still online (whose playerdata-file
+     * might not have been written yet, so loading can have missed them).
+     */
+    private void includeJoinedPlayers() {
+        List<OfflinePlayer> joinedPlayers;
+        synchronized (pendingJoins) {
+            joinedPlayers = new ArrayList<>(pendingJoins);
+            pendingJoins.clear();
+            isLoading = false;
+        }
+        Bukkit.getOnlinePlayers().stream()
+                .filter(Predicate.not(OfflinePlayer::hasPlayedBefore))
+                .forEach(joinedPlayers::add);
+        joinedPlayers.forEach(this::includeJoinedPlayer);
+    }
 
-        MyLogger.actionFinished();
-        MyLogger.logLowLevelTask(("Loaded " + includedPlayerUUIDs.size() + " offline players"), time);
+    /**
+     * Includes this first-time player with a value of 0 for every statistic,
+     * unless they should not be included, or are included already
+     * (in which case their values have been read from their files).
+     */
+    private boolean includeJoinedPlayer(@NotNull OfflinePlayer player) {
+        String playerName = player.getName();
+        int ordinal = registry.getOrdinal(player.getUniqueId());
+        if (playerName == null ||
+                (ordinal != -1 && (registry.isIncluded(ordinal) || registry.isExcluded(ordinal))) ||
+                (config.whitelistOnly() && !player.isWhitelisted())) {
+            return false;
+        }
+        StatStore.getInstance().addPlayer(registry.setIncluded(playerName, player.getUniqueId(), true));
+        MyLogger.logMediumLevelMsg("Added " + playerName + " to the included players");
+        return true;
     }
 
-    private void loadExcludedPlayerNames() {
+    /**
+     * Applies the same filters as the {@link com.artemis.the.gr8.playerstats.core.multithreading.PlayerLoadAction}
+     * to the players in the index, without creating an OfflinePlayer for any of them.
+     * If LiteBans is used, the banned-status is taken from the index, otherwise
+     * the server's ban-list is checked, so players who were banned while offline
+     * are excluded as well.
+     */
+    private void loadFromPlayerIndex(@NotNull PlayerIndex playerIndex, @NotNull Map<String, UUID> mapToFill) {
+        int lastPlayedLimit = config.getLastPlayedLimit();
+        boolean excludeBanned = config.excludeBanned();
+        Set<UUID> bannedUUIDs = (excludeBanned && !Bukkit.getPluginManager().isPluginEnabled("LiteBans")) ?
+                Bukkit.getBannedPlayers().stream()
+                        .map(OfflinePlayer::getUniqueId)
+                        .collect(Collectors.toSet()) :
+                null;
+
+        for (int i = 0; i < playerIndex.size(); i++) {
+            UUID uniqueID = playerIndex.getUniqueID(i);
+            String playerName = playerIndex.getName(i);
+            boolean isBanned = (bannedUUIDs != null) ? bannedUUIDs.contains(uniqueID) : playerIndex.isBanned(i);
+            if (playerName != null &&
+                    !isExcludedPlayer(uniqueID) &&
+                    !(excludeBanned && isBanned) &&
+                    UnixTimeHandler.hasPlayedSince(lastPlayedLimit, playerIndex.getLastPlayed(i))) {
+                mapToFill.put(playerName, uniqueID);
+            }
+        }
+    }
+
+    private void loadExcludedPlayers() {
         long time = System.currentTimeMillis();
 
-        excludedPlayerUUIDs = new ConcurrentHashMap<>();
+        HashMap<String, UUID> excludedPlayers = new HashMap<>();
         List<String> excluded = super.getFileConfiguration().getStringList("excluded");
         excluded.stream()
                 .filter(Objects::nonNull)
@@ -190,29 +396,34 @@ public final class OfflinePlayerHandler extends FileHandler {
                             OfflinePlayer player = Bukkit.getOfflinePlayer(uuid);
                             String playerName = player.getName();
                             if (playerName != null) {
-                                excludedPlayerUUIDs.put(playerName, uuid);
+                                excludedPlayers.put(playerName, uuid);
                             }
                         });
+        registry.replaceExcluded(excludedPlayers);
 
-        MyLogger.logLowLevelTask("Loaded " + excludedPlayerUUIDs.size() + " excluded players from file", time);
+        MyLogger.logLowLevelTask("Loaded " + excludedPlayers.size() + " excluded players from file", time);
     }
 
     private OfflinePlayer[] getWhitelistedPlayers() {
         return Bukkit.getWhitelistedPlayers().toArray(OfflinePlayer[]::new);
     }
 
+    /**
+     * Parallel streams that are started from inside a ForkJoinTask run in that
+     * task's pool, so these are wrapped to keep them out of the common pool.
+     */
     private @NotNull OfflinePlayer[] getNonBannedPlayers() {
         if (Bukkit.getPluginManager().isPluginEnabled("LiteBans")) {
-            return Arrays.stream(Bukkit.getOfflinePlayers())
+            return ThreadManager.invoke(ForkJoinTask.adapt(() -> Arrays.stream(Bukkit.getOfflinePlayers())
                     .parallel()
                     .filter(Predicate.not(OfflinePlayer::isBanned))
-                    .toArray(OfflinePlayer[]::new);
+                    .toArray(OfflinePlayer[]::new)));
         }
 
         Set<OfflinePlayer> banList = Bukkit.getBannedPlayers();
-        return Arrays.stream(Bukkit.getOfflinePlayers())
+        return ThreadManager.invoke(ForkJoinTask.adapt(() -> Arrays.stream(Bukkit.getOfflinePlayers())
                 .parallel()
                 .filter(Predicate.not(banList::contains))
-                .toArray(OfflinePlayer[]::new);
+                .toArray(OfflinePlayer[]::new)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package com.artemis.the.gr8.playerstats.core.utils;
+
+import com.artemis.the.gr8.playerstats.core.Main;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A compact index of every player that has a playerdata-file in the main
+ * world, with their name, the time they last played and whether they were
+ * banned, so the {@link OfflinePlayerHandler} does not have to create an
+ * OfflinePlayer for every player on every start or reload.
+ *
+ * <p>The index is stored in a binary file in the plugin's data folder,
+ * which is read with a single memory-mapped pass. Only the players whose
+ * playerdata-file has changed since it was written (or who are new) are
+ * looked up through Bukkit again, and the index is written again afterwards.
+ * Names and last-played times can only change when a player joins, which
+ * always changes their playerdata-file. A player who was banned while
+ * offline is not noticed this way, so the {@link OfflinePlayerHandler}
+ * checks the server's ban-list itself when it can.
+ */
+final class PlayerIndex {
+
+    private static final String FILE_NAME = "player-index.bin";
+    private static final int MAGIC_NUMBER = 0x50535049;
+    private static final int VERSION = 1;
+    /** Playerdata-files that were modified this close before the index was written are looked up again, to be safe. */
+    private static final long MODIFICATION_TIME_MARGIN = 2000;
+
+    private final long creationTime;
+    private final UUID[] uniqueIDs;
+    private final String[] names;
+    private final long[] lastPlayed;
+    private final boolean[] banned;
+    private final int size;
+
+    private PlayerIndex(long creationTime, UUID[] uniqueIDs, String[] names, long[] lastPlayed, boolean[] banned, int size) {
+        this.creationTime = creationTime;
+        this.uniqueIDs = uniqueIDs;
+        this.names = names;
+        this.lastPlayed = lastPlayed;
+        this.banned = banned;
+        this.size = size;
+    }
+
+    /**
+     * Reads the stored index, looks up the players whose playerdata-file has
+     * changed since then through Bukkit, and stores the updated index again.
+     * If there is no (valid) stored index, all players are looked up.
+     *
+     * @return the up-to-date index, or null if the playerdata-folder
+     * of the main world cannot be found
+     */
+    static @Nullable PlayerIndex update() {
+        List<World> worlds = Bukkit.getWorlds();
+        if (worlds.isEmpty()) {
+            return null;
+        }
+        World mainWorld = worlds.get(0);
+        File[] playerdataFiles = new File(mainWorld.getWorldFolder(), "playerdata")
+                .listFiles((folder, fileName) -> fileName.endsWith(".dat"));
+        if (playerdataFiles == null) {
+            return null;
+        }
+        long time = System.currentTimeMillis();
+        File file = new File(Main.getPluginInstance().getDataFolder(), FILE_NAME);
+        PlayerIndex storedIndex = read(file, mainWorld.getName());
+
+        HashMap<UUID, Integer> storedPositions = new HashMap<>();
+        if (storedIndex != null) {
+            for (int i = 0; i < storedIndex.size; i++) {
+                storedPositions.put(storedIndex.uniqueIDs[i], i);
+            }
+        }
+
+        UUID[] uniqueIDs = new UUID[playerdataFiles.length];
+        String[] names = new String[playerdataFiles.length];
+        long[] lastPlayed = new long[playerdataFiles.length];
+        boolean[] banned = new boolean[playerdataFiles.length];
+        int size = 0;
+        int lookupCount = 0;
+        for (File playerdataFile : playerdataFiles) {
+            String fileName = playerdataFile.getName();
+            UUID uniqueID;
+            try {
+                uniqueID = UUID.fromString(fileName.substring(0, fileName.length() - ".dat".length()));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+
+            Integer storedPosition = storedPositions.get(uniqueID);
+            if (storedPosition != null &&
+                    playerdataFile.lastModified() < storedIndex.creationTime - MODIFICATION_TIME_MARGIN) {
+                names[size] = storedIndex.names[storedPosition];
+                lastPlayed[size] = storedIndex.lastPlayed[storedPosition];
+                banned[size] = storedIndex.banned[storedPosition];
+            } else {
+                OfflinePlayer player = Bukkit.getOfflinePlayer(uniqueID);
+                names[size] = player.getName();
+                lastPlayed[size] = player.getLastPlayed();
+                banned[size] = player.isBanned();
+                lookupCount++;
+            }
+            uniqueIDs[size] = uniqueID;
+            size++;
+        }
+
+        PlayerIndex playerIndex = new PlayerIndex(time, uniqueIDs, names, lastPlayed, banned, size);
+        if (lookupCount > 0 || storedIndex == null || storedIndex.size != size) {
+            playerIndex.write(file, mainWorld.getName());
+        }
+        MyLogger.logLowLevelTask("Updated the player index (" + lookupCount + " of " + size + " players looked up)", time);
+        return playerIndex;
+    }
+
+    /**
+     * @return the number of players in this index
+     */
+    int size() {
+        return size;
+    }
+
+    @NotNull UUID getUniqueID(int index) {
+        return uniqueIDs[index];
+    }
+
+    /**
+     * @return the name of this player, or null if
+     * the server does not know it
+     */
+    @Nullable String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return the last time this player played, in milliseconds
+     */
+    long getLastPlayed(int index) {
+        return lastPlayed[index];
+    }
+
+    /**
+     * @return true if this player was banned when they were last looked up
+     */
+    boolean isBanned(int index) {
+        return banned[index];
+    }
+
+    /**
+     * Writes this index to a temporary file first,
+     * so a crash can never leave a half-written index.
+     */
+    private void write(@NotNull File file, @NotNull String worldName) {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()), 1 << 16))) {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(VERSION);
+            out.writeLong(creationTime);
+            writeString(out, worldName);
+
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(uniqueIDs[i].getMostSignificantBits());
+                out.writeLong(uniqueIDs[i].getLeastSignificantBits());
+                out.writeLong(lastPlayed[i]);
+                out.writeBoolean(banned[i]);
+                writeString(out, names[i] != null ? names[i] : "");
+            }
+        }
+        catch (IOException e) {
+            MyLogger.logException(e, "PlayerIndex", "write()");
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            MyLogger.logException(e, "PlayerIndex", "write(), trying to replace " + file.getName());
+        }
+    }
+
+    /**
+     * Maps the stored index into memory and reads it.
+     *
+     * @return the index, or null if there is no valid index for this world
+     */
+    private static @Nullable PlayerIndex read(@NotNull File file, @NotNull String worldName) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long creationTime = buffer.getLong();
+            if (!worldName.equals(readString(buffer))) {
+                return null;
+            }
+
+            int size = buffer.getInt();
+            UUID[] uniqueIDs = new UUID[size];
+            String[] names = new String[size];
+            long[] lastPlayed = new long[size];
+            boolean[] banned = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                uniqueIDs[i] = new UUID(buffer.getLong(), buffer.getLong());
+                lastPlayed[i] = buffer.getLong();
+                banned[i] = buffer.get() != 0;
+                String name = readString(buffer);
+                names[i] = name.isEmpty() ? null : name;
+            }
+            return new PlayerIndex(creationTime, uniqueIDs, names, lastPlayed, banned, size);
+        }
+        catch (IOException | BufferUnderflowException | NegativeArraySizeException | IllegalArgumentException e) {
+            MyLogger.logException(e, "PlayerIndex", "read()");
+            return null;
+        }
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @NotNull String readString(@NotNull ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,244 @@
+package com.artemis.the.gr8.playerstats.core.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every player PlayerStats knows about (whether they are included in
+ * statistic calculations or not) a dense ordinal, and can look up a player's
+ * ordinal by UUID or by name, and their UUID and name by ordinal, in O(1).
+ * Whether a player is included or excluded is stored in two bitsets that are
+ * indexed by the same ordinals.
+ *
+ * <p>All changes are made while holding the registry's lock, and are published
+ * by writing to a volatile field afterwards, so reading never needs a lock.
+ * A bitset that has been published is never changed again: every change is
+ * made to a copy, which replaces it. The number of included players is
+ * published right after the included bitset, so it can briefly lag behind it.
+ * Ordinals do not change for as long as the server is running.
+ */
+final class PlayerRegistry {
+
+    private final ConcurrentHashMap<UUID, Integer> uuidOrdinals;
+    private final ConcurrentHashMap<String, Integer> nameOrdinals;
+    private volatile UUID[] uuids;
+    private volatile String[] names;
+    private volatile int count;
+
+    private volatile long[] includedBits;
+    private volatile long[] excludedBits;
+    private volatile int includedCount;
+
+    PlayerRegistry() {
+        uuidOrdinals = new ConcurrentHashMap<>();
+        nameOrdinals = new ConcurrentHashMap<>();
+        uuids = new UUID[16];
+        names = new String[16];
+        includedBits = new long[1];
+        excludedBits = new long[1];
+    }
+
+    /**
+     * @return the number of ordinals that have been given out
+     * (which is one higher than the highest ordinal)
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return the ordinal of this player, or -1 if they are not registered
+     */
+    int getOrdinal(@NotNull UUID uniqueID) {
+        return uuidOrdinals.getOrDefault(uniqueID, -1);
+    }
+
+    /**
+     * @param playerName the name of the player (case-sensitive)
+     * @return the ordinal of the player who last had this name,
+     * or -1 if there is none
+     */
+    int getOrdinal(@NotNull String playerName) {
+        return nameOrdinals.getOrDefault(playerName, -1);
+    }
+
+    UUID getUUID(int ordinal) {
+        return uuids[ordinal];
+    }
+
+    @Nullable String getName(int ordinal) {
+        return names[ordinal];
+    }
+
+    boolean isIncluded(int ordinal) {
+        return getBit(includedBits, ordinal);
+    }
+
+    boolean isExcluded(int ordinal) {
+        return getBit(excludedBits, ordinal);
+    }
+
+    /**
+     * @return the number of players that are included
+     */
+    int getIncludedCount() {
+        return includedCount;
+    }
+
+    /**
+     * Gives this player a new ordinal, or returns the ordinal they have been
+     * given before, and makes their name point to that ordinal.
+     *
+     * @return the ordinal
+     */
+    synchronized int register(@NotNull String playerName, @NotNull UUID uniqueID) {
+        Integer existingOrdinal = uuidOrdinals.get(uniqueID);
+        int ordinal;
+        if (existingOrdinal != null) {
+            ordinal = existingOrdinal;
+            String oldName = names[ordinal];
+            if (oldName != null && !oldName.equals(playerName)) {
+                nameOrdinals.remove(oldName, ordinal);
+            }
+        }
+        else {
+            ordinal = count;
+            if (ordinal == uuids.length) {
+                int newLength = ordinal + (ordinal >> 1);
+                uuids = Arrays.copyOf(uuids, newLength);
+                names = Arrays.copyOf(names, newLength);
+            }
+            uuids[ordinal] = uniqueID;
+            uuidOrdinals.put(uniqueID, ordinal);
+        }
+        names[ordinal] = playerName;
+        nameOrdinals.put(playerName, ordinal);
+        count = Math.max(count, ordinal + 1);
+        return ordinal;
+    }
+
+    /**
+     * Gives these players the ordinals they had when a snapshot was written
+     * (their index in the array). This is only possible before any other
+     * ordinals have been given out. Their names are filled in when they
+     * are registered.
+     *
+     * @return true if the ordinals have been given out
+     */
+    synchronized boolean seed(@NotNull UUID[] uniqueIDs) {
+        if (count != 0) {
+            return false;
+        }
+        int length = Math.max(16, uniqueIDs.length + (uniqueIDs.length >> 1));
+        uuids = Arrays.copyOf(uniqueIDs, length);
+        names = new String[length];
+        for (int ordinal = 0; ordinal < uniqueIDs.length; ordinal++) {
+            uuidOrdinals.put(uniqueIDs[ordinal], ordinal);
+        }
+        count = uniqueIDs.length;
+        return true;
+    }
+
+    /**
+     * Registers these players, and replaces the excluded bitset with one that
+     * contains only them. They are removed from the included players as well.
+     *
+     * @param excludedPlayers the names and UUIDs of the excluded players
+     */
+    synchronized void replaceExcluded(@NotNull Map<String, UUID> excludedPlayers) {
+        long[] newExcludedBits = registerAll(excludedPlayers);
+        long[] newIncludedBits = Arrays.copyOf(includedBits, includedBits.length);
+        for (int word = 0; word < Math.min(newIncludedBits.length, newExcludedBits.length); word++) {
+            newIncludedBits[word] &= ~newExcludedBits[word];
+        }
+        excludedBits = newExcludedBits;
+        includedBits = newIncludedBits;
+        includedCount = countBits(newIncludedBits);
+    }
+
+    /**
+     * Registers these players, and replaces the included bitset with one that
+     * contains only them, so no one sees a state in between. They are registered
+     * after the excluded players, so a name that belongs to both an excluded and
+     * an included player (after a name change) points to the included one.
+     *
+     * @param includedPlayers the names and UUIDs of the included players
+     */
+    synchronized void replaceIncluded(@NotNull Map<String, UUID> includedPlayers) {
+        long[] newIncludedBits = registerAll(includedPlayers);
+        includedBits = newIncludedBits;
+        includedCount = countBits(newIncludedBits);
+    }
+
+    /**
+     * Registers this player, and marks them as included or excluded.
+     *
+     * @return the ordinal of the player
+     */
+    synchronized int setIncluded(@NotNull String playerName, @NotNull UUID uniqueID, boolean isIncluded) {
+        int ordinal = register(playerName, uniqueID);
+        int newIncludedCount = includedCount;
+        if (isIncluded(ordinal) != isIncluded) {
+            newIncludedCount += isIncluded ? 1 : -1;
+        }
+        long[] newIncludedBits = withBit(includedBits, ordinal, isIncluded);
+        long[] newExcludedBits = withBit(excludedBits, ordinal, !isIncluded);
+        excludedBits = newExcludedBits;
+        includedBits = newIncludedBits;
+        includedCount = newIncludedCount;
+        return ordinal;
+    }
+
+    /**
+     * Registers these players, and builds a new bitset
+     * in which only their ordinals are set.
+     */
+    private long[] registerAll(@NotNull Map<String, UUID> players) {
+        int[] ordinals = new int[players.size()];
+        int i = 0;
+        for (Map.Entry<String, UUID> entry : players.entrySet()) {
+            ordinals[i++] = register(entry.getKey(), entry.getValue());
+        }
+        long[] bits = new long[(count + 63) >>> 6];
+        for (int ordinal : ordinals) {
+            bits[ordinal >>> 6] |= (1L << ordinal);
+        }
+        return bits;
+    }
+
+    private static boolean getBit(long[] bits, int index) {
+        int word = index >>> 6;
+        return index >= 0 && word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a bit in a copy of this bitset (which is made larger if needed),
+     * so a bitset that readers might be looking at is never changed.
+     */
+    private static long[] withBit(long[] bits, int index, boolean value) {
+        int word = index >>> 6;
+        if (word >= bits.length && !value) {
+            return bits;
+        }
+        bits = Arrays.copyOf(bits, Math.max(bits.length, word + 1));
+        if (value) {
+            bits[word] |= (1L << index);
+        } else {
+            bits[word] &= ~(1L << index);
+        }
+        return bits;
+    }
+
+    private static int countBits(long[] bits) {
+        int bitCount = 0;
+        for (long word : bits) {
+            bitCount += Long.bitCount(word);
+        }
+        return bitCount;
+    }
+}
@@ -0,0 +1,116 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.api.StatDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    /** The sketch is randomized, so this is well above its typical rank-error of about 1%. */
+    private static final double MAX_RANK_ERROR = 0.03;
+
+    private static void assertRankError(int[] sortedValues, QuantileSketch sketch, double fraction) {
+        int estimate = sketch.getQuantile(fraction);
+        int lowestRank = lowerBound(sortedValues, estimate);
+        int highestRank = lowerBound(sortedValues, estimate + 1);
+        double targetRank = fraction * sortedValues.length;
+        double error = (targetRank < lowestRank) ? lowestRank - targetRank :
+                (targetRank > highestRank) ? targetRank - highestRank : 0;
+        assertTrue(error / sortedValues.length <= MAX_RANK_ERROR,
+                "quantile " + fraction + " was estimated as " + estimate + ", which is off by " + error + " ranks");
+    }
+
+    private static int lowerBound(int[] sortedValues, int value) {
+        int index = Arrays.binarySearch(sortedValues, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sortedValues[index - 1] == value) {
+            index--;
+        }
+        return index;
+    }
+
+    @Test
+    void emptySketchGivesZeros() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertEquals(0, sketch.getCount());
+        assertEquals(0, sketch.getQuantile(0.5));
+        assertEquals(new StatDistribution(0, 0, 0, 0, 0, 0, 0, 0, 0, 0), sketch.toDistribution());
+    }
+
+    @Test
+    void smallInputIsExact() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int value = 1; value <= 100; value++) {
+            sketch.add(value);
+        }
+        StatDistribution distribution = sketch.toDistribution();
+
+        assertEquals(100, distribution.playerCount());
+        assertEquals(1, distribution.min());
+        assertEquals(100, distribution.max());
+        assertEquals(50.5, distribution.mean(), 1e-9);
+        assertEquals(50, distribution.median());
+        assertEquals(90, distribution.percentile90());
+    }
+
+    @Test
+    void estimatesQuantilesOfManyValues() {
+        Random random = new Random(3);
+        int[] values = new int[200_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            //a long tail, like most statistics
+            values[i] = (int) Math.min(Integer.MAX_VALUE, Math.exp(random.nextDouble() * 15));
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        StatDistribution distribution = sketch.toDistribution();
+        assertEquals(values.length, distribution.playerCount());
+        assertEquals(values[0], distribution.min());
+        assertEquals(values[values.length - 1], distribution.max());
+        for (double fraction : new double[]{0.01, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+            assertRankError(values, sketch, fraction);
+        }
+    }
+
+    @Test
+    void mergedSketchesMatchOneSketch() {
+        Random random = new Random(11);
+        int[] values = random.ints(100_000, 0, 1_000_000).toArray();
+        QuantileSketch merged = new QuantileSketch();
+        for (int part = 0; part < 8; part++) {
+            QuantileSketch sketch = new QuantileSketch();
+            for (int i = part; i < values.length; i += 8) {
+                sketch.add(values[i]);
+            }
+            merged.merge(sketch);
+        }
+        merged.merge(new QuantileSketch());
+        Arrays.sort(values);
+
+        assertEquals(values.length, merged.getCount());
+        assertEquals(Arrays.stream(values).average().orElse(0), merged.toDistribution().mean(), 1e-6);
+        for (double fraction : new double[]{0.1, 0.5, 0.9}) {
+            assertRankError(values, merged, fraction);
+        }
+    }
+
+    @Test
+    void quantilesStayWithinTheRange() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(42);
+        }
+        assertEquals(42, sketch.getQuantile(0));
+        assertEquals(42, sketch.getQuantile(0.5));
+        assertEquals(42, sketch.getQuantile(1));
+    }
+}
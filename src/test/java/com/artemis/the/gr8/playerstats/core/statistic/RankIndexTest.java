@@ -0,0 +1,137 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import com.artemis.the.gr8.playerstats.api.PlayerRank;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankIndexTest {
+
+    private static RankIndex build(int... values) {
+        long[] keys = IntStream.range(0, values.length)
+                .mapToLong(ordinal -> RankIndex.toKey(ordinal, values[ordinal]))
+                .sorted()
+                .toArray();
+        return new RankIndex(values.length, keys);
+    }
+
+    @Test
+    void countsHigherAndLowerValues() {
+        RankIndex rankIndex = build(5, 10, 10, 0, 20);
+
+        assertEquals(5, rankIndex.size());
+        assertEquals(1, rankIndex.countHigher(10));
+        assertEquals(2, rankIndex.countLower(10));
+        assertEquals(0, rankIndex.countHigher(20));
+        assertEquals(0, rankIndex.countLower(0));
+        assertEquals(5, rankIndex.countHigher(-1));
+    }
+
+    @Test
+    void playersWithTheSameValueShareARank() {
+        RankIndex rankIndex = build(5, 10, 10, 0, 20);
+
+        PlayerRank rank = rankIndex.getRank(10);
+        assertEquals(2, rank.rank());
+        assertEquals(5, rank.playerCount());
+        assertEquals(40.0, rank.percentile(), 1e-9);
+    }
+
+    @Test
+    void updateInsertsAndMovesPlayers() {
+        RankIndex rankIndex = build(5, 10);
+
+        rankIndex.update(2, 7);
+        assertEquals(3, rankIndex.size());
+        assertEquals(1, rankIndex.getPosition(2));
+
+        rankIndex.update(0, 30);
+        assertEquals(3, rankIndex.size());
+        assertEquals(0, rankIndex.getPosition(0));
+        assertEquals(0, rankIndex.countHigher(30));
+        assertEquals(2, rankIndex.countLower(30));
+
+        //an ordinal beyond the initial capacity
+        rankIndex.update(100, 1);
+        assertEquals(4, rankIndex.size());
+        assertEquals(3, rankIndex.getPosition(100));
+    }
+
+    @Test
+    void removeTakesPlayersOut() {
+        RankIndex rankIndex = build(5, 10, 15);
+
+        rankIndex.remove(1);
+        assertEquals(2, rankIndex.size());
+        assertEquals(-1, rankIndex.getPosition(1));
+        assertEquals(1, rankIndex.countHigher(5));
+
+        //removing a player that is not in the index does nothing
+        rankIndex.remove(1);
+        rankIndex.remove(50);
+        assertEquals(2, rankIndex.size());
+    }
+
+    @Test
+    void sliceListsPlayersFromHighToLow() {
+        RankIndex rankIndex = build(5, 10, 10, 0, 20);
+
+        int[] ordinals = new int[3];
+        int[] values = new int[3];
+        assertEquals(3, rankIndex.getSlice(1, ordinals, values));
+        assertArrayEquals(new int[]{1, 2, 0}, ordinals);
+        assertArrayEquals(new int[]{10, 10, 5}, values);
+
+        assertEquals(1, rankIndex.getSlice(4, ordinals, values));
+        assertEquals(3, ordinals[0]);
+        assertEquals(0, rankIndex.getSlice(5, ordinals, values));
+    }
+
+    @Test
+    void matchesASortedArrayAfterRandomChanges() {
+        Random random = new Random(42);
+        int playerCount = 500;
+        int[] values = random.ints(playerCount, 0, 100).toArray();
+        boolean[] present = new boolean[playerCount];
+        Arrays.fill(present, true);
+        RankIndex rankIndex = build(values);
+
+        for (int i = 0; i < 5_000; i++) {
+            int ordinal = random.nextInt(playerCount);
+            if (random.nextInt(5) == 0) {
+                rankIndex.remove(ordinal);
+                present[ordinal] = false;
+            } else {
+                values[ordinal] = random.nextInt(100);
+                rankIndex.update(ordinal, values[ordinal]);
+                present[ordinal] = true;
+            }
+        }
+
+        int[] expectedOrdinals = IntStream.range(0, playerCount)
+                .filter(ordinal -> present[ordinal])
+                .boxed()
+                .sorted((a, b) -> values[a] != values[b] ? Integer.compare(values[b], values[a]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertEquals(expectedOrdinals.length, rankIndex.size());
+
+        int[] ordinals = new int[expectedOrdinals.length];
+        int[] sliceValues = new int[expectedOrdinals.length];
+        assertEquals(expectedOrdinals.length, rankIndex.getSlice(0, ordinals, sliceValues));
+        assertArrayEquals(expectedOrdinals, ordinals);
+
+        for (int value = -1; value <= 100; value++) {
+            final int compareTo = value;
+            long higher = Arrays.stream(expectedOrdinals).filter(ordinal -> values[ordinal] > compareTo).count();
+            long lower = Arrays.stream(expectedOrdinals).filter(ordinal -> values[ordinal] < compareTo).count();
+            assertEquals(higher, rankIndex.countHigher(value));
+            assertEquals(lower, rankIndex.countLower(value));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatFileParserTest {
+
+    private static final String STATS_FILE = """
+            {
+              "stats": {
+                "minecraft:mined": {
+                  "minecraft:stone": 120,
+                  "minecraft:diamond_ore": 7,
+                  "minecraft:dirt": 40
+                },
+                "minecraft:custom": {"minecraft:jump": 300, "minecraft:play_time": 72000},
+                "minecraft:killed": {}
+              },
+              "DataVersion": 3337
+            }""";
+
+    private static StatFileParser parse(String json) {
+        StatFileParser parser = new StatFileParser();
+        parser.reset(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        return parser;
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void findsASingleValue() {
+        assertEquals(7, parse(STATS_FILE).find(bytes("minecraft:mined"), bytes("minecraft:diamond_ore")));
+        assertEquals(72000, parse(STATS_FILE).find(bytes("minecraft:custom"), bytes("minecraft:play_time")));
+    }
+
+    @Test
+    void missingValuesAreZero() {
+        assertEquals(0, parse(STATS_FILE).find(bytes("minecraft:mined"), bytes("minecraft:gold_ore")));
+        assertEquals(0, parse(STATS_FILE).find(bytes("minecraft:killed"), bytes("minecraft:zombie")));
+        assertEquals(0, parse(STATS_FILE).find(bytes("minecraft:crafted"), bytes("minecraft:stick")));
+        assertEquals(0, parse("{\"DataVersion\": 3337}").find(bytes("minecraft:mined"), bytes("minecraft:stone")));
+    }
+
+    @Test
+    void findsSeveralValuesInOnePass() {
+        byte[][] categories = {bytes("minecraft:custom"), bytes("minecraft:mined"), bytes("minecraft:mined"), bytes("minecraft:killed")};
+        byte[][][] entries = {
+                {bytes("minecraft:jump")},
+                {bytes("minecraft:stone"), bytes("minecraft:dirt")},
+                null,
+                null};
+        int[] results = new int[categories.length];
+        Arrays.fill(results, -1);
+
+        parse(STATS_FILE).findAll(categories, entries, results);
+        assertArrayEquals(new int[]{300, 160, 167, 0}, results);
+    }
+
+    @Test
+    void addsUpSortedEntries() {
+        byte[][] sortedEntries = {bytes("minecraft:diamond_ore"), bytes("minecraft:dirt"), bytes("minecraft:stone")};
+        Arrays.sort(sortedEntries, Arrays::compareUnsigned);
+        int[] totalIndices = {0, 1, 1};
+        long[] totals = {1, 1};
+
+        parse(STATS_FILE).addAll(bytes("minecraft:mined"), sortedEntries, totalIndices, totals);
+        assertEquals(8, totals[0]);
+        assertEquals(161, totals[1]);
+    }
+
+    @Test
+    void skipsNestedAndEscapedValues() {
+        String json = """
+                {"extra": {"list": [1, {"x": "a\\"}b"}], "s": "}"},
+                 "stats": {"minecraft:custom": {"minecraft:\\"jump": 5, "minecraft:jump": 9}}}""";
+        assertEquals(9, parse(json).find(bytes("minecraft:custom"), bytes("minecraft:jump")));
+    }
+
+    @Test
+    void largeValuesAreCapped() {
+        String json = "{\"stats\": {\"minecraft:custom\": {\"minecraft:play_time\": 99999999999}}}";
+        assertEquals(Integer.MAX_VALUE, parse(json).find(bytes("minecraft:custom"), bytes("minecraft:play_time")));
+    }
+
+    @Test
+    void invalidJsonThrows() {
+        assertThrows(IllegalStateException.class, () ->
+                parse("{\"stats\": {\"minecraft:custom\": ").find(bytes("minecraft:custom"), bytes("minecraft:jump")));
+        assertThrows(IllegalStateException.class, () ->
+                parse("[1, 2]").find(bytes("minecraft:custom"), bytes("minecraft:jump")));
+    }
+}
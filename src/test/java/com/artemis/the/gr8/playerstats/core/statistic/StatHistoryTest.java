@@ -0,0 +1,66 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatHistoryTest {
+
+    private static byte[] encode(long... values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long value : values) {
+            StatHistory.writeVarLong(out, value);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void smallNumbersTakeOneByte() {
+        assertArrayEquals(new byte[]{0}, encode(0));
+        assertArrayEquals(new byte[]{1}, encode(-1));
+        assertArrayEquals(new byte[]{2}, encode(1));
+        assertArrayEquals(new byte[]{0x7F}, encode(-64));
+        assertEquals(1, encode(63).length);
+        assertEquals(2, encode(64).length);
+        assertEquals(2, encode(-65).length);
+    }
+
+    @Test
+    void extremeNumbersTakeTenBytes() {
+        assertEquals(10, encode(Long.MAX_VALUE).length);
+        assertEquals(10, encode(Long.MIN_VALUE).length);
+        assertEquals(5, encode(Integer.MIN_VALUE).length);
+    }
+
+    @Test
+    void numbersSurviveARoundTrip() {
+        long[] values = {0, 1, -1, 63, 64, -64, -65, 127, 128, 300, -300,
+                Integer.MAX_VALUE, Integer.MIN_VALUE, (long) Integer.MAX_VALUE * 2,
+                Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+        Random random = new Random(5);
+        long[] randomValues = random.longs(1000).map(value -> value >> random.nextInt(64)).toArray();
+
+        for (long[] input : new long[][]{values, randomValues}) {
+            ByteBuffer buffer = ByteBuffer.wrap(encode(input));
+            for (long value : input) {
+                assertEquals(value, StatHistory.readVarLong(buffer));
+            }
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    void truncatedNumberThrows() {
+        byte[] bytes = encode(1L << 40);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, bytes.length - 1);
+        assertThrows(BufferUnderflowException.class, () -> StatHistory.readVarLong(buffer));
+    }
+}
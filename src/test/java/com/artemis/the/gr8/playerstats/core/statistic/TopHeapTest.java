@@ -0,0 +1,108 @@
+package com.artemis.the.gr8.playerstats.core.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopHeapTest {
+
+    private static int[] getOrdinals(TopHeap heap) {
+        return IntStream.range(0, heap.size()).map(heap::getOrdinal).toArray();
+    }
+
+    private static int[] getValues(TopHeap heap) {
+        return IntStream.range(0, heap.size()).map(heap::getValue).toArray();
+    }
+
+    @Test
+    void keepsTheHighestValuesInOrder() {
+        TopHeap heap = new TopHeap(3);
+        int[] values = {5, 50, 1, 30, 40, 2};
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            heap.offer(ordinal, values[ordinal]);
+        }
+        heap.sort();
+
+        assertEquals(3, heap.size());
+        assertArrayEquals(new int[]{1, 4, 3}, getOrdinals(heap));
+        assertArrayEquals(new int[]{50, 40, 30}, getValues(heap));
+    }
+
+    @Test
+    void equalValuesAreOrderedByOrdinal() {
+        TopHeap heap = new TopHeap(2);
+        heap.offer(7, 10);
+        heap.offer(3, 10);
+        heap.offer(5, 10);
+        heap.sort();
+
+        assertArrayEquals(new int[]{3, 5}, getOrdinals(heap));
+    }
+
+    @Test
+    void acceptsOnlyCandidatesThatWouldMakeIt() {
+        TopHeap heap = new TopHeap(2);
+        assertTrue(heap.accepts(0, 1));
+        heap.offer(0, 10);
+        heap.offer(1, 20);
+
+        assertFalse(heap.accepts(2, 5));
+        assertFalse(heap.accepts(2, 10));
+        assertTrue(heap.accepts(2, 11));
+
+        assertFalse(new TopHeap(0).accepts(0, 100));
+    }
+
+    @Test
+    void mergeKeepsTheHighestOfBoth() {
+        TopHeap first = new TopHeap(3);
+        first.offer(0, 1);
+        first.offer(1, 9);
+        TopHeap second = new TopHeap(3);
+        second.offer(2, 5);
+        second.offer(3, 7);
+        second.offer(4, 3);
+
+        first.merge(second);
+        first.sort();
+        assertArrayEquals(new int[]{9, 7, 5}, getValues(first));
+    }
+
+    @Test
+    void cannotOfferAfterSorting() {
+        TopHeap heap = new TopHeap(2);
+        heap.offer(0, 1);
+        heap.sort();
+        assertThrows(IllegalStateException.class, () -> heap.offer(1, 2));
+    }
+
+    @Test
+    void matchesAFullSort() {
+        Random random = new Random(7);
+        int[] values = random.ints(10_000, 0, 500).toArray();
+        int topListSize = 25;
+
+        TopHeap heap = new TopHeap(topListSize);
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            if (heap.accepts(ordinal, values[ordinal])) {
+                heap.offer(ordinal, values[ordinal]);
+            }
+        }
+        heap.sort();
+
+        int[] expectedOrdinals = IntStream.range(0, values.length)
+                .boxed()
+                .sorted((a, b) -> values[a] != values[b] ? Integer.compare(values[b], values[a]) : Integer.compare(a, b))
+                .limit(topListSize)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertArrayEquals(expectedOrdinals, getOrdinals(heap));
+    }
+}